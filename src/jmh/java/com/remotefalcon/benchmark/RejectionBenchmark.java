@@ -0,0 +1,80 @@
+package com.remotefalcon.benchmark;
+
+import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.enums.StatusResponse;
+import com.remotefalcon.response.RequestVoteResponse;
+import com.remotefalcon.service.MutationOutcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of answering a viewer mutation as seen by the REST endpoint: accepted, rejected as a
+ * {@link MutationOutcome}, rejected by throwing the shared stackless exception (the GraphQL path), and rejected
+ * the old way with a new exception per call. The work runs {@code stackDepth} frames deep, since filling in a
+ * stack trace costs more the deeper the caller is. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RejectionBenchmark {
+  @Param({"16", "128"})
+  int stackDepth;
+
+  @Benchmark
+  public RequestVoteResponse accepted() {
+    return this.atDepth(this.stackDepth, () -> respond(MutationOutcome.ACCEPTED));
+  }
+
+  @Benchmark
+  public RequestVoteResponse rejectedOutcome() {
+    return this.atDepth(this.stackDepth, () -> respond(MutationOutcome.rejected(StatusResponse.QUEUE_FULL)));
+  }
+
+  @Benchmark
+  public RequestVoteResponse rejectedPreallocatedException() {
+    return this.atDepth(this.stackDepth, () -> {
+      try {
+        MutationOutcome.rejected(StatusResponse.QUEUE_FULL).orThrow();
+        return respond(MutationOutcome.ACCEPTED);
+      } catch (CustomGraphQLExceptionResolver e) {
+        return respond(e);
+      }
+    });
+  }
+
+  @Benchmark
+  public RequestVoteResponse rejectedNewException() {
+    return this.atDepth(this.stackDepth, () -> {
+      try {
+        throw new CustomGraphQLExceptionResolver(StatusResponse.QUEUE_FULL.name());
+      } catch (CustomGraphQLExceptionResolver e) {
+        return respond(e);
+      }
+    });
+  }
+
+  private RequestVoteResponse atDepth(int depth, Supplier<RequestVoteResponse> work) {
+    return depth <= 0 ? work.get() : this.atDepth(depth - 1, work);
+  }
+
+  private static RequestVoteResponse respond(MutationOutcome outcome) {
+    return RequestVoteResponse.builder()
+        .message(outcome.rejection())
+        .build();
+  }
+
+  private static RequestVoteResponse respond(CustomGraphQLExceptionResolver e) {
+    Object messageObj = e.getExtensions().get("message");
+    return RequestVoteResponse.builder()
+        .message(messageObj != null ? messageObj.toString() : "An error occurred")
+        .build();
+  }
+}
@@ -0,0 +1,87 @@
+package com.remotefalcon.benchmark;
+
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.service.ViewerMembership;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duplicate-viewer checks on a show with {@code viewers} voters (spread over 50 votes) and as many requests:
+ * the scans against {@link ViewerMembership} lookups on an index that is already warm, as on a mutation lane,
+ * and on an index built for the one check, as it would be for a show loaded per request. The looked-up IP has
+ * not voted or requested, which is the common case and the worst case for a scan. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ViewerMembershipBenchmark {
+  private static final String NEW_VIEWER = "198.51.100.77";
+
+  @Param({"1000", "10000", "50000"})
+  int viewers;
+
+  private Show show;
+  private ViewerMembership membership;
+
+  @Setup
+  public void setUp() {
+    List<Vote> votes = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      votes.add(Vote.builder().viewersVoted(new ArrayList<>()).votes(0).build());
+    }
+    List<Request> requests = new ArrayList<>();
+    for (int i = 0; i < this.viewers; i++) {
+      String ip = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+      votes.get(i % votes.size()).getViewersVoted().add(ip);
+      requests.add(Request.builder().viewerRequested(ip).position(i).build());
+    }
+    this.show = new Show();
+    this.show.setVotes(votes);
+    this.show.setRequests(requests);
+    this.membership = new ViewerMembership();
+    this.membership.hasVoted(this.show, NEW_VIEWER);
+    this.membership.hasRequested(this.show, NEW_VIEWER);
+  }
+
+  @Benchmark
+  public boolean scanVoters() {
+    return ViewerMembership.scanVoted(this.show, NEW_VIEWER);
+  }
+
+  @Benchmark
+  public boolean indexedVoters() {
+    return this.membership.hasVoted(this.show, NEW_VIEWER);
+  }
+
+  @Benchmark
+  public boolean coldIndexedVoters() {
+    return new ViewerMembership().hasVoted(this.show, NEW_VIEWER);
+  }
+
+  @Benchmark
+  public boolean scanRequesters() {
+    return ViewerMembership.scanRequested(this.show, NEW_VIEWER);
+  }
+
+  @Benchmark
+  public boolean indexedRequesters() {
+    return this.membership.hasRequested(this.show, NEW_VIEWER);
+  }
+
+  @Benchmark
+  public boolean coldIndexedRequesters() {
+    return new ViewerMembership().hasRequested(this.show, NEW_VIEWER);
+  }
+}
@@ -0,0 +1,57 @@
+package com.remotefalcon.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a value loaded for a key may still be cached: take a {@link #stamp()} before loading and check
+ * {@link #isCurrent(String, long)} before caching, so a load that raced an invalidation of its key is dropped.
+ * Stamps come from one clock shared by all keys and only each key's latest invalidation is kept, up to a bound;
+ * past it every tracked invalidation is forgotten at once by raising a floor that all older stamps fail.
+ * Looking up an unknown key therefore allocates nothing, and invalidating random keys cannot grow it without limit.
+ */
+public final class InvalidationClock {
+  private final int maxTracked;
+  private final AtomicLong clock = new AtomicLong();
+  // Every forgotten invalidation happened at or before this stamp
+  private final AtomicLong forgottenUpTo = new AtomicLong();
+  private final ConcurrentHashMap<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+
+  public InvalidationClock(int maxTracked) {
+    this.maxTracked = maxTracked;
+  }
+
+  public long stamp() {
+    return this.clock.get();
+  }
+
+  /**
+   * True when {@code key} has not been invalidated since {@code stamp} was taken.
+   */
+  public boolean isCurrent(String key, long stamp) {
+    // Map first, floor second: a pruned entry is only removed after the floor covers it
+    Long invalidated = this.invalidatedAt.get(key);
+    return Math.max(invalidated != null ? invalidated : 0L, this.forgottenUpTo.get()) <= stamp;
+  }
+
+  public void invalidate(String key) {
+    long stamp = this.clock.incrementAndGet();
+    this.invalidatedAt.merge(key, stamp, Math::max);
+    if (this.invalidatedAt.size() > this.maxTracked) {
+      this.forgetUpTo(stamp);
+    }
+  }
+
+  public void invalidateAll() {
+    this.forgetUpTo(this.clock.incrementAndGet());
+  }
+
+  int trackedCount() {
+    return this.invalidatedAt.size();
+  }
+
+  private void forgetUpTo(long stamp) {
+    this.forgottenUpTo.accumulateAndGet(stamp, Math::max);
+    this.invalidatedAt.values().removeIf(invalidated -> invalidated <= stamp);
+  }
+}
@@ -0,0 +1,7 @@
+package com.remotefalcon.cache;
+
+/**
+ * JSON bytes of a viewer snapshot together with the strong ETag derived from them.
+ */
+public record SerializedShow(byte[] body, String etag) {
+}
@@ -0,0 +1,55 @@
+package com.remotefalcon.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.repository.ShowRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Caches each show's owner IP (lastLoginIp), which is all the page stat and active viewer paths need
+ * from the Show document. Loaded with a one-field projection and evicted when lastLoginIp changes.
+ */
+@ApplicationScoped
+public class ShowOwnerCache {
+  private static final List<String> OWNER_FIELDS = List.of("lastLoginIp");
+
+  private final ShowRepository showRepository;
+  // An empty value means the show does not exist
+  private final Cache<String, Optional<String>> ownerIps;
+
+  @Inject
+  public ShowOwnerCache(ShowRepository showRepository,
+      @ConfigProperty(name = "viewer.owner-cache.ttl", defaultValue = "5m") Duration ttl) {
+    this.showRepository = showRepository;
+    this.ownerIps = Caffeine.newBuilder()
+        .expireAfterWrite(ttl)
+        .maximumSize(10_000)
+        .build();
+  }
+
+  /**
+   * Returns the owner's IP (empty string when unset), or an empty Optional when the show does not exist.
+   */
+  public Optional<String> ownerIp(String showSubdomain) {
+    return this.ownerIps.get(showSubdomain, key -> this.showRepository
+        .findLastLoginIpOnlyByShowSubdomain(key)
+        .map(show -> StringUtils.defaultString(show.getLastLoginIp())));
+  }
+
+  void onShowChanged(@Observes ShowChangeEvent event) {
+    if (event.showSubdomain() == null) {
+      this.ownerIps.invalidateAll();
+    } else if (event.touchesAny(OWNER_FIELDS)) {
+      this.ownerIps.invalidate(event.showSubdomain());
+    }
+  }
+}
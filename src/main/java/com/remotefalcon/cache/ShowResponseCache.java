@@ -0,0 +1,89 @@
+package com.remotefalcon.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remotefalcon.library.models.Preference;
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Serialized JSON for viewer snapshots, keyed by the snapshot instance itself.
+ * A cached snapshot is immutable, so it is serialized and hashed once no matter how many polls read it;
+ * the entry goes away together with the snapshot. The ETag is a content hash, so it stays stable across
+ * reloads and pods as long as the show data is unchanged.
+ * Other viewers' IP addresses are left out of the JSON, so they are neither served nor part of the ETag.
+ */
+@ApplicationScoped
+public class ShowResponseCache {
+  @Inject
+  ObjectMapper objectMapper;
+
+  // weakKeys compares by identity, which is exactly "per snapshot version"
+  private final Cache<Show, SerializedShow> cache = Caffeine.newBuilder()
+      .weakKeys()
+      .maximumSize(10_000)
+      .build();
+  private ObjectMapper writer;
+
+  @PostConstruct
+  void init() {
+    // Fields left out of the viewer projection are null and are not worth sending
+    this.writer = this.objectMapper.copy()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .addMixIn(Show.class, ShowWithoutViewerIps.class)
+        .addMixIn(Vote.class, VoteWithoutViewerIps.class)
+        .addMixIn(Request.class, RequestWithoutViewerIp.class)
+        .addMixIn(Preference.class, PreferenceWithoutViewerIps.class);
+  }
+
+  public SerializedShow serialize(Show show) {
+    return this.cache.get(show, this::toSerializedShow);
+  }
+
+  private SerializedShow toSerializedShow(Show show) {
+    try {
+      byte[] body = this.writer.writeValueAsBytes(show);
+      return new SerializedShow(body, etag(body));
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static String etag(byte[] body) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 27);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @JsonIgnoreProperties({"activeViewers", "lastLoginIp"})
+  private interface ShowWithoutViewerIps {
+  }
+
+  @JsonIgnoreProperties("viewersVoted")
+  private interface VoteWithoutViewerIps {
+  }
+
+  @JsonIgnoreProperties("viewerRequested")
+  private interface RequestWithoutViewerIp {
+  }
+
+  @JsonIgnoreProperties("blockedViewerIps")
+  private interface PreferenceWithoutViewerIps {
+  }
+}
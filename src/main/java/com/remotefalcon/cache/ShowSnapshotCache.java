@@ -0,0 +1,164 @@
+package com.remotefalcon.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.models.ViewerPage;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.repository.ShowChangeStreamStatus;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.repository.ViewerProjection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-subdomain cache of the processed viewer snapshot returned by getShow, one entry per
+ * distinct GraphQL projection requested for the show.
+ * Entries are weighted by an estimate of their in-memory size so a handful of huge shows
+ * cannot push every other show out of the cache.
+ * Cached Show instances are shared between callers and must be treated as read-only.
+ * While the Show change stream is connected, entries live for the longer watched TTL because
+ * writes from other pods invalidate them; otherwise the short TTL bounds staleness.
+ */
+@ApplicationScoped
+public class ShowSnapshotCache {
+  private static final int MAX_TRACKED_INVALIDATIONS = 10_000;
+
+  private final boolean enabled;
+  private final WatchedExpiry<ShowSnapshotKey, Show> expiry;
+  private final Cache<ShowSnapshotKey, Show> cache;
+  // Only subdomains with a cached snapshot have keys here; the removal listener drops the rest
+  private final ConcurrentHashMap<String, Set<ShowSnapshotKey>> keysBySubdomain = new ConcurrentHashMap<>();
+
+  // Stamped on every invalidation so a load that started before a mutation cannot repopulate stale data
+  private final InvalidationClock invalidations = new InvalidationClock(MAX_TRACKED_INVALIDATIONS);
+
+  public ShowSnapshotCache(
+      @ConfigProperty(name = "viewer.show-cache.enabled", defaultValue = "true") boolean enabled,
+      @ConfigProperty(name = "viewer.show-cache.ttl", defaultValue = "2s") Duration ttl,
+      @ConfigProperty(name = "viewer.show-cache.watched-ttl", defaultValue = "60s") Duration watchedTtl,
+      @ConfigProperty(name = "viewer.show-cache.max-weight", defaultValue = "64M") MemorySize maxWeight,
+      MeterRegistry registry) {
+    this.enabled = enabled;
+    this.expiry = new WatchedExpiry<>(ttl, watchedTtl);
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxWeight.asLongValue())
+        .weigher((ShowSnapshotKey key, Show show) -> estimateWeight(show))
+        .expireAfter(this.expiry)
+        .removalListener((ShowSnapshotKey key, Show show, RemovalCause cause) -> this.forgetKey(key))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, this.cache, "viewer_show_snapshot");
+  }
+
+  public Show get(String showSubdomain, ViewerProjection projection) {
+    if (!this.enabled || showSubdomain == null) {
+      return null;
+    }
+    return this.cache.getIfPresent(new ShowSnapshotKey(showSubdomain, projection));
+  }
+
+  /**
+   * Returns the current invalidation stamp, shared by every show. Capture it before loading from Mongo
+   * and hand it back to {@link #put(String, ViewerProjection, long, Show)}.
+   */
+  public long stamp() {
+    return this.invalidations.stamp();
+  }
+
+  public void put(String showSubdomain, ViewerProjection projection, long stamp, Show show) {
+    if (!this.enabled || showSubdomain == null || show == null) {
+      return;
+    }
+    ShowSnapshotKey snapshotKey = new ShowSnapshotKey(showSubdomain, projection);
+    // Registered before caching so an invalidation racing this put always finds the key
+    this.keysBySubdomain.computeIfAbsent(showSubdomain, key -> ConcurrentHashMap.newKeySet()).add(snapshotKey);
+    Show cached = this.cache.asMap().compute(snapshotKey, (key, existing) ->
+        this.invalidations.isCurrent(showSubdomain, stamp) ? show : existing);
+    if (cached == null) {
+      this.forgetKey(snapshotKey);
+    }
+  }
+
+  public void invalidate(String showSubdomain) {
+    if (showSubdomain == null) {
+      return;
+    }
+    this.invalidations.invalidate(showSubdomain);
+    Set<ShowSnapshotKey> keys = this.keysBySubdomain.get(showSubdomain);
+    if (keys != null) {
+      this.cache.invalidateAll(Set.copyOf(keys));
+    }
+  }
+
+  public void invalidateAll() {
+    this.invalidations.invalidateAll();
+    this.cache.invalidateAll();
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  void onShowChanged(@Observes ShowChangeEvent event) {
+    // Page stats, active viewers and other excluded fields are not part of the snapshot
+    if (event.touchesOnly(ShowRepository.VIEWER_EXCLUDED_FIELDS)) {
+      return;
+    }
+    if (event.showSubdomain() == null) {
+      this.invalidateAll();
+    } else {
+      this.invalidate(event.showSubdomain());
+    }
+  }
+
+  void onChangeStreamStatus(@Observes ShowChangeStreamStatus status) {
+    this.expiry.setChangeStreamConnected(status.connected());
+    // Changes may have been missed around the transition, and long-lived entries can no longer be trusted
+    this.invalidateAll();
+  }
+
+  private void forgetKey(ShowSnapshotKey snapshotKey) {
+    this.keysBySubdomain.computeIfPresent(snapshotKey.showSubdomain(), (showSubdomain, keys) -> {
+      if (!this.cache.asMap().containsKey(snapshotKey)) {
+        keys.remove(snapshotKey);
+      }
+      return keys.isEmpty() ? null : keys;
+    });
+  }
+
+  static int estimateWeight(Show show) {
+    // Rough byte estimate; only needs to be proportional, not exact
+    long weight = 1024;
+    weight += sizeOf(show.getSequences()) * 256L;
+    weight += sizeOf(show.getSequenceGroups()) * 128L;
+    weight += sizeOf(show.getRequests()) * 320L;
+    weight += sizeOf(show.getPsaSequences()) * 64L;
+    if (show.getVotes() != null) {
+      for (Vote vote : show.getVotes()) {
+        weight += 256L + sizeOf(vote.getViewersVoted()) * 48L;
+      }
+    }
+    if (show.getPages() != null) {
+      for (ViewerPage page : show.getPages()) {
+        weight += 64L + (page.getHtml() != null ? page.getHtml().length() * 2L : 0L);
+      }
+    }
+    return (int) Math.min(Integer.MAX_VALUE, weight);
+  }
+
+  private static int sizeOf(Collection<?> collection) {
+    return collection == null ? 0 : collection.size();
+  }
+}
@@ -0,0 +1,6 @@
+package com.remotefalcon.cache;
+
+import com.remotefalcon.repository.ViewerProjection;
+
+public record ShowSnapshotKey(String showSubdomain, ViewerProjection projection) {
+}
@@ -0,0 +1,95 @@
+package com.remotefalcon.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.repository.ShowChangeStreamStatus;
+import com.remotefalcon.service.ShowValidationContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-show {@link ShowValidationContext}, rebuilt only when the show's preferences, sequences or sequence
+ * groups change. Every such change seen on the change stream invalidates the show on an {@link InvalidationClock},
+ * and a context built from a show loaded before the change is never cached. Expiry is {@link WatchedExpiry}.
+ */
+@ApplicationScoped
+public class ShowValidationContextCache {
+  private static final List<String> CONFIG_FIELDS = List.of("preferences", "sequences", "sequenceGroups");
+  private static final int MAX_TRACKED_INVALIDATIONS = 10_000;
+
+  private final boolean enabled;
+  private final WatchedExpiry<String, ShowValidationContext> expiry;
+  private final Cache<String, ShowValidationContext> contexts;
+  private final InvalidationClock invalidations = new InvalidationClock(MAX_TRACKED_INVALIDATIONS);
+
+  public ShowValidationContextCache(
+      @ConfigProperty(name = "viewer.validation-context.enabled", defaultValue = "true") boolean enabled,
+      @ConfigProperty(name = "viewer.validation-context.ttl", defaultValue = "2s") Duration ttl,
+      @ConfigProperty(name = "viewer.validation-context.watched-ttl", defaultValue = "5m") Duration watchedTtl) {
+    this.enabled = enabled;
+    this.expiry = new WatchedExpiry<>(ttl, watchedTtl);
+    this.contexts = Caffeine.newBuilder()
+        .maximumSize(10_000)
+        .expireAfter(this.expiry)
+        .build();
+  }
+
+  /**
+   * Returns the cached context for the show, or builds one from the show just loaded for the mutation.
+   */
+  public ShowValidationContext get(Show show) {
+    String showSubdomain = show.getShowSubdomain();
+    if (!this.enabled || showSubdomain == null) {
+      return ShowValidationContext.of(show, 0L);
+    }
+    ShowValidationContext cached = this.contexts.getIfPresent(showSubdomain);
+    if (cached != null) {
+      return cached;
+    }
+    return this.put(show, this.invalidations.stamp());
+  }
+
+  /**
+   * Builds the context for {@code show} and caches it unless the show changed since {@code stamp}.
+   */
+  ShowValidationContext put(Show show, long stamp) {
+    String showSubdomain = show.getShowSubdomain();
+    ShowValidationContext context = ShowValidationContext.of(show, stamp);
+    this.contexts.asMap().compute(showSubdomain, (key, existing) ->
+        this.invalidations.isCurrent(showSubdomain, stamp) ? context : existing);
+    return context;
+  }
+
+  long stamp() {
+    return this.invalidations.stamp();
+  }
+
+  public void invalidate(String showSubdomain) {
+    this.invalidations.invalidate(showSubdomain);
+    this.contexts.invalidate(showSubdomain);
+  }
+
+  public void invalidateAll() {
+    this.invalidations.invalidateAll();
+    this.contexts.invalidateAll();
+  }
+
+  void onShowChanged(@Observes ShowChangeEvent event) {
+    if (event.showSubdomain() == null) {
+      this.invalidateAll();
+    } else if (event.touchesAny(CONFIG_FIELDS)) {
+      this.invalidate(event.showSubdomain());
+    }
+  }
+
+  void onChangeStreamStatus(@Observes ShowChangeStreamStatus status) {
+    this.expiry.setChangeStreamConnected(status.connected());
+    this.invalidateAll();
+  }
+}
@@ -0,0 +1,89 @@
+package com.remotefalcon.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent loads of the same key. The first caller runs the loader and every
+ * caller that arrives while it is still running waits for and shares that result (or failure).
+ */
+public class SingleFlight<K, V> {
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final Runnable onLoad;
+  private final Runnable onCoalesced;
+
+  public SingleFlight(Runnable onLoad, Runnable onCoalesced) {
+    this.onLoad = onLoad;
+    this.onCoalesced = onCoalesced;
+  }
+
+  public V execute(K key, Supplier<V> loader) {
+    CompletableFuture<V> pending = new CompletableFuture<>();
+    CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, pending);
+    if (existing != null) {
+      this.onCoalesced.run();
+      return join(existing);
+    }
+    this.onLoad.run();
+    try {
+      V value = loader.get();
+      pending.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      pending.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.inFlight.remove(key, pending);
+    }
+  }
+
+  /**
+   * Non-blocking variant of {@link #execute}: callers that arrive while a load is running get the same future.
+   */
+  public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletionStage<V>> loader) {
+    CompletableFuture<V> pending = new CompletableFuture<>();
+    CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, pending);
+    if (existing != null) {
+      this.onCoalesced.run();
+      return existing;
+    }
+    this.onLoad.run();
+    try {
+      loader.get().whenComplete((value, error) -> {
+        this.inFlight.remove(key, pending);
+        if (error != null) {
+          pending.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+              ? error.getCause()
+              : error);
+        } else {
+          pending.complete(value);
+        }
+      });
+    } catch (RuntimeException | Error e) {
+      this.inFlight.remove(key, pending);
+      pending.completeExceptionally(e);
+    }
+    return pending;
+  }
+
+  int inFlightCount() {
+    return this.inFlight.size();
+  }
+
+  private static <V> V join(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+}
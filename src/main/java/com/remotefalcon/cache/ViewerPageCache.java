@@ -0,0 +1,104 @@
+package com.remotefalcon.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.repository.ShowChangeStreamStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-subdomain cache of the active viewer page HTML, encoded and compressed once per page version.
+ * Entries are weighted by their byte size. Changes to the pages field (locally or through the
+ * change stream) evict the entry; the TTL only bounds staleness while the change stream is down.
+ */
+@ApplicationScoped
+public class ViewerPageCache {
+  private static final List<String> PAGE_FIELDS = List.of("pages");
+
+  private final boolean enabled;
+  private final WatchedExpiry<String, ViewerPageContent> expiry;
+  private final Cache<String, ViewerPageContent> cache;
+
+  public ViewerPageCache(
+      @ConfigProperty(name = "viewer.page-cache.enabled", defaultValue = "true") boolean enabled,
+      @ConfigProperty(name = "viewer.page-cache.ttl", defaultValue = "30s") Duration ttl,
+      @ConfigProperty(name = "viewer.page-cache.watched-ttl", defaultValue = "10m") Duration watchedTtl,
+      @ConfigProperty(name = "viewer.page-cache.max-weight", defaultValue = "64M") MemorySize maxWeight,
+      MeterRegistry registry) {
+    this.enabled = enabled;
+    this.expiry = new WatchedExpiry<>(ttl, watchedTtl);
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(maxWeight.asLongValue())
+        .weigher((String showSubdomain, ViewerPageContent content) ->
+            64 + content.html().length + content.gzip().length)
+        .expireAfter(this.expiry)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, this.cache, "viewer_page");
+  }
+
+  /**
+   * Returns the encoded page for the show, loading the HTML with {@code loader} on a miss, or an empty Optional
+   * when the loader finds no such show. Unknown subdomains are not cached, so they cannot fill the cache.
+   */
+  public Optional<ViewerPageContent> get(String showSubdomain, Function<String, Optional<String>> loader) {
+    if (!this.enabled) {
+      return loader.apply(showSubdomain).map(ViewerPageCache::encode);
+    }
+    // Caffeine blocks invalidate() on a key while it is loading, so a page change can't be overwritten by a stale load
+    return Optional.ofNullable(this.cache.get(showSubdomain,
+        key -> loader.apply(key).map(ViewerPageCache::encode).orElse(null)));
+  }
+
+  public void invalidate(String showSubdomain) {
+    if (showSubdomain != null) {
+      this.cache.invalidate(showSubdomain);
+    }
+  }
+
+  void onShowChanged(@Observes ShowChangeEvent event) {
+    if (!event.touchesAny(PAGE_FIELDS)) {
+      return;
+    }
+    if (event.showSubdomain() == null) {
+      this.cache.invalidateAll();
+    } else {
+      this.invalidate(event.showSubdomain());
+    }
+  }
+
+  void onChangeStreamStatus(@Observes ShowChangeStreamStatus status) {
+    this.expiry.setChangeStreamConnected(status.connected());
+    this.cache.invalidateAll();
+  }
+
+  static ViewerPageContent encode(String html) {
+    byte[] bytes = (html != null ? html : "").getBytes(StandardCharsets.UTF_8);
+    return new ViewerPageContent(bytes, gzip(bytes), ShowResponseCache.etag(bytes));
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,11 @@
+package com.remotefalcon.cache;
+
+/**
+ * Encoded variants of a show's active viewer page. Both variants share the content hash in their ETag,
+ * with the gzip one suffixed so the tags stay strong per representation.
+ */
+public record ViewerPageContent(byte[] html, byte[] gzip, String etag) {
+  public String gzipEtag() {
+    return this.etag + "-gzip";
+  }
+}
@@ -0,0 +1,44 @@
+package com.remotefalcon.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+
+/**
+ * Expiry of the per-show caches: while the Show change stream is connected its events evict stale entries,
+ * so entries live for the longer watched TTL; otherwise the short TTL bounds how long a change can go unnoticed.
+ * Reads never extend an entry. The owning cache reports the stream status with {@link #setChangeStreamConnected}.
+ */
+final class WatchedExpiry<K, V> implements Expiry<K, V> {
+  private final Duration ttl;
+  private final Duration watchedTtl;
+  private volatile boolean changeStreamConnected;
+
+  WatchedExpiry(Duration ttl, Duration watchedTtl) {
+    this.ttl = ttl;
+    this.watchedTtl = watchedTtl;
+  }
+
+  void setChangeStreamConnected(boolean changeStreamConnected) {
+    this.changeStreamConnected = changeStreamConnected;
+  }
+
+  @Override
+  public long expireAfterCreate(K key, V value, long currentTime) {
+    return this.currentTtl().toNanos();
+  }
+
+  @Override
+  public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+    return this.currentTtl().toNanos();
+  }
+
+  @Override
+  public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+    return currentDuration;
+  }
+
+  private Duration currentTtl() {
+    return this.changeStreamConnected ? this.watchedTtl : this.ttl;
+  }
+}
@@ -0,0 +1,8 @@
+package com.remotefalcon.controller;
+
+/**
+ * Which data path the GraphQL and REST handlers use (viewer.api.stack).
+ * BLOCKING runs the services on {@link HandlerExecutor}; REACTIVE composes Mutiny pipelines on the
+ * reactive Mongo client, so a request holds no thread while it waits on the database.
+ */
+public enum ApiStack { BLOCKING, REACTIVE }
@@ -1,14 +1,22 @@
 package com.remotefalcon.controller;
 
+import com.remotefalcon.library.models.Request;
 import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ViewerProjection;
 import com.remotefalcon.service.GraphQLMutationService;
 import com.remotefalcon.service.GraphQLQueryService;
+import com.remotefalcon.service.MutationOutcome;
+import com.remotefalcon.util.ClientUtil;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.graphql.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 @JBossLog
 @GraphQLApi
@@ -20,49 +28,93 @@ public class GraphQLController {
   @Inject
   GraphQLMutationService graphQLMutationService;
 
+  @Inject
+  ShowSelection showSelection;
+
+  @Inject
+  HandlerExecutor handlerExecutor;
+
+  @Inject
+  RoutingContext context;
+
+  @ConfigProperty(name = "viewer.api.stack", defaultValue = "blocking")
+  ApiStack apiStack;
+
+  // Handlers return CompletionStage so the blocking work runs on HandlerExecutor (worker or virtual threads),
+  // or, with viewer.api.stack=reactive, as a non-blocking pipeline on the event loop.
+  // Request-bound values (client IP, selected fields) are read first, on the request thread.
+
   /********
    * Mutations
    ********/
   @Mutation
   @Description("Insert Viewer Page Stats")
-  public Boolean insertViewerPageStats(String showSubdomain, LocalDateTime date) {
-    return graphQLMutationService.insertViewerPageStats(showSubdomain, date);
+  public CompletionStage<Boolean> insertViewerPageStats(String showSubdomain, LocalDateTime date) {
+    String clientIp = ClientUtil.getClientIP(context);
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLMutationService.insertViewerPageStatsUni(showSubdomain, date, clientIp).subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLMutationService.insertViewerPageStats(showSubdomain, date, clientIp));
   }
 
   @Mutation
   @Description("Update Active Viewers")
-  public Boolean updateActiveViewers(String showSubdomain) {
-    return graphQLMutationService.updateActiveViewers(showSubdomain);
+  public CompletionStage<Boolean> updateActiveViewers(String showSubdomain) {
+    String clientIp = ClientUtil.getClientIP(context);
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLMutationService.updateActiveViewersUni(showSubdomain, clientIp).subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLMutationService.updateActiveViewers(showSubdomain, clientIp));
   }
 
   @Mutation
   @Description("Update Playing Now")
-  public Boolean updatePlayingNow(String showSubdomain, String playingNow) {
-    return graphQLMutationService.updatePlayingNow(showSubdomain, playingNow);
+  public CompletionStage<Boolean> updatePlayingNow(String showSubdomain, String playingNow) {
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLMutationService.updatePlayingNowUni(showSubdomain, playingNow).subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLMutationService.updatePlayingNow(showSubdomain, playingNow));
   }
 
   @Mutation
   @Description("Update Playing Next")
-  public Boolean updatePlayingNext(String showSubdomain, String playingNext) {
-    return graphQLMutationService.updatePlayingNext(showSubdomain, playingNext);
+  public CompletionStage<Boolean> updatePlayingNext(String showSubdomain, String playingNext) {
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLMutationService.updatePlayingNextUni(showSubdomain, playingNext).subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLMutationService.updatePlayingNext(showSubdomain, playingNext));
   }
 
   @Mutation
   @Name("addSequenceToQueue")
   @Description("Add Sequence To Queue")
-  public Boolean addSequenceToQueue(String showSubdomain, String name, Double latitude, Double longitude) {
-    return graphQLMutationService.addSequenceToQueue(showSubdomain, name,
-        latitude != null ? latitude.floatValue() : null,
-        longitude != null ? longitude.floatValue() : null);
+  public CompletionStage<Boolean> addSequenceToQueue(String showSubdomain, String name, Double latitude, Double longitude) {
+    String clientIp = ClientUtil.getClientIP(context);
+    Float viewerLatitude = latitude != null ? latitude.floatValue() : null;
+    Float viewerLongitude = longitude != null ? longitude.floatValue() : null;
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLMutationService.tryAddSequenceToQueueUni(showSubdomain, name, viewerLatitude, viewerLongitude, clientIp)
+          .map(MutationOutcome::orThrow)
+          .subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLMutationService.addSequenceToQueue(showSubdomain, name,
+        viewerLatitude, viewerLongitude, clientIp));
   }
 
   @Mutation
   @Name("voteForSequence")
   @Description("Vote For Sequence")
-  public Boolean voteForSequence(String showSubdomain, String name, Double latitude, Double longitude) {
-    return graphQLMutationService.voteForSequence(showSubdomain, name,
-        latitude != null ? latitude.floatValue() : null,
-        longitude != null ? longitude.floatValue() : null);
+  public CompletionStage<Boolean> voteForSequence(String showSubdomain, String name, Double latitude, Double longitude) {
+    String clientIp = ClientUtil.getClientIP(context);
+    Float viewerLatitude = latitude != null ? latitude.floatValue() : null;
+    Float viewerLongitude = longitude != null ? longitude.floatValue() : null;
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLMutationService.tryVoteForSequenceUni(showSubdomain, name, viewerLatitude, viewerLongitude, clientIp)
+          .map(MutationOutcome::orThrow)
+          .subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLMutationService.voteForSequence(showSubdomain, name,
+        viewerLatitude, viewerLongitude, clientIp));
   }
 
   /*******
@@ -71,14 +123,31 @@ public class GraphQLController {
   @Query
   @Name("getShow")
   @Description("Get Show")
-  public Show getShow(String showSubdomain) {
-    return this.graphQLQueryService.getShow(showSubdomain);
+  public CompletionStage<Show> getShow(String showSubdomain) {
+    ViewerProjection projection = this.showSelection.projection();
+    if (this.apiStack == ApiStack.REACTIVE) {
+      return this.graphQLQueryService.getShowUni(showSubdomain, projection).subscribeAsCompletionStage();
+    }
+    return this.handlerExecutor.submit(() -> this.graphQLQueryService.getShow(showSubdomain, projection));
+  }
+
+  @Query
+  @Name("getQueue")
+  @Description("Get Queue")
+  public CompletionStage<List<Request>> getQueue(String showSubdomain, Integer afterPosition, Integer limit) {
+    if (this.apiStack == ApiStack.REACTIVE) {
+      return this.graphQLQueryService.getQueueUni(showSubdomain, afterPosition, limit).subscribeAsCompletionStage();
+    }
+    return this.handlerExecutor.submit(() -> this.graphQLQueryService.getQueue(showSubdomain, afterPosition, limit));
   }
 
   @Query
   @Name("getActiveViewerPage")
   @Description("Get Active Viewer Page")
-  public String activeViewerPage(String showSubdomain) {
-    return graphQLQueryService.activeViewerPage(showSubdomain);
+  public CompletionStage<String> activeViewerPage(String showSubdomain) {
+    if (apiStack == ApiStack.REACTIVE) {
+      return graphQLQueryService.activeViewerPageUni(showSubdomain).subscribeAsCompletionStage();
+    }
+    return handlerExecutor.submit(() -> graphQLQueryService.activeViewerPage(showSubdomain));
   }
 }
@@ -0,0 +1,78 @@
+package com.remotefalcon.controller;
+
+import io.vertx.core.Vertx;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the blocking part of the GraphQL and REST handlers (service and Mongo calls).
+ * viewer.handlers.execution=worker uses the Quarkus worker pool as before; virtual gives every call
+ * its own virtual thread, so a show-start spike is no longer capped by the worker pool size. At most
+ * viewer.handlers.max-concurrent virtual threads run a call at once; the rest wait parked for a permit,
+ * so a spike queues up cheaply instead of piling onto the Mongo connection pool.
+ * Anything bound to the request (client IP, GraphQL selection) must be read before submitting,
+ * because the request context is not active on the thread that runs the call.
+ */
+@JBossLog
+@ApplicationScoped
+public class HandlerExecutor {
+  public enum Execution { WORKER, VIRTUAL }
+
+  private final Vertx vertx;
+  private final ExecutorService virtualThreads;
+  private final Semaphore permits;
+
+  @Inject
+  public HandlerExecutor(Vertx vertx,
+      @ConfigProperty(name = "viewer.handlers.execution", defaultValue = "worker") Execution execution,
+      @ConfigProperty(name = "viewer.handlers.max-concurrent", defaultValue = "256") int maxConcurrent) {
+    this.vertx = vertx;
+    this.virtualThreads = execution == Execution.VIRTUAL
+        ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("viewer-handler-", 0).factory())
+        : null;
+    this.permits = new Semaphore(maxConcurrent);
+    log.infof("GraphQL and REST handlers run on %s threads", execution.name().toLowerCase());
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (this.virtualThreads != null) {
+      this.virtualThreads.shutdown();
+    }
+  }
+
+  public <T> CompletionStage<T> submit(Callable<T> call) {
+    if (this.virtualThreads == null) {
+      return this.vertx.executeBlocking(call, false).toCompletionStage();
+    }
+    CompletableFuture<T> result = new CompletableFuture<>();
+    this.virtualThreads.execute(() -> {
+      try {
+        this.permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        result.completeExceptionally(e);
+        return;
+      }
+      try {
+        result.complete(call.call());
+      } catch (Throwable e) {
+        // Completed with the original exception so GraphQL error mapping sees e.g. CustomGraphQLExceptionResolver
+        result.completeExceptionally(e);
+      } finally {
+        this.permits.release();
+      }
+    });
+    return result;
+  }
+}
@@ -4,12 +4,21 @@ import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
 import com.remotefalcon.request.RequestVoteRequest;
 import com.remotefalcon.response.RequestVoteResponse;
 import com.remotefalcon.service.GraphQLMutationService;
+import com.remotefalcon.service.MutationOutcome;
+import com.remotefalcon.util.ClientUtil;
+import io.smallrye.mutiny.Uni;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.MediaType;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 @ApplicationScoped
 @Path("/")
@@ -17,43 +26,90 @@ public class RestController {
   @Inject
   GraphQLMutationService graphQLMutationService;
 
+  @Inject
+  HandlerExecutor handlerExecutor;
+
+  @Inject
+  RoutingContext context;
+
+  @ConfigProperty(name = "viewer.api.stack", defaultValue = "blocking")
+  ApiStack apiStack;
+
   @POST
   @Path("/addSequenceToQueue")
   @Consumes(MediaType.APPLICATION_JSON)
-  public RequestVoteResponse addSequenceToQueue(RequestVoteRequest request) {
-    try {
-      this.graphQLMutationService.addSequenceToQueue(
+  public CompletionStage<RequestVoteResponse> addSequenceToQueue(RequestVoteRequest request) {
+    String clientIp = ClientUtil.getClientIP(context);
+    if (this.apiStack == ApiStack.REACTIVE) {
+      return this.respond(this.graphQLMutationService.tryAddSequenceToQueueUni(
           request.getShowSubdomain(),
           request.getSequence(),
           request.getViewerLatitude(),
-          request.getViewerLongitude());
-      return RequestVoteResponse.builder().build();
-    } catch (CustomGraphQLExceptionResolver e) {
-      Object messageObj = e.getExtensions().get("message");
-      String message = messageObj != null ? messageObj.toString() : "An error occurred";
-      return RequestVoteResponse.builder()
-          .message(message)
-          .build();
+          request.getViewerLongitude(),
+          clientIp));
     }
+    return this.respond(() -> this.graphQLMutationService.tryAddSequenceToQueue(
+        request.getShowSubdomain(),
+        request.getSequence(),
+        request.getViewerLatitude(),
+        request.getViewerLongitude(),
+        clientIp));
   }
 
   @POST
   @Path("/voteForSequence")
   @Consumes(MediaType.APPLICATION_JSON)
-  public RequestVoteResponse voteForSequence(RequestVoteRequest request) {
-    try {
-      this.graphQLMutationService.voteForSequence(
+  public CompletionStage<RequestVoteResponse> voteForSequence(RequestVoteRequest request) {
+    String clientIp = ClientUtil.getClientIP(context);
+    if (this.apiStack == ApiStack.REACTIVE) {
+      return this.respond(this.graphQLMutationService.tryVoteForSequenceUni(
           request.getShowSubdomain(),
           request.getSequence(),
           request.getViewerLatitude(),
-          request.getViewerLongitude());
-      return RequestVoteResponse.builder().build();
-    } catch (CustomGraphQLExceptionResolver e) {
-      Object messageObj = e.getExtensions().get("message");
-      String message = messageObj != null ? messageObj.toString() : "An error occurred";
-      return RequestVoteResponse.builder()
-          .message(message)
-          .build();
+          request.getViewerLongitude(),
+          clientIp));
     }
+    return this.respond(() -> this.graphQLMutationService.tryVoteForSequence(
+        request.getShowSubdomain(),
+        request.getSequence(),
+        request.getViewerLatitude(),
+        request.getViewerLongitude(),
+        clientIp));
+  }
+
+  private CompletionStage<RequestVoteResponse> respond(Callable<MutationOutcome> mutation) {
+    // Same threads and concurrency limit as the GraphQL handlers (viewer.handlers.execution)
+    return this.handlerExecutor.submit(mutation)
+        .thenApply(this::toResponse)
+        .exceptionally(e -> {
+          Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (cause instanceof CustomGraphQLExceptionResolver rejection) {
+            return this.toResponse(rejection);
+          }
+          throw e instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+  }
+
+  private CompletionStage<RequestVoteResponse> respond(Uni<MutationOutcome> mutation) {
+    return mutation
+        .map(this::toResponse)
+        .onFailure(CustomGraphQLExceptionResolver.class)
+        .recoverWithItem(e -> this.toResponse((CustomGraphQLExceptionResolver) e))
+        .subscribeAsCompletionStage();
+  }
+
+  private RequestVoteResponse toResponse(MutationOutcome outcome) {
+    // Rejections are outcomes, not exceptions, so a turned-away viewer costs no more than an accepted one
+    return RequestVoteResponse.builder()
+        .message(outcome.rejection())
+        .build();
+  }
+
+  private RequestVoteResponse toResponse(CustomGraphQLExceptionResolver e) {
+    Object messageObj = e.getExtensions().get("message");
+    String message = messageObj != null ? messageObj.toString() : "An error occurred";
+    return RequestVoteResponse.builder()
+        .message(message)
+        .build();
   }
 }
@@ -0,0 +1,111 @@
+package com.remotefalcon.controller;
+
+import com.remotefalcon.cache.SerializedShow;
+import com.remotefalcon.cache.ShowResponseCache;
+import com.remotefalcon.cache.ViewerPageCache;
+import com.remotefalcon.cache.ViewerPageContent;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.service.GraphQLQueryService;
+import com.remotefalcon.service.ShowEventService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+
+@ApplicationScoped
+@Path("/shows")
+public class ShowController {
+  @Inject
+  GraphQLQueryService graphQLQueryService;
+
+  @Inject
+  ShowResponseCache showResponseCache;
+
+  @Inject
+  ViewerPageCache viewerPageCache;
+
+  @Inject
+  ShowEventService showEventService;
+
+  @GET
+  @Path("/{showSubdomain}")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response show(@PathParam("showSubdomain") String showSubdomain, @Context Request request) {
+    Show show = this.graphQLQueryService.getShow(showSubdomain);
+    if (show == null) {
+      throw new NotFoundException();
+    }
+    SerializedShow serializedShow = this.showResponseCache.serialize(show);
+    EntityTag etag = new EntityTag(serializedShow.etag());
+    // Clients may keep the body but must revalidate every poll, which is a 304 while nothing changed
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setNoCache(true);
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+    if (notModified != null) {
+      return notModified.cacheControl(cacheControl).build();
+    }
+    return Response.ok(serializedShow.body(), MediaType.APPLICATION_JSON_TYPE)
+        .tag(etag)
+        .cacheControl(cacheControl)
+        .build();
+  }
+
+  @GET
+  @Path("/{showSubdomain}/page")
+  @Produces(MediaType.TEXT_HTML)
+  public Response page(@PathParam("showSubdomain") String showSubdomain,
+      @HeaderParam(HttpHeaders.ACCEPT_ENCODING) String acceptEncoding, @Context Request request) {
+    ViewerPageContent content = this.viewerPageCache.get(showSubdomain, this.graphQLQueryService::findActiveViewerPage)
+        .orElseThrow(NotFoundException::new);
+    boolean gzip = acceptsGzip(acceptEncoding);
+    EntityTag etag = new EntityTag(gzip ? content.gzipEtag() : content.etag());
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setNoCache(true);
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+    Response.ResponseBuilder response = notModified != null
+        ? notModified
+        : Response.ok(gzip ? content.gzip() : content.html(), MediaType.TEXT_HTML_TYPE.withCharset("UTF-8"));
+    if (gzip && notModified == null) {
+      response.encoding("gzip");
+    }
+    return response
+        .tag(etag)
+        .cacheControl(cacheControl)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+        .build();
+  }
+
+  @GET
+  @Path("/{showSubdomain}/events")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  public void events(@PathParam("showSubdomain") String showSubdomain, @Context SseEventSink eventSink,
+      @Context Sse sse) {
+    this.showEventService.subscribe(showSubdomain, eventSink, sse);
+  }
+
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+}
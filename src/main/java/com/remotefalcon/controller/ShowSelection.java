@@ -0,0 +1,28 @@
+package com.remotefalcon.controller;
+
+import com.remotefalcon.repository.ViewerProjection;
+import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.SelectedField;
+import io.smallrye.graphql.api.Context;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Reads the top-level fields the client selected on the current getShow query so the
+ * Mongo read can be narrowed to what the response actually needs.
+ */
+@ApplicationScoped
+public class ShowSelection {
+  @Inject
+  Context context;
+
+  public ViewerProjection projection() {
+    DataFetchingEnvironment environment = this.context.unwrap(DataFetchingEnvironment.class);
+    if (environment == null || environment.getSelectionSet() == null) {
+      return ViewerProjection.FULL;
+    }
+    return ViewerProjection.forSelectedFields(environment.getSelectionSet().getImmediateFields().stream()
+        .map(SelectedField::getName)
+        .toList());
+  }
+}
@@ -1,27 +1,54 @@
 package com.remotefalcon.exception;
 
+import com.remotefalcon.library.enums.StatusResponse;
 import graphql.ErrorType;
 import graphql.GraphQLError;
 import graphql.language.SourceLocation;
 import jakarta.ws.rs.ext.Provider;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 @Provider
 public class CustomGraphQLExceptionResolver extends RuntimeException implements GraphQLError {
+  // One stackless instance per status; a rejected viewer needs the status, not where it was thrown
+  private static final Map<String, CustomGraphQLExceptionResolver> PREALLOCATED = Arrays.stream(StatusResponse.values())
+      .collect(Collectors.toMap(StatusResponse::name, status -> new CustomGraphQLExceptionResolver(status.name(), false),
+          (first, second) -> first, ConcurrentHashMap::new));
+
+  private final Map<String, Object> extensions;
+
   public CustomGraphQLExceptionResolver(String errorMessage) {
-    super(errorMessage);
+    this(errorMessage, true);
   }
 
-  @Override
-  public Map<String, Object> getExtensions() {
+  private CustomGraphQLExceptionResolver(String errorMessage, boolean writableStackTrace) {
+    super(errorMessage, null, false, writableStackTrace);
     Map<String, Object> customAttributes = new LinkedHashMap<>();
+    customAttributes.put("message", errorMessage);
+    this.extensions = Collections.unmodifiableMap(customAttributes);
+  }
 
-    customAttributes.put("message", this.getMessage());
+  /**
+   * Shared, stackless instance for a status. Safe to throw from any thread: it carries no stack trace,
+   * cause or suppressed exceptions.
+   */
+  public static CustomGraphQLExceptionResolver of(StatusResponse status) {
+    return of(status.name());
+  }
+
+  public static CustomGraphQLExceptionResolver of(String errorMessage) {
+    return PREALLOCATED.computeIfAbsent(errorMessage, message -> new CustomGraphQLExceptionResolver(message, false));
+  }
 
-    return customAttributes;
+  @Override
+  public Map<String, Object> getExtensions() {
+    return this.extensions;
   }
 
   @Override
@@ -33,4 +60,4 @@ public class CustomGraphQLExceptionResolver extends RuntimeException implements
   public ErrorType getErrorType() {
     return null;
   }
-}
\ No newline at end of file
+}
@@ -9,6 +9,10 @@ public class ViewerMetrics {
 
   private final Counter requestCounter;
   private final Counter voteCounter;
+  private final Counter showFetchCounter;
+  private final Counter showFetchCoalescedCounter;
+  private final Counter sseFrameDroppedCounter;
+  private final Counter pageStatDroppedCounter;
 
   public ViewerMetrics(MeterRegistry registry) {
     this.requestCounter = Counter.builder("viewer_requests_total")
@@ -17,6 +21,18 @@ public class ViewerMetrics {
     this.voteCounter = Counter.builder("viewer_votes_total")
         .description("Total successful viewer votes")
         .register(registry);
+    this.showFetchCounter = Counter.builder("viewer_show_fetch_total")
+        .description("Total getShow loads that went to Mongo")
+        .register(registry);
+    this.showFetchCoalescedCounter = Counter.builder("viewer_show_fetch_coalesced_total")
+        .description("Total getShow calls that shared an in-flight load instead of querying Mongo")
+        .register(registry);
+    this.sseFrameDroppedCounter = Counter.builder("viewer_sse_frames_dropped_total")
+        .description("Total show state frames skipped for slow SSE subscribers")
+        .register(registry);
+    this.pageStatDroppedCounter = Counter.builder("viewer_page_stats_dropped_total")
+        .description("Total page views dropped because the page stat buffer was full")
+        .register(registry);
   }
 
   public void recordRequestSuccess() {
@@ -26,4 +42,20 @@ public class ViewerMetrics {
   public void recordVoteSuccess() {
     voteCounter.increment();
   }
+
+  public void recordShowFetch() {
+    showFetchCounter.increment();
+  }
+
+  public void recordShowFetchCoalesced() {
+    showFetchCoalescedCounter.increment();
+  }
+
+  public void recordSseFrameDropped() {
+    sseFrameDroppedCounter.increment();
+  }
+
+  public void recordPageStatDropped() {
+    pageStatDroppedCounter.increment();
+  }
 }
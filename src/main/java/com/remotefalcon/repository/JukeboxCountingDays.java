@@ -0,0 +1,27 @@
+package com.remotefalcon.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDate;
+
+/**
+ * The day each show's jukebox request counter was last moved to by this pod, so both repositories reset it
+ * (see {@link ShowRepository#jukeboxDayResetUpdate}) only with the first request of a day rather than with every
+ * request. Forgetting a show only costs one more reset that matches nothing, so the map is simply bounded.
+ */
+@ApplicationScoped
+public class JukeboxCountingDays {
+  private final Cache<String, LocalDate> daysByShow = Caffeine.newBuilder()
+      .maximumSize(10_000)
+      .build();
+
+  public boolean isCounting(String showSubdomain, LocalDate day) {
+    return day.equals(this.daysByShow.getIfPresent(showSubdomain));
+  }
+
+  public void counting(String showSubdomain, LocalDate day) {
+    this.daysByShow.put(showSubdomain, day);
+  }
+}
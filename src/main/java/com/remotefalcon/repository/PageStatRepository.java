@@ -0,0 +1,73 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page-view stats stored in a Mongo time-series collection instead of the Show document's stats.page array.
+ * Each measurement is {dateTime, meta: {showSubdomain, ip}}, so Mongo buckets views per show and viewer.
+ */
+@JBossLog
+@ApplicationScoped
+public class PageStatRepository {
+  public static final String COLLECTION = "viewerPageStats";
+
+  @Inject
+  ShowDatabase showDatabase;
+
+  private volatile MongoCollection<Document> collection;
+
+  public void insertAll(List<Document> pageStats) {
+    if (!pageStats.isEmpty()) {
+      // Unordered so one bad document doesn't drop the rest of the batch
+      this.collection().insertMany(pageStats, new InsertManyOptions().ordered(false));
+    }
+  }
+
+  public long countByShowSubdomain(String showSubdomain) {
+    return this.collection().countDocuments(Filters.eq("meta.showSubdomain", showSubdomain));
+  }
+
+  private MongoCollection<Document> collection() {
+    MongoCollection<Document> current = this.collection;
+    if (current == null) {
+      synchronized (this) {
+        if (this.collection == null) {
+          MongoDatabase mongoDatabase = this.showDatabase.database();
+          this.createIfMissing(mongoDatabase);
+          this.collection = mongoDatabase.getCollection(COLLECTION);
+        }
+        current = this.collection;
+      }
+    }
+    return current;
+  }
+
+  private void createIfMissing(MongoDatabase mongoDatabase) {
+    if (mongoDatabase.listCollectionNames().into(new ArrayList<>()).contains(COLLECTION)) {
+      return;
+    }
+    try {
+      mongoDatabase.createCollection(COLLECTION, new CreateCollectionOptions()
+          .timeSeriesOptions(new TimeSeriesOptions("dateTime")
+              .metaField("meta")
+              .granularity(TimeSeriesGranularity.SECONDS)));
+      log.infof("Created time-series collection %s", COLLECTION);
+    } catch (Exception e) {
+      // Another pod may have created it in the meantime
+      log.debugf(e, "Time-series collection %s not created", COLLECTION);
+    }
+  }
+}
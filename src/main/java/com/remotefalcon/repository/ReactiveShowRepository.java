@@ -0,0 +1,180 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Stat;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import io.quarkus.mongodb.FindOptions;
+import io.quarkus.mongodb.panache.reactive.ReactivePanacheMongoRepository;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of {@link ShowRepository} for viewer.api.stack=reactive, built on the reactive
+ * Mongo client. Covers the reads and single-update writes the viewer API needs; the filters and updates
+ * are the same ones {@link ShowRepository} sends, so both stacks write identical documents.
+ * Writes here never go through group commit, which only applies to the blocking stack.
+ */
+@ApplicationScoped
+public class ReactiveShowRepository implements ReactivePanacheMongoRepository<Show> {
+  @Inject
+  ShowIds showIds;
+
+  @Inject
+  JukeboxCountingDays countingDays;
+
+  @ConfigProperty(name = "viewer.queue.position-allocation", defaultValue = "scan")
+  ShowRepository.PositionAllocation positionAllocation;
+
+  public Uni<Optional<Show>> findByShowSubdomainForViewer(String showSubdomain, ViewerProjection projection) {
+    Bson fields = projection.isFull()
+        ? Projections.exclude(ShowRepository.VIEWER_EXCLUDED_FIELDS)
+        : Projections.include(List.copyOf(projection.includedFields()));
+    return this.findFirst(showSubdomain, fields);
+  }
+
+  public Uni<Optional<Show>> findByShowSubdomainForMutations(String showSubdomain) {
+    return this.findFirst(showSubdomain,
+        Projections.exclude(ShowRepository.MUTATION_EXCLUDED_FIELDS));
+  }
+
+  public Uni<Optional<Show>> findPagesOnlyByShowSubdomain(String showSubdomain) {
+    return this.findFirst(showSubdomain, Projections.include("pages"));
+  }
+
+  /**
+   * Reactive {@link ShowRepository#allocatePositionBlock(Show, int)}. Positions always come straight from
+   * the counter (or the loaded queue in scan mode); viewer.queue.position-block-size is not used here.
+   */
+  public Uni<Long> allocatePositionBlock(Show show, int count) {
+    long maxPosition = ShowRepository.maxRequestPosition(show);
+    if (this.positionAllocation != ShowRepository.PositionAllocation.COUNTER || show == null) {
+      return Uni.createFrom().item(maxPosition + 1);
+    }
+    return mongoCollection().withDocumentClass(Document.class)
+        .findOneAndUpdate(
+            Filters.eq("showSubdomain", show.getShowSubdomain()),
+            ShowRepository.queuePositionCounterUpdate(maxPosition, count),
+            ShowRepository.queuePositionCounterOptions())
+        .map(counter -> ShowRepository.queuePositionCounterValue(counter, maxPosition, count) - count + 1);
+  }
+
+  /**
+   * Reactive {@link ShowRepository#appendRequestsIfAllowed(String, List, Stat.Jukebox, String, ScheduledPsa)}:
+   * today's jukebox request count including this one, or 0 when a rule rejected the append.
+   */
+  public Uni<Long> appendRequestsIfAllowed(String showSubdomain, List<Request> requests, Stat.Jukebox stat,
+      String viewerIp, ScheduledPsa psa) {
+    ShowRepository.JukeboxAppend append = new ShowRepository.JukeboxAppend(showSubdomain,
+        ShowRepository.appendRequestsIfAllowedFilter(showSubdomain, requests, viewerIp), requests, stat, psa, true);
+    return this.startCountingToday(showSubdomain)
+        .chain(() -> append.psa() == null
+            ? this.countToday(append, 0)
+            : this.requestsToday(showSubdomain).chain(requestsBefore -> this.countToday(append, requestsBefore)));
+  }
+
+  /**
+   * Reactive {@code ShowRepository.countToday}: sends {@code append} for today's count {@code requestsBefore},
+   * and again against the new count when another request moved it first.
+   */
+  private Uni<Long> countToday(ShowRepository.JukeboxAppend append, long requestsBefore) {
+    return mongoCollection().withDocumentClass(Document.class)
+        .findOneAndUpdate(append.filter(requestsBefore), append.update(requestsBefore), append.options(requestsBefore))
+        .chain(counter -> counter != null || append.psa() == null
+            ? Uni.createFrom().item(ShowRepository.jukeboxRequestsValue(counter))
+            : this.requestsToday(append.showSubdomain()).chain(current -> current == requestsBefore
+                // The count did not move, so a queue rule rejected the append (or the show is gone)
+                ? Uni.createFrom().item(0L)
+                : this.countToday(append, current)));
+  }
+
+  private Uni<Long> requestsToday(String showSubdomain) {
+    return mongoCollection().withDocumentClass(Document.class)
+        .find(Filters.eq("showSubdomain", showSubdomain),
+            new FindOptions().projection(ShowRepository.JUKEBOX_REQUESTS_PROJECTION).limit(1))
+        .collect().first()
+        .map(ShowRepository::jukeboxRequestsValue);
+  }
+
+  /**
+   * Reactive {@code ShowRepository.startCountingToday}: moves the show's jukebox request counter to today
+   * before this pod counts its first request of the day.
+   */
+  private Uni<Void> startCountingToday(String showSubdomain) {
+    LocalDate today = LocalDate.now();
+    if (this.countingDays.isCounting(showSubdomain, today)) {
+      return Uni.createFrom().voidItem();
+    }
+    return mongoCollection()
+        .updateOne(ShowRepository.jukeboxDayResetFilter(showSubdomain, today),
+            ShowRepository.jukeboxDayResetUpdate(today))
+        .invoke(() -> this.countingDays.counting(showSubdomain, today))
+        .replaceWithVoid();
+  }
+
+  public Uni<Long> recordVoteIfNotVoted(String showSubdomain, Vote vote, String voterIp, Stat.Voting votingStat) {
+    ShowRepository.VoteWrites writes = ShowRepository.voteWrites(
+        ShowRepository.voteIfNotVotedFilter(showSubdomain, voterIp), vote, voterIp, votingStat, null);
+    var collection = mongoCollection();
+    return collection.updateOne(writes.countFilter(), writes.countUpdate(), writes.countOptions())
+        .map(UpdateResult::getModifiedCount)
+        .chain(counted -> counted > 0 ? Uni.createFrom().item(counted)
+            : collection.updateOne(writes.firstFilter(), writes.firstUpdate()).map(UpdateResult::getModifiedCount))
+        .chain(counted -> counted > 0 ? Uni.createFrom().item(counted)
+            // A concurrent first vote added the entry in between
+            : collection.updateOne(writes.countFilter(), writes.countUpdate(), writes.countOptions())
+                .map(UpdateResult::getModifiedCount));
+  }
+
+  public Uni<Long> updatePlayingNow(String showSubdomain, String playingNow) {
+    return this.setToSequenceDisplayName(showSubdomain, "playingNow", playingNow);
+  }
+
+  public Uni<Long> updatePlayingNext(String showSubdomain, String playingNext) {
+    return this.setToSequenceDisplayName(showSubdomain, "playingNext", playingNext);
+  }
+
+  public Uni<Long> appendPageStatIfNotOwner(String showSubdomain, String clientIp, Stat.Page stat) {
+    return mongoCollection()
+        .updateOne(
+            Filters.and(
+                Filters.eq("showSubdomain", showSubdomain),
+                Filters.ne("lastLoginIp", clientIp)),
+            Updates.push("stats.page", stat))
+        .map(UpdateResult::getModifiedCount);
+  }
+
+  private Uni<Long> setToSequenceDisplayName(String showSubdomain, String field, String sequenceName) {
+    Uni<String> storedName = !ShowRepository.isNonAscii(sequenceName)
+        ? Uni.createFrom().nullItem()
+        : mongoCollection().withDocumentClass(Document.class)
+            .find(Filters.eq("showSubdomain", showSubdomain),
+                new FindOptions().projection(ShowRepository.SEQUENCE_NAMES).limit(1))
+            .collect().first()
+            .map(show -> ShowRepository.storedSequenceName(show, sequenceName));
+    return storedName
+        .chain(name -> mongoCollection().updateOne(
+            Filters.eq("showSubdomain", showSubdomain),
+            ShowRepository.sequenceDisplayNameUpdate(field, sequenceName, name)))
+        .map(UpdateResult::getMatchedCount);
+  }
+
+  private Uni<Optional<Show>> findFirst(String showSubdomain, Bson projection) {
+    return mongoCollection()
+        .find(Filters.eq("showSubdomain", showSubdomain), new FindOptions().projection(projection).limit(1))
+        .collect().first()
+        .map(show -> this.showIds.remember(showSubdomain, Optional.ofNullable(show)));
+  }
+}
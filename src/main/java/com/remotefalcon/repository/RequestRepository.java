@@ -0,0 +1,176 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.remotefalcon.library.models.Request;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The jukebox queue stored one document per request, used when viewer.queue.storage=collection instead of the
+ * Show document's requests array. Each document is {_id: {showSubdomain, position}, showSubdomain, position,
+ * sequence, ownerRequested, viewerRequested, viewerKey, requestedAt}; the _id carries the show so a delete on the
+ * change stream can still be traced back to it. A unique index on (showSubdomain, position) serves the head of the
+ * queue, the last-N lookups and pagination, and one on (showSubdomain, viewerKey) the duplicate viewer check.
+ * viewerRequested is stored as given (the plugin and control panel read it); viewerKey is its lower-cased copy,
+ * so the duplicate check matches IPs regardless of case, as the embedded queue does.
+ */
+@ApplicationScoped
+public class RequestRepository {
+  public static final String COLLECTION = "viewerRequests";
+
+  // Stored alongside the request's own fields; left out when reading a document back as a Request
+  private static final Bson REQUEST_FIELDS = Projections.exclude("_id", "showSubdomain", "viewerKey", "requestedAt");
+
+  @Inject
+  ShowDatabase showDatabase;
+
+  private volatile MongoCollection<Document> collection;
+
+  /**
+   * Queues the requests at the positions they carry. Returns false, with none of them queued, when one of the
+   * positions is already taken.
+   */
+  public boolean insertAll(String showSubdomain, List<Request> requests) {
+    if (requests.isEmpty()) {
+      return true;
+    }
+    Date requestedAt = new Date();
+    try {
+      this.collection().insertMany(requests.stream()
+          .map(request -> new Document("_id", new Document("showSubdomain", showSubdomain)
+                  .append("position", request.getPosition()))
+              .append("showSubdomain", showSubdomain)
+              .append("position", request.getPosition())
+              .append("sequence", request.getSequence())
+              .append("ownerRequested", request.getOwnerRequested())
+              .append("viewerRequested", request.getViewerRequested())
+              .append("viewerKey", viewerKey(request.getViewerRequested()))
+              .append("requestedAt", requestedAt))
+          .toList());
+      return true;
+    } catch (MongoBulkWriteException e) {
+      BulkWriteError error = e.getWriteErrors().isEmpty() ? null : e.getWriteErrors().get(0);
+      if (error == null || ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+        throw e;
+      }
+      // The insert is ordered, so everything before the failed request went in
+      this.deleteAll(showSubdomain, requests.subList(0, error.getIndex()).stream().map(Request::getPosition).toList());
+      return false;
+    }
+  }
+
+  public void deleteAll(String showSubdomain, Collection<Integer> positions) {
+    if (positions.isEmpty()) {
+      return;
+    }
+    this.collection().deleteMany(Filters.and(
+        Filters.eq("showSubdomain", showSubdomain),
+        Filters.in("position", positions)));
+  }
+
+  /**
+   * Up to {@code limit} requests with a position above {@code afterPosition}, in queue order; the first one
+   * plays next.
+   */
+  public List<Request> page(String showSubdomain, long afterPosition, int limit) {
+    return this.requests()
+        .find(Filters.and(Filters.eq("showSubdomain", showSubdomain), Filters.gt("position", afterPosition)))
+        .projection(REQUEST_FIELDS)
+        .sort(Sorts.ascending("position"))
+        .limit(limit)
+        .into(new ArrayList<>());
+  }
+
+  /**
+   * The {@code count} requests with the highest positions, highest first, leaving out {@code excludedPositions}.
+   */
+  public List<Request> last(String showSubdomain, int count, Collection<Integer> excludedPositions) {
+    return this.requests()
+        .find(Filters.and(Filters.eq("showSubdomain", showSubdomain), Filters.nin("position", excludedPositions)))
+        .projection(REQUEST_FIELDS)
+        .sort(Sorts.descending("position"))
+        .limit(count)
+        .into(new ArrayList<>());
+  }
+
+  /**
+   * The highest position in the queue, or 0 when it is empty.
+   */
+  public long lastPosition(String showSubdomain) {
+    Document last = this.collection()
+        .find(Filters.eq("showSubdomain", showSubdomain))
+        .projection(Projections.fields(Projections.include("position"), Projections.excludeId()))
+        .sort(Sorts.descending("position"))
+        .first();
+    return last != null && last.get("position") instanceof Number position ? position.longValue() : 0L;
+  }
+
+  public boolean hasRequestFrom(String showSubdomain, String viewerIp, Collection<Integer> excludedPositions) {
+    return this.collection()
+        .find(Filters.and(
+            Filters.eq("showSubdomain", showSubdomain),
+            Filters.eq("viewerKey", viewerKey(viewerIp)),
+            Filters.nin("position", excludedPositions)))
+        .projection(Projections.include("_id"))
+        .first() != null;
+  }
+
+  /**
+   * How many requests are queued, leaving out {@code excludedPositions}; counting stops at {@code max}.
+   */
+  public long count(String showSubdomain, Collection<Integer> excludedPositions, int max) {
+    return this.collection().countDocuments(
+        Filters.and(Filters.eq("showSubdomain", showSubdomain), Filters.nin("position", excludedPositions)),
+        new CountOptions().limit(max));
+  }
+
+  /**
+   * The form viewer IPs are compared in, so IPv6 addresses written in either case are the same viewer.
+   */
+  static String viewerKey(String viewerIp) {
+    return StringUtils.lowerCase(viewerIp, Locale.ROOT);
+  }
+
+  private MongoCollection<Request> requests() {
+    return this.collection().withDocumentClass(Request.class);
+  }
+
+  private MongoCollection<Document> collection() {
+    MongoCollection<Document> current = this.collection;
+    if (current == null) {
+      synchronized (this) {
+        if (this.collection == null) {
+          MongoCollection<Document> requests = this.showDatabase.database().getCollection(COLLECTION);
+          this.createIndexes(requests);
+          this.collection = requests;
+        }
+        current = this.collection;
+      }
+    }
+    return current;
+  }
+
+  private void createIndexes(MongoCollection<Document> requests) {
+    // createIndex is a no-op when an identical index exists, so every pod can run this on first use
+    requests.createIndex(Indexes.ascending("showSubdomain", "position"), new IndexOptions().unique(true));
+    requests.createIndex(Indexes.ascending("showSubdomain", "viewerKey"));
+  }
+}
@@ -0,0 +1,24 @@
+package com.remotefalcon.repository;
+
+import com.remotefalcon.library.models.Request;
+
+import java.time.LocalDateTime;
+
+/**
+ * A PSA that a queue append also queues when the append turns out to be the show's psaFrequency-th
+ * jukebox request of the day. The append decides this from the daily counter it read and only applies while
+ * the counter still has that value, so two concurrent requests can never both queue it.
+ *
+ * @param name      PSA sequence whose lastPlayed is set to {@code playedAt}
+ * @param request   request to queue for the PSA, or null when the PSA has no matching sequence
+ * @param frequency the show's psaFrequency
+ * @param playedAt  time recorded as the PSA's lastPlayed
+ */
+public record ScheduledPsa(String name, Request request, int frequency, LocalDateTime playedAt) {
+  /**
+   * Whether the append that returned {@code requestsToday} (0 for a rejected append) queued this PSA.
+   */
+  public boolean isDue(long requestsToday) {
+    return requestsToday > 0 && requestsToday % this.frequency == 0;
+  }
+}
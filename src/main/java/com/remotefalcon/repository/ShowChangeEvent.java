@@ -0,0 +1,43 @@
+package com.remotefalcon.repository;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Fired for every change to a Show document observed on the Mongo change stream,
+ * including writes made by other pods or the control panel.
+ *
+ * @param showSubdomain subdomain of the changed show, or null when every show may have changed
+ * @param fields        dotted paths that were updated or removed; empty when the whole document changed
+ */
+public record ShowChangeEvent(String showSubdomain, Set<String> fields) {
+
+  public boolean isWholeDocument() {
+    return this.fields.isEmpty();
+  }
+
+  /**
+   * True when at least one changed path overlaps one of the given paths (same, parent or child).
+   */
+  public boolean touchesAny(Collection<String> paths) {
+    if (this.isWholeDocument()) {
+      return true;
+    }
+    return this.fields.stream().anyMatch(field -> paths.stream()
+        .anyMatch(path -> isSameOrNested(field, path) || isSameOrNested(path, field)));
+  }
+
+  /**
+   * True when every changed path equals or is nested under one of the given paths.
+   */
+  public boolean touchesOnly(Collection<String> paths) {
+    if (this.isWholeDocument()) {
+      return false;
+    }
+    return this.fields.stream().allMatch(field -> paths.stream().anyMatch(path -> isSameOrNested(field, path)));
+  }
+
+  private static boolean isSameOrNested(String field, String path) {
+    return field.equals(path) || field.startsWith(path + ".");
+  }
+}
@@ -0,0 +1,8 @@
+package com.remotefalcon.repository;
+
+/**
+ * Fired when the Show change stream connects or drops. While disconnected, changes made outside
+ * this pod are invisible and caches must rely on TTL expiry.
+ */
+public record ShowChangeStreamStatus(boolean connected) {
+}
@@ -0,0 +1,222 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails the Show collection change stream and fires a {@link ShowChangeEvent} for every change,
+ * so in-pod caches see writes from other pods and the control panel.
+ * With viewer.queue.storage=collection the same stream also covers the request collection, and a queued or
+ * removed request fires an event for the show's requests field.
+ * Requires a replica set; when the stream is interrupted it reconnects with the last resume token
+ * and caches fall back to their short TTL until it is back.
+ */
+@JBossLog
+@ApplicationScoped
+public class ShowChangeStreamWatcher {
+  @Inject
+  ShowDatabase showDatabase;
+
+  @Inject
+  Event<ShowChangeEvent> showChangeEvent;
+
+  @Inject
+  Event<ShowChangeStreamStatus> streamStatusEvent;
+
+  @Inject
+  ShowIds showIds;
+
+  @ConfigProperty(name = "viewer.change-stream.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "viewer.change-stream.retry-delay", defaultValue = "5s")
+  Duration retryDelay;
+
+  @ConfigProperty(name = "viewer.queue.storage", defaultValue = "embedded")
+  String queueStorage;
+
+  private volatile boolean running;
+  private volatile boolean connected;
+  private Thread watcherThread;
+
+  void onStart(@Observes StartupEvent event) {
+    if (!this.enabled) {
+      log.info("Show change stream watcher disabled");
+      return;
+    }
+    this.running = true;
+    this.watcherThread = Thread.ofPlatform()
+        .name("show-change-stream")
+        .daemon()
+        .start(this::watchLoop);
+  }
+
+  void onStop(@Observes ShutdownEvent event) {
+    this.running = false;
+    if (this.watcherThread != null) {
+      this.watcherThread.interrupt();
+    }
+  }
+
+  public boolean isConnected() {
+    return this.connected;
+  }
+
+  private void watchLoop() {
+    BsonDocument resumeToken = null;
+    while (this.running) {
+      try {
+        var stream = this.watch()
+            .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+          stream = stream.resumeAfter(resumeToken);
+        }
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+          this.setConnected(true);
+          while (this.running) {
+            ChangeStreamDocument<Document> change = cursor.tryNext();
+            ShowChangeEvent event = change != null ? this.toShowChangeEvent(change) : null;
+            if (event != null) {
+              this.showChangeEvent.fire(event);
+            }
+            if (cursor.getResumeToken() != null) {
+              resumeToken = cursor.getResumeToken();
+            }
+          }
+        }
+      } catch (Exception e) {
+        if (!this.running) {
+          break;
+        }
+        log.warnf(e, "Show change stream interrupted, retrying in %s", this.retryDelay);
+        this.setConnected(false);
+        this.sleepBeforeRetry();
+      }
+    }
+    this.setConnected(false);
+  }
+
+  private ChangeStreamIterable<Document> watch() {
+    MongoCollection<Document> shows = this.showDatabase.shows();
+    if (!"collection".equalsIgnoreCase(this.queueStorage)) {
+      return shows.watch(this.pipeline(Filters.empty()));
+    }
+    // One stream over the database, limited to both collections, so the queue shares the resume token
+    return this.showDatabase.database()
+        .watch(this.pipeline(Filters.in("ns.coll", shows.getNamespace().getCollectionName(), RequestRepository.COLLECTION)));
+  }
+
+  private List<Bson> pipeline(Bson namespaceFilter) {
+    // Updates are resolved from documentKey, so no document is looked up; inserts and replaces carry theirs,
+    // which can be several MB, so only its subdomain is shipped
+    return List.of(
+        Aggregates.match(Filters.and(
+            Filters.in("operationType", "insert", "update", "replace", "delete"),
+            namespaceFilter)),
+        Aggregates.project(Projections.include(
+            "operationType", "ns", "documentKey", "updateDescription", "fullDocument.showSubdomain"))
+    );
+  }
+
+  /**
+   * The event for a change to a show, or null when it is an update or delete of a show this pod never loaded
+   * and so has nothing cached for.
+   */
+  ShowChangeEvent toShowChangeEvent(ChangeStreamDocument<Document> change) {
+    if (change.getNamespace() != null && RequestRepository.COLLECTION.equals(change.getNamespace().getCollectionName())) {
+      return toRequestChangeEvent(change);
+    }
+    BsonValue id = change.getDocumentKey() != null ? change.getDocumentKey().get("_id") : null;
+    String showSubdomain;
+    if (change.getFullDocument() != null) {
+      // Inserts and replaces carry the document, and a replace may have changed the subdomain
+      showSubdomain = change.getFullDocument().getString("showSubdomain");
+      this.showIds.rename(id, showSubdomain);
+    } else {
+      showSubdomain = this.showIds.subdomain(id);
+      if (showSubdomain == null) {
+        return null;
+      }
+      if (change.getOperationType() == OperationType.DELETE) {
+        this.showIds.forget(id);
+      }
+    }
+    UpdateDescription renamed = change.getUpdateDescription();
+    if (renamed != null && renamed.getUpdatedFields() != null
+        && renamed.getUpdatedFields().isString("showSubdomain")) {
+      this.showIds.rename(id, renamed.getUpdatedFields().getString("showSubdomain").getValue());
+    }
+    Set<String> fields = new HashSet<>();
+    UpdateDescription updateDescription = change.getUpdateDescription();
+    if (updateDescription != null) {
+      if (updateDescription.getUpdatedFields() != null) {
+        fields.addAll(updateDescription.getUpdatedFields().keySet());
+      }
+      if (updateDescription.getRemovedFields() != null) {
+        fields.addAll(updateDescription.getRemovedFields());
+      }
+      if (updateDescription.getTruncatedArrays() != null) {
+        updateDescription.getTruncatedArrays().forEach(truncated -> fields.add(truncated.getField()));
+      }
+    }
+    return new ShowChangeEvent(showSubdomain, Set.copyOf(fields));
+  }
+
+  /**
+   * A request queued or removed in the request collection changes the show's queue. Deletes have no document
+   * to look up, but the request's _id holds the subdomain.
+   */
+  static ShowChangeEvent toRequestChangeEvent(ChangeStreamDocument<Document> change) {
+    String showSubdomain = change.getFullDocument() != null
+        ? change.getFullDocument().getString("showSubdomain")
+        : null;
+    if (showSubdomain == null && change.getDocumentKey() != null) {
+      BsonValue id = change.getDocumentKey().get("_id");
+      if (id != null && id.isDocument() && id.asDocument().isString("showSubdomain")) {
+        showSubdomain = id.asDocument().getString("showSubdomain").getValue();
+      }
+    }
+    return new ShowChangeEvent(showSubdomain, Set.of("requests"));
+  }
+
+  private void setConnected(boolean connected) {
+    if (this.connected != connected) {
+      this.connected = connected;
+      this.streamStatusEvent.fire(new ShowChangeStreamStatus(connected));
+    }
+  }
+
+  private void sleepBeforeRetry() {
+    try {
+      Thread.sleep(this.retryDelay.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.running = false;
+    }
+  }
+}
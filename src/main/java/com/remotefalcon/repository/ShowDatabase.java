@@ -0,0 +1,40 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.remotefalcon.library.quarkus.entity.Show;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * The database and collection of Show, resolved the same way Panache does so callers never touch the repository
+ * bean itself. The collections kept next to the shows (queued requests, voters, page stats) are created in the
+ * same database, so the change stream that watches the shows can also watch them.
+ */
+@ApplicationScoped
+public class ShowDatabase {
+  @Inject
+  MongoClient mongoClient;
+
+  @ConfigProperty(name = "quarkus.mongodb.database")
+  String defaultDatabase;
+
+  MongoDatabase database() {
+    MongoEntity mongoEntity = Show.class.getAnnotation(MongoEntity.class);
+    String database = mongoEntity != null && StringUtils.isNotEmpty(mongoEntity.database())
+        ? mongoEntity.database() : this.defaultDatabase;
+    return this.mongoClient.getDatabase(database);
+  }
+
+  MongoCollection<Document> shows() {
+    MongoEntity mongoEntity = Show.class.getAnnotation(MongoEntity.class);
+    String collection = mongoEntity != null && StringUtils.isNotEmpty(mongoEntity.collection())
+        ? mongoEntity.collection() : Show.class.getSimpleName();
+    return this.database().getCollection(collection);
+  }
+}
@@ -0,0 +1,48 @@
+package com.remotefalcon.repository;
+
+import com.remotefalcon.library.quarkus.entity.Show;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subdomain of every show this pod has loaded, by _id, so {@link ShowChangeStreamWatcher} can resolve an
+ * update from its documentKey without looking up the full document. Filled by the repository finders, which
+ * every cache loads through, so any show with cached state here is known; a change to a show this pod never
+ * loaded has nothing to invalidate and is skipped. Holds at most one entry per show, dropped when it is deleted.
+ */
+@ApplicationScoped
+public class ShowIds {
+  private final ConcurrentHashMap<BsonValue, String> subdomainsById = new ConcurrentHashMap<>();
+
+  /**
+   * Records the _id of the show found by {@code showSubdomain}; projections may leave out the subdomain itself.
+   */
+  public Optional<Show> remember(String showSubdomain, Optional<Show> show) {
+    show.filter(found -> found.id != null && showSubdomain != null)
+        .ifPresent(found -> this.subdomainsById.put(new BsonObjectId(found.id), showSubdomain));
+    return show;
+  }
+
+  /**
+   * Follows a subdomain change of a show this pod has loaded.
+   */
+  void rename(BsonValue id, String showSubdomain) {
+    if (id != null && showSubdomain != null) {
+      this.subdomainsById.computeIfPresent(id, (key, current) -> showSubdomain);
+    }
+  }
+
+  String subdomain(BsonValue id) {
+    return id == null ? null : this.subdomainsById.get(id);
+  }
+
+  void forget(BsonValue id) {
+    if (id != null) {
+      this.subdomainsById.remove(id);
+    }
+  }
+}
@@ -1,110 +1,233 @@
 package com.remotefalcon.repository;
 
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
 import com.remotefalcon.library.models.Request;
 import com.remotefalcon.library.models.Stat;
 import com.remotefalcon.library.quarkus.entity.Show;
 import io.quarkus.mongodb.panache.PanacheMongoRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @ApplicationScoped
 public class ShowRepository implements PanacheMongoRepository<Show> {
+  public enum PositionAllocation { SCAN, COUNTER }
+
+  static final String QUEUE_POSITION_COUNTER = "queuePositionCounter";
+  // Jukebox requests of one day, as {day, count}; reset with the first request of the next day
+  static final String JUKEBOX_REQUESTS_TODAY = "jukeboxRequestsToday";
+  static final String JUKEBOX_REQUESTS_DAY = JUKEBOX_REQUESTS_TODAY + ".day";
+  static final String JUKEBOX_REQUESTS_COUNT = JUKEBOX_REQUESTS_TODAY + ".count";
+  // Per-day counters kept by earlier versions; removed by the first reset
+  static final String LEGACY_JUKEBOX_REQUESTS_BY_DAY = "jukeboxRequestsByDay";
+  static final String VOTING_ROUND = "votingRound";
+  static final String VOTING_ROUND_COUNTED = "votingRoundCounted";
+  // The counter starts over once it is past this and the queue is empty; see queuePositionCounterUpdate
+  static final long QUEUE_POSITION_RESET_AT = 1_000_000L;
+
+  @Inject
+  ShowWriteBatcher showWriteBatcher;
+
+  @Inject
+  ShowIds showIds;
+
+  @Inject
+  JukeboxCountingDays countingDays;
+
+  @ConfigProperty(name = "viewer.queue.position-allocation", defaultValue = "scan")
+  PositionAllocation positionAllocation;
+
+  @ConfigProperty(name = "viewer.queue.position-block-size", defaultValue = "1")
+  int positionBlockSize;
+
+  // Positions reserved from the counter but not yet handed out, per show (only when position-block-size > 1)
+  private final ConcurrentHashMap<String, PositionBlock> positionBlocks = new ConcurrentHashMap<>();
+
   public Optional<Show> findByShowSubdomain(String showSubdomain) {
-    return find("showSubdomain", showSubdomain).firstResultOptional();
+    return this.showIds.remember(showSubdomain, find("showSubdomain", showSubdomain).firstResultOptional());
   }
 
+  // Exclude large fields that viewers don't need
+  public static final List<String> VIEWER_EXCLUDED_FIELDS = List.of(
+      "stats.page",              // Page stats can be huge
+      "stats.voting",            // Voting stats not needed by viewers
+      "stats.votingWin",         // Voting win stats not needed
+      "stats.jukebox",           // Jukebox stats not needed
+      "showToken",               // Sensitive authentication token
+      "email",                   // Sensitive PII
+      "password",                // Sensitive
+      "lastLoginIp",             // Sensitive field
+      "lastLoginDate",           // Not needed
+      "passwordResetLink",       // Sensitive
+      "passwordResetExpiry",     // Not needed
+      "apiAccess",               // Not needed by viewers
+      "userProfile",             // Not needed by viewers
+      "showNotifications",       // Not needed by viewers
+      "activeViewers",           // Contains other viewers' IP addresses (PII)
+      "queuePositionCounter",    // Internal queue position allocation
+      "jukeboxRequestsToday",    // Internal PSA scheduling counter
+      "jukeboxRequestsByDay",    // Legacy PSA scheduling counter, until its show's next reset
+      "votingRound",             // Internal voter collection round
+      "votingRoundCounted"       // Internal voter collection round
+  );
+
   public Optional<Show> findByShowSubdomainForViewer(String showSubdomain) {
-    // Exclude large fields that viewers don't need
     Show result = mongoCollection()
         .find(Filters.eq("showSubdomain", showSubdomain))
-        .projection(
-            com.mongodb.client.model.Projections.exclude(
-                "stats.page",              // Page stats can be huge
-                "stats.voting",            // Voting stats not needed by viewers
-                "stats.votingWin",         // Voting win stats not needed
-                "stats.jukebox",           // Jukebox stats not needed
-                "showToken",               // Sensitive authentication token
-                "email",                   // Sensitive PII
-                "password",                // Sensitive
-                "lastLoginIp",             // Sensitive field
-                "lastLoginDate",           // Not needed
-                "passwordResetLink",       // Sensitive
-                "passwordResetExpiry",     // Not needed
-                "apiAccess",               // Not needed by viewers
-                "userProfile",             // Not needed by viewers
-                "showNotifications",       // Not needed by viewers
-                "activeViewers"            // Contains other viewers' IP addresses (PII)
-            )
-        )
+        .projection(com.mongodb.client.model.Projections.exclude(VIEWER_EXCLUDED_FIELDS))
+        .first();
+    return this.showIds.remember(showSubdomain, Optional.ofNullable(result));
+  }
+
+  public Optional<Show> findByShowSubdomainForViewer(String showSubdomain, ViewerProjection projection) {
+    if (projection.isFull()) {
+      return this.findByShowSubdomainForViewer(showSubdomain);
+    }
+    // Only the fields the GraphQL selection needs; a playingNow/playingNext poll is a few hundred bytes
+    Show result = mongoCollection()
+        .find(Filters.eq("showSubdomain", showSubdomain))
+        .projection(com.mongodb.client.model.Projections.include(List.copyOf(projection.includedFields())))
         .first();
-    return Optional.ofNullable(result);
+    return this.showIds.remember(showSubdomain, Optional.ofNullable(result));
   }
 
+  // Optimized projection for mutations (queue/vote operations)
+  // Excludes large stat arrays but includes necessary fields for validation
+  static final List<String> MUTATION_EXCLUDED_FIELDS = List.of(
+      "stats.page",              // Page stats can be huge
+      "stats.voting",            // Voting stats not needed
+      "stats.votingWin",         // Not needed for mutations
+      "stats.jukebox",           // PSA frequency uses jukeboxRequestsToday, returned by the append itself
+      "pages",                   // Not needed for queue/vote
+      "showToken",               // Sensitive
+      "email",                   // Sensitive PII
+      "password",                // Sensitive
+      "passwordResetLink",       // Sensitive
+      "passwordResetExpiry",     // Not needed
+      "apiAccess",               // Not needed
+      "userProfile",             // Not needed
+      "showNotifications",       // Not needed
+      "activeViewers"            // Not needed
+  );
+
   public Optional<Show> findByShowSubdomainForMutations(String showSubdomain) {
-    // Optimized query for mutations (queue/vote operations)
-    // Excludes large stat arrays but includes necessary fields for validation
     Show result = mongoCollection()
         .find(Filters.eq("showSubdomain", showSubdomain))
-        .projection(
-            com.mongodb.client.model.Projections.exclude(
-                "stats.page",              // Page stats can be huge
-                "stats.voting",            // Voting stats not needed
-                "stats.votingWin",         // Not needed for mutations
-                // Keep stats.jukebox for PSA frequency calculation
-                "pages",                   // Not needed for queue/vote
-                "showToken",               // Sensitive
-                "email",                   // Sensitive PII
-                "password",                // Sensitive
-                "passwordResetLink",       // Sensitive
-                "passwordResetExpiry",     // Not needed
-                "apiAccess",               // Not needed
-                "userProfile",             // Not needed
-                "showNotifications",       // Not needed
-                "activeViewers"            // Not needed
-            )
-        )
+        .projection(com.mongodb.client.model.Projections.exclude(MUTATION_EXCLUDED_FIELDS))
         .first();
-    return Optional.ofNullable(result);
+    return this.showIds.remember(showSubdomain, Optional.ofNullable(result));
   }
 
   public long nextRequestPosition(Show show) {
-    if (show == null || show.getRequests() == null || show.getRequests().isEmpty()) {
-      return 1L;
-    }
-
-    // Find the maximum position in the existing requests and add 1
-    return show.getRequests().stream()
-        .mapToInt(Request::getPosition)
-        .max()
-        .orElse(0) + 1;
+    return this.allocatePositionBlock(show, 1);
   }
 
   /**
    * Allocates a block of positions at once.
    * Returns the starting position. Caller can use startPos, startPos+1, startPos+2, etc.
+   * In counter mode the block comes from an atomic per-show counter, so concurrent requests on any pod
+   * never share a position; in scan mode it is derived from the requests in {@code show}.
    * @param show the show object
    * @param count how many positions to allocate
    * @return the starting position of the allocated block
    */
   public long allocatePositionBlock(Show show, int count) {
-    if (show == null || show.getRequests() == null || show.getRequests().isEmpty()) {
-      return 1L;
+    return this.allocatePositionBlock(show, maxRequestPosition(show), count);
+  }
+
+  /**
+   * Same as {@link #allocatePositionBlock(Show, int)} for a queue that is not in {@code show}
+   * (viewer.queue.storage=collection): positions follow {@code maxPosition} instead of the show's requests.
+   */
+  public long allocatePositionBlock(Show show, long maxPosition, int count) {
+    if (this.positionAllocation != PositionAllocation.COUNTER || show == null) {
+      return maxPosition + 1;
+    }
+    if (this.positionBlockSize <= 1 || count >= this.positionBlockSize) {
+      return this.incrementQueuePositionCounter(show.getShowSubdomain(), maxPosition, count) - count + 1;
+    }
+    // Hand out positions from a block reserved earlier; reserve a new one when it runs out
+    String showSubdomain = show.getShowSubdomain();
+    PositionBlock current = this.positionBlocks.get(showSubdomain);
+    long start = current != null ? current.take(maxPosition, count) : -1;
+    if (start > 0) {
+      return start;
     }
+    // Reserved outside any map lock; threads that run out at the same time each reserve a block and the
+    // positions of all but the last one stored are skipped
+    long end = this.incrementQueuePositionCounter(showSubdomain, maxPosition, this.positionBlockSize);
+    PositionBlock block = new PositionBlock(end - this.positionBlockSize + 1, end);
+    start = block.take(maxPosition, count);
+    this.positionBlocks.put(showSubdomain, block);
+    return start;
+  }
 
-    // Find the maximum position in the existing requests and add 1 to get the starting position
-    int maxPosition = show.getRequests().stream()
-        .mapToInt(Request::getPosition)
-        .max()
-        .orElse(0);
+  /**
+   * Atomically advances the show's queue position counter by {@code count} and returns the new value.
+   * The counter is first raised to {@code floor} so positions always follow the requests already queued,
+   * including shows that predate the counter or were queued by the control panel. Once it is past
+   * {@link #QUEUE_POSITION_RESET_AT} and the queue is empty it starts over from {@code floor}, so positions
+   * stay far from the int range they are stored in.
+   */
+  private long incrementQueuePositionCounter(String showSubdomain, long floor, int count) {
+    Document counter = mongoCollection().withDocumentClass(Document.class).findOneAndUpdate(
+        Filters.eq("showSubdomain", showSubdomain),
+        queuePositionCounterUpdate(floor, count),
+        queuePositionCounterOptions()
+    );
+    return queuePositionCounterValue(counter, floor, count);
+  }
 
-    return maxPosition + 1;
+  static List<Document> queuePositionCounterUpdate(long floor, int count) {
+    Document counter = new Document("$ifNull", List.of("$" + QUEUE_POSITION_COUNTER, 0L));
+    // Empty per the caller (floor 0) and per the document itself, which also covers a stale caller.
+    // Only a counter past the threshold starts over, so a concurrent allocation that also sees the queue
+    // empty continues from the reset value instead of starting over again and sharing a position
+    Document startOver = new Document("$and", List.of(
+        floor == 0,
+        new Document("$eq", List.of(new Document("$size", new Document("$ifNull", List.of("$requests", List.of()))), 0)),
+        new Document("$gte", List.of(counter, QUEUE_POSITION_RESET_AT))));
+    Document base = new Document("$cond", List.of(startOver, floor, new Document("$max", List.of(counter, floor))));
+    return List.of(new Document("$set", new Document(QUEUE_POSITION_COUNTER,
+        new Document("$add", List.of(base, (long) count)))));
   }
 
-  public void appendRequest(String showSubdomain, Request request) {
-    mongoCollection().updateOne(Filters.eq("showSubdomain", showSubdomain), Updates.push("requests", request));
+  static FindOneAndUpdateOptions queuePositionCounterOptions() {
+    return new FindOneAndUpdateOptions()
+        .projection(com.mongodb.client.model.Projections.include(QUEUE_POSITION_COUNTER))
+        .returnDocument(ReturnDocument.AFTER);
+  }
+
+  static long queuePositionCounterValue(Document counter, long floor, int count) {
+    if (counter == null) {
+      // Show is gone; the append that follows will not match anything either
+      return floor + count;
+    }
+    return ((Number) counter.get(QUEUE_POSITION_COUNTER)).longValue();
+  }
+
+  static long maxRequestPosition(Show show) {
+    if (show == null || show.getRequests() == null || show.getRequests().isEmpty()) {
+      return 0L;
+    }
+    return show.getRequests().stream()
+        .mapToInt(Request::getPosition)
+        .max()
+        .orElse(0);
   }
 
   public void appendJukeboxStat(String showSubdomain, Stat.Jukebox stat) {
@@ -117,7 +240,7 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
 
   public void incrementVoteAndAppendVoter(String showSubdomain, String sequenceName, String voterIp, java.time.LocalDateTime voteTime, Stat.Voting votingStat) {
     if (votingStat != null) {
-      mongoCollection().updateOne(
+      this.write(showSubdomain,
           Filters.and(
               Filters.eq("showSubdomain", showSubdomain),
               Filters.eq("votes.sequence.name", sequenceName)
@@ -130,7 +253,7 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
           )
       );
     } else {
-      mongoCollection().updateOne(
+      this.write(showSubdomain,
           Filters.and(
               Filters.eq("showSubdomain", showSubdomain),
               Filters.eq("votes.sequence.name", sequenceName)
@@ -146,7 +269,7 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
 
   public void addNewVoteAndStat(String showSubdomain, com.remotefalcon.library.models.Vote vote, Stat.Voting votingStat) {
     if (votingStat != null) {
-      mongoCollection().updateOne(
+      this.write(showSubdomain,
           Filters.eq("showSubdomain", showSubdomain),
           Updates.combine(
               Updates.push("votes", vote),
@@ -154,7 +277,7 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
           )
       );
     } else {
-      mongoCollection().updateOne(
+      this.write(showSubdomain,
           Filters.eq("showSubdomain", showSubdomain),
           Updates.push("votes", vote)
       );
@@ -162,7 +285,7 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
   }
 
   public void incrementSequenceGroupVoteAndAppendVoter(String showSubdomain, String groupName, String voterIp, java.time.LocalDateTime voteTime, Stat.Voting votingStat) {
-    mongoCollection().updateOne(
+    this.write(showSubdomain,
         Filters.and(
             Filters.eq("showSubdomain", showSubdomain),
             Filters.eq("votes.sequenceGroup.name", groupName)
@@ -176,64 +299,484 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
     );
   }
 
-  public void updateActiveViewer(String showSubdomain, String ipAddress, java.time.LocalDateTime visitTime) {
-    // First, remove any existing entry with this IP
-    mongoCollection().updateOne(
+  /**
+   * Records one viewer's vote for the sequence or sequence group of {@code vote}. The existing Vote entry for it
+   * gets its count incremented and the voter appended; when there is none, {@code vote} is added as the new entry
+   * (see {@link #voteWrites}). When checkIfVoted is on, every step only matches while {@code voterIp} is not in
+   * any votes.viewersVoted, so duplicate clicks and retries can never double count and two first votes for a
+   * sequence can never create two entries.
+   * Bypasses group commit because the caller needs this write's own modified count.
+   * Returns the modified count: 1 when counted, 0 when the viewer already voted (or the show is gone).
+   */
+  public long recordVoteIfNotVoted(String showSubdomain, com.remotefalcon.library.models.Vote vote, String voterIp,
+      Stat.Voting votingStat) {
+    return this.countVote(voteWrites(voteIfNotVotedFilter(showSubdomain, voterIp), vote, voterIp, votingStat, null));
+  }
+
+  /**
+   * Counts a vote without recording the voter, for viewer.vote.voter-store=collection when checkIfVoted is off.
+   * Returns the modified count (0 when the show is gone).
+   */
+  public long recordVote(String showSubdomain, com.remotefalcon.library.models.Vote vote, Stat.Voting votingStat) {
+    return this.countVote(voteWrites(Filters.eq("showSubdomain", showSubdomain), vote, null, votingStat, null));
+  }
+
+  /**
+   * Counts a vote whose voter has been recorded in the voter collection for {@code round}, without appending
+   * it to votes.viewersVoted, and marks the round as counted. Only matches while {@code round} is still the
+   * show's votingRound and has not ended (see {@link #claimVotingRound}). Voters in existing viewersVoted
+   * arrays are still rejected when checkIfVoted is on.
+   * Returns the modified count: 1 when counted, 0 otherwise.
+   */
+  public long recordVoteInRound(String showSubdomain, com.remotefalcon.library.models.Vote vote, String voterIp,
+      Stat.Voting votingStat, String round) {
+    Bson filter = Filters.and(
+        voteIfNotVotedFilter(showSubdomain, voterIp),
+        Filters.eq(VOTING_ROUND, round),
+        Filters.or(Filters.exists("votes.0"), Filters.ne(VOTING_ROUND_COUNTED, true)));
+    return this.countVote(voteWrites(filter, vote, null, votingStat, Updates.set(VOTING_ROUND_COUNTED, true)));
+  }
+
+  private long countVote(VoteWrites writes) {
+    var collection = mongoCollection();
+    if (collection.updateOne(writes.countFilter(), writes.countUpdate(), writes.countOptions()).getModifiedCount() > 0) {
+      return 1;
+    }
+    if (collection.updateOne(writes.firstFilter(), writes.firstUpdate()).getModifiedCount() > 0) {
+      return 1;
+    }
+    // A concurrent first vote added the entry in between
+    return collection.updateOne(writes.countFilter(), writes.countUpdate(), writes.countOptions()).getModifiedCount();
+  }
+
+  /**
+   * Returns the show's current voting round, first starting {@code candidate} as the new round when the show has
+   * none yet or its round has ended: a vote was counted in it and the votes have since been reset.
+   * A round that has just started is never replaced before its first vote is counted, so concurrent callers all
+   * get the same round back. Returns null when the show is gone.
+   */
+  public String claimVotingRound(String showSubdomain, String candidate) {
+    Document round = mongoCollection().withDocumentClass(Document.class).findOneAndUpdate(
         Filters.eq("showSubdomain", showSubdomain),
-        Updates.pull("activeViewers", Filters.eq("ipAddress", ipAddress))
+        claimVotingRoundUpdate(candidate),
+        new FindOneAndUpdateOptions()
+            .projection(com.mongodb.client.model.Projections.include(VOTING_ROUND))
+            .returnDocument(ReturnDocument.AFTER)
     );
+    return round != null ? round.getString(VOTING_ROUND) : null;
+  }
 
-    // Then add the new entry
-    mongoCollection().updateOne(
+  static List<Document> claimVotingRoundUpdate(String candidate) {
+    Document noRound = new Document("$eq", List.of(new Document("$ifNull", List.of("$" + VOTING_ROUND, "")), ""));
+    Document roundEnded = new Document("$and", List.of(
+        new Document("$eq", List.of("$" + VOTING_ROUND_COUNTED, true)),
+        new Document("$eq", List.of(new Document("$size", new Document("$ifNull", List.of("$votes", List.of()))), 0))));
+    Document startRound = new Document("$or", List.of(noRound, roundEnded));
+    return List.of(new Document("$set", new Document()
+        .append(VOTING_ROUND, new Document("$cond", List.of(
+            startRound, new Document("$literal", candidate), "$" + VOTING_ROUND)))
+        .append(VOTING_ROUND_COUNTED, new Document("$cond", List.of(
+            startRound, false, new Document("$ifNull", List.of("$" + VOTING_ROUND_COUNTED, false)))))));
+  }
+
+  static Bson voteIfNotVotedFilter(String showSubdomain, String voterIp) {
+    return Filters.and(
         Filters.eq("showSubdomain", showSubdomain),
-        Updates.push("activeViewers",
-            com.remotefalcon.library.models.ActiveViewer.builder()
-                .ipAddress(ipAddress)
-                .visitDateTime(visitTime)
-                .build()
+        Filters.or(
+            Filters.ne("preferences.checkIfVoted", true),
+            Filters.ne("votes.viewersVoted", voterIp)
         )
     );
   }
 
-  public void updatePlayingNow(String showSubdomain, String playingNow) {
+  /**
+   * The operator updates that count a vote, so a vote never rewrites the votes array or stats.voting.
+   * {@code count*} increments the existing Vote entry for the sequence or group of {@code vote} through an array
+   * filter; {@code first*} pushes {@code vote} as that entry when there is none yet. Callers try count, then
+   * first, then count once more for a first vote that a concurrent caller added in between.
+   */
+  record VoteWrites(Bson countFilter, Bson countUpdate, UpdateOptions countOptions, Bson firstFilter, Bson firstUpdate) {
+  }
+
+  /**
+   * @param filter  matches the show while the vote may be counted
+   * @param voterIp appended to the Vote entry's viewersVoted; null counts the vote without recording the voter
+   * @param also    extra update applied with the vote, or null
+   */
+  static VoteWrites voteWrites(Bson filter, com.remotefalcon.library.models.Vote vote, String voterIp,
+      Stat.Voting votingStat, Bson also) {
+    String nameField = (vote.getSequenceGroup() != null ? "sequenceGroup" : "sequence") + ".name";
+    String name = vote.getSequenceGroup() != null ? vote.getSequenceGroup().getName() : vote.getSequence().getName();
+    List<Bson> counted = new java.util.ArrayList<>(List.of(
+        Updates.inc("votes.$[target].votes", 1),
+        Updates.set("votes.$[target].lastVoteTime", toDate(vote.getLastVoteTime()))));
+    List<Bson> first = new java.util.ArrayList<>(List.of(Updates.push("votes", vote)));
+    if (voterIp != null) {
+      counted.add(Updates.push("votes.$[target].viewersVoted", voterIp));
+    }
+    if (votingStat != null) {
+      counted.add(Updates.push("stats.voting", votingStat));
+      first.add(Updates.push("stats.voting", votingStat));
+    }
+    if (also != null) {
+      counted.add(also);
+      first.add(also);
+    }
+    return new VoteWrites(
+        Filters.and(filter, Filters.elemMatch("votes", Filters.eq(nameField, name))),
+        Updates.combine(counted),
+        new UpdateOptions().arrayFilters(List.of(Filters.eq("target." + nameField, name))),
+        Filters.and(filter, Filters.ne("votes." + nameField, name)),
+        Updates.combine(first));
+  }
+
+  /**
+   * Replaces this pod's viewers in activeViewers with {@code viewers} (IP to last visit) in one pipeline update.
+   * Entries written by other pods are kept unless they are older than {@code cutoff}, so several pods
+   * can flush the same show without overwriting each other.
+   */
+  public void mergeActiveViewers(String showSubdomain, java.util.Map<String, java.time.LocalDateTime> viewers,
+      java.time.LocalDateTime cutoff) {
+    List<Document> trackedViewers = viewers.entrySet().stream()
+        .map(viewer -> new Document("ipAddress", viewer.getKey())
+            .append("visitDateTime", toDate(viewer.getValue())))
+        .toList();
+    Document otherViewers = new Document("$filter", new Document()
+        .append("input", new Document("$ifNull", List.of("$activeViewers", List.of())))
+        .append("as", "viewer")
+        .append("cond", new Document("$and", List.of(
+            new Document("$not", List.of(new Document("$in", List.of("$$viewer.ipAddress",
+                new Document("$literal", List.copyOf(viewers.keySet())))))),
+            new Document("$gte", List.of("$$viewer.visitDateTime", toDate(cutoff)))))));
     mongoCollection().updateOne(
         Filters.eq("showSubdomain", showSubdomain),
-        Updates.set("playingNow", playingNow)
+        List.of(new Document("$set", new Document("activeViewers",
+            new Document("$concatArrays", List.of(otherViewers, new Document("$literal", trackedViewers))))))
     );
   }
 
-  public void updatePlayingNext(String showSubdomain, String playingNext) {
-    mongoCollection().updateOne(
+  static java.util.Date toDate(java.time.LocalDateTime dateTime) {
+    // Same UTC mapping the entity codec uses for LocalDateTime fields
+    return java.util.Date.from(dateTime.toInstant(java.time.ZoneOffset.UTC));
+  }
+
+  public long updatePlayingNow(String showSubdomain, String playingNow) {
+    return this.setToSequenceDisplayName(showSubdomain, "playingNow", playingNow);
+  }
+
+  public long updatePlayingNext(String showSubdomain, String playingNext) {
+    return this.setToSequenceDisplayName(showSubdomain, "playingNext", playingNext);
+  }
+
+  /**
+   * Sets the field to the display name of the sequence named {@code sequenceName} (case-insensitive),
+   * or to the name itself when there is no such sequence or it has no display name.
+   * The lookup runs inside a pipeline update, so for ASCII names it is a single round trip that never ships the
+   * show to us. $strcasecmp only folds ASCII, so any other name is first matched against the show's sequence
+   * names here, and the update looks up the exact stored name.
+   * Returns the matched count, which is 0 when the show does not exist.
+   */
+  private long setToSequenceDisplayName(String showSubdomain, String field, String sequenceName) {
+    String storedName = null;
+    if (isNonAscii(sequenceName)) {
+      storedName = storedSequenceName(mongoCollection().withDocumentClass(Document.class)
+          .find(Filters.eq("showSubdomain", showSubdomain))
+          .projection(SEQUENCE_NAMES)
+          .first(), sequenceName);
+    }
+    var result = mongoCollection().updateOne(
         Filters.eq("showSubdomain", showSubdomain),
-        Updates.set("playingNext", playingNext)
+        sequenceDisplayNameUpdate(field, sequenceName, storedName)
     );
+    return result.getMatchedCount();
+  }
+
+  static final Bson SEQUENCE_NAMES = com.mongodb.client.model.Projections.include("sequences.name");
+
+  static boolean isNonAscii(String sequenceName) {
+    return sequenceName != null && sequenceName.chars().anyMatch(c -> c > 0x7F);
+  }
+
+  /**
+   * The name of the show's sequence that equals {@code sequenceName} ignoring case, as stored, or null when
+   * there is none (or no show).
+   */
+  static String storedSequenceName(Document show, String sequenceName) {
+    List<Document> sequences = show != null ? show.getList("sequences", Document.class) : null;
+    if (sequences == null) {
+      return null;
+    }
+    return sequences.stream()
+        .map(sequence -> sequence.getString("name"))
+        .filter(name -> StringUtils.equalsIgnoreCase(name, sequenceName))
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * @param storedName the matching sequence's exact name, looked up by {@link #storedSequenceName}, or null to match
+   *                   {@code sequenceName} with $strcasecmp
+   */
+  static List<Document> sequenceDisplayNameUpdate(String field, String sequenceName, String storedName) {
+    // $literal keeps names that start with '$' from being read as field paths
+    Document name = new Document("$literal", sequenceName);
+    Document sameName = storedName != null
+        ? new Document("$eq", List.of("$$sequence.name", new Document("$literal", storedName)))
+        : new Document("$eq", List.of(new Document("$strcasecmp", List.of("$$sequence.name", name)), 0));
+    Document matchingSequences = new Document("$filter", new Document()
+        .append("input", new Document("$ifNull", List.of("$sequences", List.of())))
+        .append("as", "sequence")
+        .append("cond", new Document("$and", List.of(
+            sameName,
+            new Document("$gt", List.of(new Document("$strLenCP", new Document("$trim",
+                new Document("input", new Document("$ifNull", List.of("$$sequence.displayName", ""))))), 0))))));
+    Document displayName = new Document("$let", new Document()
+        .append("vars", new Document("match", new Document("$first", matchingSequences)))
+        .append("in", new Document("$ifNull", List.of("$$match.displayName", name))));
+    return List.of(new Document("$set", new Document(field, displayName)));
   }
 
   public void appendRequestAndJukeboxStat(String showSubdomain, Request request, Stat.Jukebox stat) {
-    mongoCollection().updateOne(
+    this.startCountingToday(showSubdomain);
+    this.write(showSubdomain,
         Filters.eq("showSubdomain", showSubdomain),
         Updates.combine(
             Updates.push("requests", request),
-            Updates.push("stats.jukebox", stat)
+            Updates.push("stats.jukebox", stat),
+            Updates.inc(JUKEBOX_REQUESTS_COUNT, 1)
         )
     );
   }
 
   public void appendMultipleRequestsAndJukeboxStat(String showSubdomain, java.util.List<Request> requests,
       Stat.Jukebox stat) {
-    mongoCollection().updateOne(
+    this.startCountingToday(showSubdomain);
+    this.write(showSubdomain,
         Filters.eq("showSubdomain", showSubdomain),
         Updates.combine(
             Updates.pushEach("requests", requests),
-            Updates.push("stats.jukebox", stat)
+            Updates.push("stats.jukebox", stat),
+            Updates.inc(JUKEBOX_REQUESTS_COUNT, 1)
         )
     );
   }
 
-  public void updatePsaSequences(String showSubdomain, java.util.List<com.remotefalcon.library.models.PsaSequence> psaSequences) {
-    mongoCollection().updateOne(
+  /**
+   * Appends the requests and jukebox stat, plus {@code psa} when this append makes it due, and returns how
+   * many jukebox requests the show has had today, this one included (0 when the show is gone). Used when
+   * the show's PSAs are managed by the app, so it bypasses group commit like {@link #appendRequestsIfAllowed}.
+   */
+  public long appendRequestsCountingToday(String showSubdomain, List<Request> requests, Stat.Jukebox stat,
+      ScheduledPsa psa) {
+    return this.countToday(new JukeboxAppend(showSubdomain, Filters.eq("showSubdomain", showSubdomain),
+        requests, stat, psa, true));
+  }
+
+  /**
+   * Appends the requests and jukebox stat only if the queue rules still hold at write time:
+   * the queue is below jukeboxDepth, the viewer has no request queued (when checkIfRequested is on)
+   * and none of the sequences is among the last jukeboxRequestLimit requests.
+   * Mongo evaluates the rules and the push atomically, so concurrent requests cannot overflow the queue.
+   * Bypasses group commit because the caller needs this write's own result.
+   * Returns how many jukebox requests the show has had today, this one included, when appended,
+   * and 0 when a rule rejected it (or the show is gone). {@code psa} (null when the show has no app-managed
+   * PSAs) is queued in the same update when the append makes it due.
+   */
+  public long appendRequestsIfAllowed(String showSubdomain, List<Request> requests, Stat.Jukebox stat,
+      String viewerIp, ScheduledPsa psa) {
+    return this.countToday(new JukeboxAppend(showSubdomain,
+        appendRequestsIfAllowedFilter(showSubdomain, requests, viewerIp), requests, stat, psa, true));
+  }
+
+  /**
+   * Sends {@code append}, retried against the new count while other requests win the race for it (see
+   * {@link JukeboxAppend}), and returns today's count including this request, or 0 when it was not applied.
+   */
+  private long countToday(JukeboxAppend append) {
+    this.startCountingToday(append.showSubdomain());
+    var collection = mongoCollection().withDocumentClass(Document.class);
+    if (append.psa() == null) {
+      return jukeboxRequestsValue(collection.findOneAndUpdate(append.filter(0), append.update(0), append.options(0)));
+    }
+    long requestsBefore = this.requestsToday(append.showSubdomain());
+    while (true) {
+      Document counter = collection.findOneAndUpdate(
+          append.filter(requestsBefore), append.update(requestsBefore), append.options(requestsBefore));
+      if (counter != null) {
+        return jukeboxRequestsValue(counter);
+      }
+      long current = this.requestsToday(append.showSubdomain());
+      if (current == requestsBefore) {
+        // The count did not move, so a queue rule rejected the append (or the show is gone)
+        return 0L;
+      }
+      requestsBefore = current;
+    }
+  }
+
+  private long requestsToday(String showSubdomain) {
+    return jukeboxRequestsValue(mongoCollection().withDocumentClass(Document.class)
+        .find(Filters.eq("showSubdomain", showSubdomain))
+        .projection(JUKEBOX_REQUESTS_PROJECTION)
+        .first());
+  }
+
+  /**
+   * Operator update that pushes the requests and jukebox stat and counts a jukebox request for today, so only the
+   * new array elements are sent and written. Without {@code psa} the count is a plain $inc. With one, whether this
+   * request makes the PSA due is decided from today's count read before the write ({@code requestsBefore}), and
+   * the filter only matches while the count is still that value. When due, the PSA's request is pushed after the
+   * viewer's and its lastPlayed is set in the same update, so the PSA is queued atomically with the request that
+   * triggered it. Only one request can move the count from a given value, so the PSA is never queued twice; a
+   * request that lost the race is sent again against the new count. The blocking and reactive repositories both
+   * send it with {@link #filter}, {@link #update} and {@link #options} and read the result with
+   * {@link #jukeboxRequestsValue}.
+   *
+   * @param filter       matches the show, and for a conditional append also the queue rules
+   * @param requests     requests to push; empty when they are queued outside the Show document
+   * @param psa          the show's next app-managed PSA, or null
+   * @param queueRequest whether the PSA's request goes into the Show's requests array
+   */
+  record JukeboxAppend(String showSubdomain, Bson filter, List<Request> requests, Stat.Jukebox stat,
+      ScheduledPsa psa, boolean queueRequest) {
+
+    Bson filter(long requestsBefore) {
+      if (this.psa == null) {
+        return this.filter;
+      }
+      // A counter that was never written reads as 0
+      return Filters.and(this.filter, requestsBefore == 0
+          ? Filters.in(JUKEBOX_REQUESTS_COUNT, 0, null)
+          : Filters.eq(JUKEBOX_REQUESTS_COUNT, requestsBefore));
+    }
+
+    Bson update(long requestsBefore) {
+      boolean due = this.isPsaDue(requestsBefore);
+      List<Request> pushed = this.requests;
+      if (due && this.queueRequest && this.psa.request() != null) {
+        pushed = new ArrayList<>(this.requests);
+        pushed.add(this.psa.request());
+      }
+      List<Bson> updates = new ArrayList<>();
+      if (!pushed.isEmpty()) {
+        updates.add(Updates.pushEach("requests", pushed));
+      }
+      updates.add(Updates.push("stats.jukebox", this.stat));
+      updates.add(Updates.inc(JUKEBOX_REQUESTS_COUNT, 1));
+      if (due) {
+        updates.add(Updates.set("psaSequences.$[psa].lastPlayed", toDate(this.psa.playedAt())));
+      }
+      return Updates.combine(updates);
+    }
+
+    FindOneAndUpdateOptions options(long requestsBefore) {
+      FindOneAndUpdateOptions options = jukeboxRequestsOptions();
+      // Only that PSA's lastPlayed is set; every other element of psaSequences is left as is
+      return this.isPsaDue(requestsBefore)
+          ? options.arrayFilters(List.of(Filters.eq("psa.name", this.psa.name())))
+          : options;
+    }
+
+    private boolean isPsaDue(long requestsBefore) {
+      return this.psa != null && this.psa.isDue(requestsBefore + 1);
+    }
+  }
+
+  /**
+   * Moves the show's jukebox request counter to today before this pod counts its first request of the day
+   * (see {@link #jukeboxDayResetUpdate}).
+   */
+  private void startCountingToday(String showSubdomain) {
+    LocalDate today = LocalDate.now();
+    if (!this.countingDays.isCounting(showSubdomain, today)) {
+      mongoCollection().updateOne(jukeboxDayResetFilter(showSubdomain, today), jukeboxDayResetUpdate(today));
+      this.countingDays.counting(showSubdomain, today);
+    }
+  }
+
+  /**
+   * Matches the show while its jukebox request counter is on another day than {@code day}, or missing.
+   * Pods that reset concurrently all match at most once between them, so no request of the new day is lost.
+   */
+  static Bson jukeboxDayResetFilter(String showSubdomain, LocalDate day) {
+    return Filters.and(
+        Filters.eq("showSubdomain", showSubdomain),
+        Filters.ne(JUKEBOX_REQUESTS_DAY, day.toString()));
+  }
+
+  /**
+   * Starts the counter over at 0 for {@code day}, so it only ever holds one day, and drops the per-day map
+   * earlier versions grew by one key a day.
+   */
+  static Bson jukeboxDayResetUpdate(LocalDate day) {
+    return Updates.combine(
+        Updates.set(JUKEBOX_REQUESTS_TODAY, new Document("day", day.toString()).append("count", 0)),
+        Updates.unset(LEGACY_JUKEBOX_REQUESTS_BY_DAY));
+  }
+
+  /**
+   * Records the jukebox stat and counts one jukebox request for today, plus the PSA's lastPlayed when the
+   * count makes {@code psa} due, for requests queued outside the Show document (viewer.queue.storage=collection).
+   * Queuing the PSA's request is left to the caller. Returns today's count including this request
+   * (0 when the show is gone).
+   */
+  public long countJukeboxRequest(String showSubdomain, Stat.Jukebox stat, ScheduledPsa psa) {
+    return this.countToday(new JukeboxAppend(showSubdomain, Filters.eq("showSubdomain", showSubdomain),
+        List.of(), stat, psa, false));
+  }
+
+  static final Bson JUKEBOX_REQUESTS_PROJECTION = com.mongodb.client.model.Projections.include(JUKEBOX_REQUESTS_COUNT);
+
+  static FindOneAndUpdateOptions jukeboxRequestsOptions() {
+    return new FindOneAndUpdateOptions()
+        .projection(JUKEBOX_REQUESTS_PROJECTION)
+        .returnDocument(ReturnDocument.AFTER);
+  }
+
+  static long jukeboxRequestsValue(Document counter) {
+    if (counter == null) {
+      return 0L;
+    }
+    Document today = counter.get(JUKEBOX_REQUESTS_TODAY, Document.class);
+    Object requests = today != null ? today.get("count") : null;
+    return requests instanceof Number number ? number.longValue() : 0L;
+  }
+
+  static Bson appendRequestsIfAllowedFilter(String showSubdomain, List<Request> requests, String viewerIp) {
+    Document queue = new Document("$ifNull", List.of("$requests", List.of()));
+    Document depth = new Document("$ifNull", List.of("$preferences.jukeboxDepth", 0));
+    Document requestLimit = new Document("$ifNull", List.of("$preferences.jukeboxRequestLimit", 0));
+    Document queueHasRoom = new Document("$or", List.of(
+        new Document("$eq", List.of(depth, 0)),
+        new Document("$lt", List.of(new Document("$size", queue), depth))));
+    Document viewerHasNoRequest = new Document("$or", List.of(
+        new Document("$ne", List.of("$preferences.checkIfRequested", true)),
+        new Document("$not", List.of(new Document("$in", List.of(
+            new Document("$literal", RequestRepository.viewerKey(viewerIp)),
+            // Same case-insensitive match as ViewerMembership
+            new Document("$map", new Document()
+                .append("input", new Document("$ifNull", List.of("$requests.viewerRequested", List.of())))
+                .append("as", "viewer")
+                .append("in", new Document("$toLower", "$$viewer")))))))));
+    // The most recent requests by position, as RequestQueue sees them; array order isn't position order once
+    // the control panel or the plugin has reordered or spliced the queue
+    Document recentRequests = new Document("$slice", List.of(
+        new Document("$sortArray", new Document("input", queue).append("sortBy", new Document("position", -1))),
+        requestLimit));
+    Document recentSequenceNames = new Document("$map", new Document()
+        .append("input", recentRequests)
+        .append("as", "request")
+        .append("in", "$$request.sequence.name"));
+    Document notRecentlyRequested = new Document("$cond", List.of(
+        new Document("$eq", List.of(requestLimit, 0)),
+        true,
+        new Document("$eq", List.of(new Document("$size", new Document("$setIntersection", List.of(
+            recentSequenceNames,
+            new Document("$literal", requests.stream().map(request -> request.getSequence().getName()).toList())))),
+            0))));
+    return Filters.and(
         Filters.eq("showSubdomain", showSubdomain),
-        Updates.set("psaSequences", psaSequences)
+        Filters.expr(new Document("$and", List.of(queueHasRoom, viewerHasNoRequest, notRecentlyRequested)))
     );
   }
 
@@ -249,6 +792,24 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
     return result.getModifiedCount();
   }
 
+  public Optional<Show> findLastLoginIpOnlyByShowSubdomain(String showSubdomain) {
+    // Only the owner's IP, for excluding the owner's own page views
+    Show result = mongoCollection()
+        .find(Filters.eq("showSubdomain", showSubdomain))
+        .projection(com.mongodb.client.model.Projections.include("lastLoginIp"))
+        .first();
+    return this.showIds.remember(showSubdomain, Optional.ofNullable(result));
+  }
+
+  private void write(String showSubdomain, Bson filter, Bson update) {
+    // Vote and queue writes go through group commit when enabled
+    if (this.showWriteBatcher.isEnabled()) {
+      this.showWriteBatcher.write(mongoCollection(), showSubdomain, new UpdateOneModel<>(filter, update));
+    } else {
+      mongoCollection().updateOne(filter, update);
+    }
+  }
+
   public Optional<Show> findPagesOnlyByShowSubdomain(String showSubdomain) {
     // Optimized query that ONLY fetches the pages array (not the entire Show document)
     // This is the sweet spot for performance:
@@ -261,6 +822,29 @@ public class ShowRepository implements PanacheMongoRepository<Show> {
             com.mongodb.client.model.Projections.include("pages")
         )
         .first();
-    return Optional.ofNullable(result);
+    return this.showIds.remember(showSubdomain, Optional.ofNullable(result));
+  }
+
+  private static class PositionBlock {
+    private long next;
+    private final long end;
+
+    PositionBlock(long next, long end) {
+      this.next = next;
+      this.end = end;
+    }
+
+    /**
+     * The first of {@code count} positions after {@code maxPosition} taken from this block, or -1 when it
+     * doesn't have them.
+     */
+    synchronized long take(long maxPosition, int count) {
+      if (this.next <= maxPosition || this.next + count - 1 > this.end) {
+        return -1;
+      }
+      long start = this.next;
+      this.next += count;
+      return start;
+    }
   }
 }
@@ -0,0 +1,191 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.WriteModel;
+import com.remotefalcon.library.quarkus.entity.Show;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit for vote and queue writes. Writes to the same show that arrive within the window are
+ * sent to Mongo as one unordered bulkWrite, so a busy voting round takes the Show document lock once
+ * per batch instead of once per viewer. Each caller still blocks until its own write is acknowledged
+ * and sees its own failure, mapped back by the write's index in the batch.
+ */
+@JBossLog
+@ApplicationScoped
+public class ShowWriteBatcher {
+  private final boolean enabled;
+  private final Duration window;
+  private final int maxBatchSize;
+  private final ConcurrentHashMap<String, Batch> pending = new ConcurrentHashMap<>();
+  // Null when group commit is disabled
+  private final ScheduledExecutorService executor;
+  private final DistributionSummary batchSize;
+  private final Timer flushTimer;
+
+  public ShowWriteBatcher(
+      @ConfigProperty(name = "viewer.group-commit.enabled", defaultValue = "false") boolean enabled,
+      @ConfigProperty(name = "viewer.group-commit.window", defaultValue = "10ms") Duration window,
+      @ConfigProperty(name = "viewer.group-commit.max-batch-size", defaultValue = "256") int maxBatchSize,
+      @ConfigProperty(name = "viewer.group-commit.flush-threads", defaultValue = "4") int flushThreads,
+      MeterRegistry registry) {
+    this.enabled = enabled;
+    this.window = window;
+    this.maxBatchSize = maxBatchSize;
+    // Group commit is off by default, so only start flush threads when it is on
+    this.executor = enabled
+        ? Executors.newScheduledThreadPool(flushThreads,
+            Thread.ofPlatform().name("show-group-commit-", 0).daemon().factory())
+        : null;
+    Gauge.builder("viewer_group_commit_window_seconds", () -> this.window.toNanos() / 1e9)
+        .description("Configured group commit window")
+        .register(registry);
+    Gauge.builder("viewer_group_commit_max_batch_size", () -> this.maxBatchSize)
+        .description("Configured maximum writes per group commit")
+        .register(registry);
+    this.batchSize = DistributionSummary.builder("viewer_group_commit_batch_size")
+        .description("Writes folded into each group commit")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+    this.flushTimer = Timer.builder("viewer_group_commit_flush")
+        .description("Latency of the bulkWrite issued for each group commit")
+        .publishPercentiles(0.5, 0.95, 0.99)
+        .register(registry);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (this.executor == null) {
+      return;
+    }
+    // Flush whatever is still waiting so no caller is left hanging
+    this.pending.keySet().forEach(showSubdomain -> {
+      Batch batch = this.pending.remove(showSubdomain);
+      if (batch != null) {
+        this.flush(batch);
+      }
+    });
+    this.executor.shutdown();
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Queues the write for the show's next group commit and waits until it has been applied.
+   * Throws the Mongo error for this write if it (or the whole batch) failed. Only for use when {@link #isEnabled()}.
+   */
+  public void write(MongoCollection<Show> collection, String showSubdomain, WriteModel<Show> model) {
+    PendingWrite write = new PendingWrite(model, new CompletableFuture<>());
+    Batch[] full = new Batch[1];
+    this.pending.compute(showSubdomain, (key, batch) -> {
+      if (batch == null) {
+        batch = new Batch(collection);
+        Batch scheduled = batch;
+        this.executor.schedule(() -> {
+          this.pending.remove(key, scheduled);
+          this.flush(scheduled);
+        }, this.window.toNanos(), TimeUnit.NANOSECONDS);
+      }
+      batch.writes.add(write);
+      if (batch.writes.size() >= this.maxBatchSize) {
+        // Detach the full batch; the next write for this show starts a new window
+        full[0] = batch;
+        return null;
+      }
+      return batch;
+    });
+    if (full[0] != null) {
+      Batch batch = full[0];
+      this.executor.execute(() -> this.flush(batch));
+    }
+    try {
+      write.result().join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private void flush(Batch batch) {
+    // A batch can be flushed by its window timer or by reaching the size limit, whichever comes first
+    if (!batch.flushed.compareAndSet(false, true)) {
+      return;
+    }
+    List<PendingWrite> writes = batch.writes;
+    List<WriteModel<Show>> models = new ArrayList<>(writes.size());
+    writes.forEach(write -> models.add(write.model()));
+    this.batchSize.record(writes.size());
+    Timer.Sample sample = Timer.start();
+    try {
+      batch.collection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+      writes.forEach(write -> write.result().complete(null));
+    } catch (MongoBulkWriteException e) {
+      Map<Integer, BulkWriteError> errors = new HashMap<>();
+      e.getWriteErrors().forEach(error -> errors.put(error.getIndex(), error));
+      for (int i = 0; i < writes.size(); i++) {
+        BulkWriteError error = errors.get(i);
+        if (error != null) {
+          // The same exception a single updateOne would throw, so callers can check the error category and labels
+          writes.get(i).result().completeExceptionally(
+              new MongoWriteException(error, e.getServerAddress(), e.getErrorLabels()));
+        } else if (e.getWriteConcernError() != null) {
+          writes.get(i).result().completeExceptionally(e);
+        } else {
+          writes.get(i).result().complete(null);
+        }
+      }
+      log.warnf("Group commit partially failed: %d of %d writes", errors.size(), writes.size());
+    } catch (RuntimeException e) {
+      log.errorf(e, "Group commit failed: %d writes", writes.size());
+      writes.forEach(write -> write.result().completeExceptionally(e));
+    } finally {
+      sample.stop(this.flushTimer);
+    }
+  }
+
+  int pendingShows() {
+    return this.pending.size();
+  }
+
+  private record PendingWrite(WriteModel<Show> model, CompletableFuture<Void> result) {
+  }
+
+  private static class Batch {
+    final MongoCollection<Show> collection;
+    // Only mutated inside pending.compute for this show, and read once the batch has been detached
+    final List<PendingWrite> writes = new ArrayList<>();
+    final AtomicBoolean flushed = new AtomicBoolean();
+
+    Batch(MongoCollection<Show> collection) {
+      this.collection = collection;
+    }
+  }
+}
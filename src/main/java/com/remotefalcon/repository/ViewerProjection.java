@@ -0,0 +1,62 @@
+package com.remotefalcon.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Top-level Show fields to load for a getShow call, derived from the fields the client selected.
+ * An empty field set means the full viewer document (everything except {@link ShowRepository#VIEWER_EXCLUDED_FIELDS}).
+ */
+public record ViewerProjection(Set<String> includedFields) {
+  public static final ViewerProjection FULL = new ViewerProjection(Set.of());
+
+  // Selected GraphQL field -> stored fields needed to compute it (see GraphQLQueryService.getShow)
+  private static final Map<String, Set<String>> FIELD_DEPENDENCIES = Map.ofEntries(
+      Map.entry("showName", Set.of("showName")),
+      Map.entry("showSubdomain", Set.of("showSubdomain")),
+      Map.entry("preferences", Set.of("preferences")),
+      Map.entry("playingNow", Set.of("playingNow", "sequences")),
+      Map.entry("playingNowSequence", Set.of("playingNow", "sequences")),
+      Map.entry("playingNext", Set.of("playingNext", "playingNextFromSchedule", "requests", "sequences")),
+      Map.entry("playingNextSequence", Set.of("playingNext", "playingNextFromSchedule", "requests", "sequences")),
+      Map.entry("playingNextFromSchedule", Set.of("playingNextFromSchedule")),
+      Map.entry("sequences", Set.of("sequences", "sequenceGroups")),
+      Map.entry("sequenceGroups", Set.of("sequenceGroups")),
+      Map.entry("psaSequences", Set.of("psaSequences")),
+      Map.entry("pages", Set.of("pages")),
+      Map.entry("requests", Set.of("requests")),
+      Map.entry("votes", Set.of("votes"))
+  );
+
+  public ViewerProjection {
+    includedFields = Set.copyOf(includedFields);
+  }
+
+  /**
+   * Builds the projection for the selected top-level fields. Any field we don't know how to compute
+   * (e.g. stats) falls back to the full viewer document so behaviour never changes for such queries.
+   */
+  public static ViewerProjection forSelectedFields(Collection<String> selectedFields) {
+    if (selectedFields == null || selectedFields.isEmpty()) {
+      return FULL;
+    }
+    Set<String> fields = new TreeSet<>();
+    for (String selectedField : selectedFields) {
+      if (selectedField.startsWith("__")) {
+        continue; // __typename and other introspection fields need no data
+      }
+      Set<String> dependencies = FIELD_DEPENDENCIES.get(selectedField);
+      if (dependencies == null) {
+        return FULL;
+      }
+      fields.addAll(dependencies);
+    }
+    return fields.isEmpty() ? FULL : new ViewerProjection(fields);
+  }
+
+  public boolean isFull() {
+    return this.includedFields.isEmpty();
+  }
+}
@@ -0,0 +1,92 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Who voted in which voting round, one document {showSubdomain, round, voterIp, votedAt} per vote, used when
+ * viewer.vote.voter-store=collection instead of the Show document's votes.viewersVoted arrays. A unique index on
+ * (showSubdomain, round, voterIp) makes Mongo reject a second vote from the same viewer in the same round, and a
+ * TTL index on votedAt removes finished rounds.
+ */
+@JBossLog
+@ApplicationScoped
+public class VoterRepository {
+  public static final String COLLECTION = "viewerVoters";
+
+  @Inject
+  ShowDatabase showDatabase;
+
+  @ConfigProperty(name = "viewer.vote.voter-ttl", defaultValue = "1d")
+  Duration voterTtl;
+
+  private volatile MongoCollection<Document> collection;
+
+  /**
+   * Records the voter for the round. Returns false when the viewer already voted in it.
+   */
+  public boolean insertIfAbsent(String showSubdomain, String round, String voterIp) {
+    try {
+      this.collection().insertOne(new Document("showSubdomain", showSubdomain)
+          .append("round", round)
+          .append("voterIp", voterIp)
+          .append("votedAt", new Date()));
+      return true;
+    } catch (MongoWriteException e) {
+      if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Removes a voter recorded for a vote that could not be counted, so the viewer can try again.
+   */
+  public void delete(String showSubdomain, String round, String voterIp) {
+    this.collection().deleteOne(Filters.and(
+        Filters.eq("showSubdomain", showSubdomain),
+        Filters.eq("round", round),
+        Filters.eq("voterIp", voterIp)));
+  }
+
+  private MongoCollection<Document> collection() {
+    MongoCollection<Document> current = this.collection;
+    if (current == null) {
+      synchronized (this) {
+        if (this.collection == null) {
+          MongoCollection<Document> voters = this.showDatabase.database().getCollection(COLLECTION);
+          this.createIndexes(voters);
+          this.collection = voters;
+        }
+        current = this.collection;
+      }
+    }
+    return current;
+  }
+
+  private void createIndexes(MongoCollection<Document> voters) {
+    // createIndex is a no-op when an identical index exists, so every pod can run this on first use
+    voters.createIndex(Indexes.ascending("showSubdomain", "round", "voterIp"), new IndexOptions().unique(true));
+    try {
+      voters.createIndex(Indexes.ascending("votedAt"),
+          new IndexOptions().expireAfter(this.voterTtl.toSeconds(), TimeUnit.SECONDS));
+    } catch (Exception e) {
+      // An existing TTL index with another expiry; the old one keeps working until it is dropped
+      log.warnf(e, "TTL index on %s.votedAt not created", COLLECTION);
+    }
+  }
+}
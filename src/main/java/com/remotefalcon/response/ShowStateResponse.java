@@ -0,0 +1,20 @@
+package com.remotefalcon.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Builder
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShowStateResponse {
+  private String playingNow;
+  private String playingNext;
+  private List<String> queue;
+  private Map<String, Integer> votes;
+}
@@ -0,0 +1,102 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.repository.ShowRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sliding-window view of who is watching each show, kept in memory so a heartbeat costs no database call.
+ * Repeat heartbeats inside the debounce interval only refresh the in-memory timestamp. On every flush,
+ * each show that changed gets its pruned viewer list written with a single merge update.
+ */
+@JBossLog
+@ApplicationScoped
+public class ActiveViewerTracker {
+  @Inject
+  ShowRepository showRepository;
+
+  @ConfigProperty(name = "viewer.active-viewers.window", defaultValue = "5m")
+  Duration window;
+
+  @ConfigProperty(name = "viewer.active-viewers.debounce", defaultValue = "30s")
+  Duration debounce;
+
+  @ConfigProperty(name = "viewer.active-viewers.flush-interval", defaultValue = "10s")
+  Duration flushInterval;
+
+  private final ConcurrentHashMap<String, ShowViewers> viewersByShow = new ConcurrentHashMap<>();
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  void init() {
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("active-viewers-flush").daemon().factory());
+    this.executor.scheduleWithFixedDelay(this::flush,
+        this.flushInterval.toMillis(), this.flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    this.executor.shutdown();
+    this.flush();
+  }
+
+  public void heartbeat(String showSubdomain, String ipAddress) {
+    LocalDateTime now = LocalDateTime.now();
+    // Recorded inside compute so a flush can't drop the show's entry between looking it up and the put
+    this.viewersByShow.compute(showSubdomain, (key, viewers) -> {
+      ShowViewers current = viewers != null ? viewers : new ShowViewers();
+      LocalDateTime previous = current.lastSeen.put(ipAddress, now);
+      if (previous == null || previous.plus(this.debounce).isBefore(now)) {
+        current.dirty.set(true);
+      }
+      return current;
+    });
+  }
+
+  public void flush() {
+    LocalDateTime cutoff = LocalDateTime.now().minus(this.window);
+    this.viewersByShow.forEach((showSubdomain, viewers) -> {
+      boolean pruned = viewers.lastSeen.values().removeIf(lastSeen -> lastSeen.isBefore(cutoff));
+      if (!viewers.dirty.getAndSet(false) && !pruned) {
+        return;
+      }
+      Map<String, LocalDateTime> snapshot = new HashMap<>(viewers.lastSeen);
+      try {
+        this.showRepository.mergeActiveViewers(showSubdomain, snapshot, cutoff);
+      } catch (Exception e) {
+        viewers.dirty.set(true);
+        log.errorf(e, "Failed to flush active viewers: showSubdomain=%s", showSubdomain);
+      }
+      if (snapshot.isEmpty()) {
+        // Nobody left watching; drop the entry unless a heartbeat arrived meanwhile
+        this.viewersByShow.computeIfPresent(showSubdomain, (key, current) ->
+            current == viewers && current.lastSeen.isEmpty() && !current.dirty.get() ? null : current);
+      }
+    });
+  }
+
+  int trackedViewers(String showSubdomain) {
+    ShowViewers viewers = this.viewersByShow.get(showSubdomain);
+    return viewers == null ? 0 : viewers.lastSeen.size();
+  }
+
+  private static class ShowViewers {
+    final Map<String, LocalDateTime> lastSeen = new ConcurrentHashMap<>();
+    final AtomicBoolean dirty = new AtomicBoolean();
+  }
+}
@@ -1,14 +1,19 @@
 package com.remotefalcon.service;
 
+import com.remotefalcon.cache.ShowOwnerCache;
+import com.remotefalcon.cache.ShowSnapshotCache;
+import com.remotefalcon.cache.ShowValidationContextCache;
 import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
-import com.remotefalcon.library.enums.LocationCheckMethod;
 import com.remotefalcon.library.enums.StatusResponse;
 import com.remotefalcon.library.models.*;
 import com.remotefalcon.library.quarkus.entity.Show;
 import com.remotefalcon.metrics.ViewerMetrics;
+import com.remotefalcon.repository.ReactiveShowRepository;
+import com.remotefalcon.repository.ScheduledPsa;
 import com.remotefalcon.repository.ShowRepository;
 import com.remotefalcon.util.ClientUtil;
-import com.remotefalcon.util.LocationUtil;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.vertx.ext.web.RoutingContext;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -16,31 +21,85 @@ import lombok.extern.jbosslog.JBossLog;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
 @JBossLog
 @ApplicationScoped
 public class GraphQLMutationService {
+  public enum QueueWriteMode { READ_VALIDATE, CONDITIONAL }
+
+  public enum VoteWriteMode { READ_VALIDATE, ATOMIC }
+
   @Inject
   ShowRepository showRepository;
 
+  @Inject
+  ReactiveShowRepository reactiveShowRepository;
+
   @Inject
   RoutingContext context;
 
   @Inject
   ViewerMetrics viewerMetrics;
 
+  @Inject
+  ShowSnapshotCache showSnapshotCache;
+
+  @Inject
+  ShowEventService showEventService;
+
+  @Inject
+  PageStatService pageStatService;
+
+  @Inject
+  ShowOwnerCache showOwnerCache;
+
+  @Inject
+  ActiveViewerTracker activeViewerTracker;
+
+  @Inject
+  ShowMutationLanes showMutationLanes;
+
+  @Inject
+  ShowValidationContextCache validationContexts;
+
+  @Inject
+  ViewerMembershipIndex viewerMembership;
+
+  @Inject
+  PsaScheduler psaScheduler;
+
+  @Inject
+  VoterStore voterStore;
+
+  @Inject
+  RequestStore requestStore;
+
+  @ConfigProperty(name = "viewer.queue.write-mode", defaultValue = "read-validate")
+  QueueWriteMode queueWriteMode;
+
+  @ConfigProperty(name = "viewer.vote.write-mode", defaultValue = "read-validate")
+  VoteWriteMode voteWriteMode;
+
   public Boolean insertViewerPageStats(String showSubdomain, LocalDateTime date) {
-    String clientIp = ClientUtil.getClientIP(context);
+    return this.insertViewerPageStats(showSubdomain, date, ClientUtil.getClientIP(context));
+  }
+
+  public Boolean insertViewerPageStats(String showSubdomain, LocalDateTime date, String clientIp) {
     if (StringUtils.isEmpty(clientIp)) {
       return true; // Skip if no IP available
     }
 
+    if (this.pageStatService.isTimeSeries()) {
+      // Buffered insert into the time-series collection; the Show document is not touched
+      return this.pageStatService.record(showSubdomain, clientIp, date);
+    }
+
     // Only append if IP is different from lastLoginIp (owner)
     // Use atomic operation to avoid reading entire document
     Stat.Page pageStat = Stat.Page.builder()
@@ -53,249 +112,542 @@ public class GraphQLMutationService {
   }
 
   public Boolean updateActiveViewers(String showSubdomain) {
-    Optional<Show> show = this.showRepository.findByShowSubdomain(showSubdomain);
-    if (show.isPresent()) {
-      Show existingShow = show.get();
-      String clientIp = ClientUtil.getClientIP(context);
-      if (!StringUtils.equalsIgnoreCase(existingShow.getLastLoginIp(), clientIp)) {
-        this.showRepository.updateActiveViewer(showSubdomain, clientIp, LocalDateTime.now());
+    return this.updateActiveViewers(showSubdomain, ClientUtil.getClientIP(context));
+  }
+
+  public Boolean updateActiveViewers(String showSubdomain, String clientIp) {
+    // Owner IP is cached and viewers are tracked in memory, so a heartbeat normally never hits Mongo
+    Optional<String> ownerIp = this.showOwnerCache.ownerIp(showSubdomain);
+    if (ownerIp.isPresent()) {
+      if (!StringUtils.equalsIgnoreCase(ownerIp.get(), clientIp)) {
+        this.activeViewerTracker.heartbeat(showSubdomain, clientIp);
       }
       return true;
     }
     log.errorf("updateActiveViewers unexpected: show not found for subdomain=%s", showSubdomain);
-    throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
+    throw CustomGraphQLExceptionResolver.of(StatusResponse.UNEXPECTED_ERROR);
   }
 
   public Boolean updatePlayingNow(String showSubdomain, String playingNow) {
-    Optional<Show> show = this.showRepository.findByShowSubdomain(showSubdomain);
-    if (show.isPresent()) {
-      Show existingShow = show.get();
-
-      String resolvedPlayingNow = playingNow;
-      if (CollectionUtils.isNotEmpty(existingShow.getSequences())) {
-        resolvedPlayingNow = existingShow.getSequences().stream()
-            .filter(sequence -> StringUtils.equalsIgnoreCase(sequence.getName(), playingNow))
-            .map(Sequence::getDisplayName)
-            .filter(StringUtils::isNotBlank)
-            .findFirst()
-            .orElse(playingNow);
-      }
-
-      this.showRepository.updatePlayingNow(showSubdomain, resolvedPlayingNow);
+    // Display name is resolved from sequences inside the update, so the plugin call is one small round trip
+    if (this.showRepository.updatePlayingNow(showSubdomain, playingNow) > 0) {
+      this.showStateChanged(showSubdomain, "playingNow");
       return true;
     }
     log.errorf("updatePlayingNow unexpected: show not found for subdomain=%s, playingNow=%s", showSubdomain, playingNow);
-    throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
+    throw CustomGraphQLExceptionResolver.of(StatusResponse.UNEXPECTED_ERROR);
   }
 
   public Boolean updatePlayingNext(String showSubdomain, String playingNext) {
-    Optional<Show> show = this.showRepository.findByShowSubdomain(showSubdomain);
-    if (show.isPresent()) {
-      Show existingShow = show.get();
-
-      String resolvedPlayingNext = playingNext;
-      if (CollectionUtils.isNotEmpty(existingShow.getSequences())) {
-        resolvedPlayingNext = existingShow.getSequences().stream()
-            .filter(sequence -> StringUtils.equalsIgnoreCase(sequence.getName(), playingNext))
-            .map(Sequence::getDisplayName)
-            .filter(StringUtils::isNotBlank)
-            .findFirst()
-            .orElse(playingNext);
-      }
-
-      this.showRepository.updatePlayingNext(showSubdomain, resolvedPlayingNext);
+    if (this.showRepository.updatePlayingNext(showSubdomain, playingNext) > 0) {
+      this.showStateChanged(showSubdomain, "playingNext");
       return true;
     }
     log.errorf("updatePlayingNext unexpected: show not found for subdomain=%s, playingNext=%s", showSubdomain, playingNext);
-    throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
+    throw CustomGraphQLExceptionResolver.of(StatusResponse.UNEXPECTED_ERROR);
   }
 
   public Boolean addSequenceToQueue(String showSubdomain, String name, Float latitude, Float longitude) {
+    return this.addSequenceToQueue(showSubdomain, name, latitude, longitude, ClientUtil.getClientIP(context));
+  }
+
+  /**
+   * Same as {@link #addSequenceToQueue(String, String, Float, Float)} for a client IP resolved by the caller,
+   * so it can run off the request thread (e.g. on the show's mutation lane).
+   */
+  public Boolean addSequenceToQueue(String showSubdomain, String name, Float latitude, Float longitude, String clientIp) {
+    return this.tryAddSequenceToQueue(showSubdomain, name, latitude, longitude, clientIp).orThrow();
+  }
+
+  /**
+   * Same as {@link #addSequenceToQueue(String, String, Float, Float, String)}, returning a rejection as a
+   * {@link MutationOutcome} instead of throwing it.
+   */
+  public MutationOutcome tryAddSequenceToQueue(String showSubdomain, String name, Float latitude, Float longitude,
+      String clientIp) {
+    if (this.showMutationLanes.isEnabled()) {
+      return this.showMutationLanes.execute(showSubdomain,
+          show -> this.addSequenceToQueue(show, showSubdomain, name, latitude, longitude, clientIp));
+    }
     // Use optimized query that excludes large stats but keeps fields needed for validation
-    Optional<Show> show = this.showRepository.findByShowSubdomainForMutations(showSubdomain);
-    if (show.isPresent()) {
-      Show existingShow = show.get();
-      String clientIp = ClientUtil.getClientIP(context);
-      if (StringUtils.isEmpty(clientIp)) {
-        log.errorf("Client IP not found or empty in addSequenceToQueue: showSubdomain=%s, name=%s", showSubdomain, name);
-        throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
-      }
-      if (this.isIpBlocked(clientIp, show.get())) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.NAUGHTY.name());
-      }
-      if (this.hasViewerRequested(show.get(), clientIp)) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.ALREADY_REQUESTED.name());
+    return this.addSequenceToQueue(this.showRepository.findByShowSubdomainForMutations(showSubdomain),
+        showSubdomain, name, latitude, longitude, clientIp);
+  }
+
+  private MutationOutcome addSequenceToQueue(Optional<Show> show, String showSubdomain, String name, Float latitude,
+      Float longitude, String clientIp) {
+    QueueSelection selection = this.selectForQueue(show, showSubdomain, name, latitude, longitude, clientIp);
+    if (!selection.outcome().isAccepted()) {
+      return selection.outcome();
+    }
+    Show existingShow = show.get();
+    Optional<PsaSequence> nextPsa = this.nextAutoPsa(existingShow);
+    if (this.requestStore.isCollection()) {
+      return this.appendToRequestCollection(showSubdomain, existingShow, selection, nextPsa, clientIp);
+    }
+
+    // Allocate all positions at once, plus one for the PSA in case this request makes it due
+    int positions = selection.sequences().size() + (nextPsa.isPresent() ? 1 : 0);
+    long startPosition = selection.group() || nextPsa.isPresent()
+        ? this.showRepository.allocatePositionBlock(existingShow, positions)
+        : this.showRepository.nextRequestPosition(existingShow);
+    List<Request> requests = selection.toRequests(startPosition, clientIp);
+    Stat.Jukebox jukeboxStat = selection.toJukeboxStat();
+    ScheduledPsa psa = nextPsa
+        .map(next -> this.schedulePsa(existingShow, next, startPosition + requests.size()))
+        .orElse(null);
+
+    // Batched write: single DB call for all requests, stat and the PSA, when due (plus a count read with app-managed PSAs)
+    long requestsToday = 0;
+    if (this.isConditionalQueueWrite()) {
+      // Queue depth, duplicate viewer and request limit are re-checked by Mongo as part of the write
+      requestsToday = this.showRepository.appendRequestsIfAllowed(showSubdomain, requests, jukeboxStat, clientIp, psa);
+      if (requestsToday == 0) {
+        return this.conditionalAppendRejected(showSubdomain, requests, clientIp);
       }
-      if (this.isQueueFull(existingShow)) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.QUEUE_FULL.name());
+    } else if (psa != null) {
+      // Whether the PSA is due depends on today's request count, so only this write can decide it
+      requestsToday = this.showRepository.appendRequestsCountingToday(showSubdomain, requests, jukeboxStat, psa);
+    } else if (selection.group()) {
+      this.showRepository.appendMultipleRequestsAndJukeboxStat(showSubdomain, requests, jukeboxStat);
+    } else {
+      this.showRepository.appendRequestAndJukeboxStat(showSubdomain, requests.get(0), jukeboxStat);
+    }
+    return this.queueAppended(showSubdomain, existingShow, requests, psa, requestsToday);
+  }
+
+  /**
+   * Queues the selection in the request collection (viewer.queue.storage=collection), which checks the queue
+   * depth, duplicate viewer and request limit rules once the requests are in it.
+   */
+  private MutationOutcome appendToRequestCollection(String showSubdomain, Show show, QueueSelection selection,
+      Optional<PsaSequence> nextPsa, String clientIp) {
+    long startPosition = this.requestStore.allocatePositions(show,
+        selection.sequences().size() + (nextPsa.isPresent() ? 1 : 0));
+    List<Request> requests = selection.toRequests(startPosition, clientIp);
+    ScheduledPsa psa = nextPsa
+        .map(next -> this.schedulePsa(show, next, startPosition + requests.size()))
+        .orElse(null);
+    RequestStore.Appended appended = this.requestStore.append(show, requests, clientIp, selection.toJukeboxStat(), psa);
+    if (!appended.outcome().isAccepted()) {
+      return appended.outcome();
+    }
+    return this.queueAppended(showSubdomain, show, requests, psa, appended.requestsToday());
+  }
+
+  /**
+   * Runs every queue rule that can be checked on the loaded show and returns what to queue:
+   * the requested sequence, or every sequence of the requested group in order, or the rule it broke.
+   */
+  private QueueSelection selectForQueue(Optional<Show> show, String showSubdomain, String name, Float latitude,
+      Float longitude, String clientIp) {
+    if (show.isEmpty()) {
+      log.errorf("Show not found: showSubdomain=%s", showSubdomain);
+      return QueueSelection.rejected(StatusResponse.UNEXPECTED_ERROR);
+    }
+    Show existingShow = show.get();
+    if (StringUtils.isEmpty(clientIp)) {
+      log.errorf("Client IP not found or empty in addSequenceToQueue: showSubdomain=%s, name=%s", showSubdomain, name);
+      return QueueSelection.rejected(StatusResponse.UNEXPECTED_ERROR);
+    }
+    ShowValidationContext validation = this.validationContexts.get(existingShow);
+    if (validation.isIpBlocked(clientIp)) {
+      return QueueSelection.rejected(StatusResponse.NAUGHTY);
+    }
+    if (this.hasViewerRequested(existingShow, clientIp)) {
+      return QueueSelection.rejected(StatusResponse.ALREADY_REQUESTED);
+    }
+    if (this.isQueueFull(existingShow)) {
+      return QueueSelection.rejected(StatusResponse.QUEUE_FULL);
+    }
+    if (!validation.isViewerPresent(latitude, longitude)) {
+      return QueueSelection.rejected(StatusResponse.INVALID_LOCATION);
+    }
+    Optional<Sequence> requestedSequence = validation.sequence(name);
+    if (requestedSequence.isPresent()) {
+      if (this.isSequenceAlreadyRequested(existingShow, requestedSequence.get())) {
+        return QueueSelection.rejected(StatusResponse.SEQUENCE_REQUESTED);
       }
-      if (!this.isViewerPresent(existingShow, latitude, longitude)) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.INVALID_LOCATION.name());
+      return new QueueSelection(List.of(requestedSequence.get()), requestedSequence.get().getName(), false,
+          MutationOutcome.ACCEPTED);
+    }
+    // It's a sequence group
+    Optional<SequenceGroup> requestedSequenceGroup = validation.sequenceGroup(name);
+    if (requestedSequenceGroup.isPresent()) {
+      List<Sequence> sequencesInGroup = validation.groupSequences(requestedSequenceGroup.get().getName());
+
+      // Check all sequences first
+      for (Sequence sequence : sequencesInGroup) {
+        if (this.isSequenceAlreadyRequested(existingShow, sequence)) {
+          return QueueSelection.rejected(StatusResponse.SEQUENCE_REQUESTED);
+        }
       }
-      Optional<Sequence> requestedSequence = show.get().getSequences().stream()
-          .filter(seq -> StringUtils.equalsIgnoreCase(seq.getName(), name))
-          .findFirst();
-      if (requestedSequence.isPresent()) {
-        this.checkIfSequenceRequested(show.get(), requestedSequence.get());
+      return new QueueSelection(sequencesInGroup, requestedSequenceGroup.get().getName(), true,
+          MutationOutcome.ACCEPTED);
+    }
+    log.errorf("Sequence or sequence group not found: showSubdomain=%s, name=%s", showSubdomain, name);
+    return new QueueSelection(List.of(), null, false, MutationOutcome.rejected("SEQUENCE_NOT_FOUND"));
+  }
 
-        // Build request and stat
-        long nextPosition = this.showRepository.nextRequestPosition(existingShow);
-        Request request = Request.builder()
-            .sequence(requestedSequence.get())
-            .ownerRequested(false)
-            .viewerRequested(StringUtils.isEmpty(clientIp) ? "" : clientIp)
-            .position(Math.toIntExact(nextPosition))
-            .build();
-        Stat.Jukebox jukeboxStat = Stat.Jukebox.builder()
-            .dateTime(LocalDateTime.now())
-            .name(requestedSequence.get().getName())
-            .build();
-
-        // Batched write: single DB call for both request and stat
-        this.showRepository.appendRequestAndJukeboxStat(showSubdomain, request, jukeboxStat);
-
-        // Update in-memory list so PSA position calculation sees this request
-        if (show.get().getRequests() == null) {
-          show.get().setRequests(new ArrayList<>());
-        }
-        show.get().getRequests().add(request);
+  private void rememberRequests(Show show, List<Request> requests) {
+    if (this.requestStore.isCollection()) {
+      return; // The loaded show does not hold the queue
+    }
+    if (show.getRequests() == null) {
+      show.setRequests(new ArrayList<>());
+    }
+    show.getRequests().addAll(requests);
+  }
 
-        // Handle PSA if needed (calculate inline without re-fetching)
-        if (show.get().getPreferences().getPsaEnabled() && !show.get().getPreferences().getManagePsa()
-            && CollectionUtils.isNotEmpty(show.get().getPsaSequences())) {
-          // Calculate total requests today (existing + 1 we just added)
-          int requestsMadeToday = (int) show.get().getStats().getJukebox().stream()
-              .filter(stat -> stat.getDateTime().isAfter(LocalDateTime.now().withHour(0).withMinute(0).withSecond(0)))
-              .count() + 1; // +1 for the request we just added
+  /**
+   * The PSA a request would queue if it turns out to be due, when the show's PSAs are managed by the app.
+   */
+  private Optional<PsaSequence> nextAutoPsa(Show show) {
+    if (!show.getPreferences().getPsaEnabled() || show.getPreferences().getManagePsa()
+        || CollectionUtils.isEmpty(show.getPsaSequences())) {
+      return Optional.empty();
+    }
+    return this.psaScheduler.next(show);
+  }
 
-          this.handlePsaForJukeboxInline(showSubdomain, show.get(), requestsMadeToday);
-        }
-        viewerMetrics.recordRequestSuccess();
-        return true;
-      } else { // It's a sequence group
-        Optional<SequenceGroup> requestedSequenceGroup = show.get().getSequenceGroups().stream()
-            .filter(seq -> StringUtils.equalsIgnoreCase(seq.getName(), name))
-            .findFirst();
-        if (requestedSequenceGroup.isPresent()) {
-          List<Sequence> sequencesInGroup = show.get().getSequences().stream()
-              .filter(
-                  sequence -> StringUtils.equalsIgnoreCase(requestedSequenceGroup.get().getName(), sequence.getGroup()))
-              .sorted(Comparator.comparing(Sequence::getOrder))
-              .toList();
-
-          // Check all sequences first
-          for (Sequence sequence : sequencesInGroup) {
-            this.checkIfSequenceRequested(show.get(), sequence);
-          }
-
-          // Allocate all positions at once
-          long startPosition = this.showRepository.allocatePositionBlock(existingShow, sequencesInGroup.size());
-
-          // Build all requests using allocated positions
-          List<Request> requests = new ArrayList<>();
-          for (int i = 0; i < sequencesInGroup.size(); i++) {
-            Request request = Request.builder()
-                .sequence(sequencesInGroup.get(i))
-                .ownerRequested(false)
-                .viewerRequested(StringUtils.isEmpty(clientIp) ? "" : clientIp)
-                .position(Math.toIntExact(startPosition + i))
-                .build();
-            requests.add(request);
-          }
-          Stat.Jukebox jukeboxStat = Stat.Jukebox.builder()
-              .dateTime(LocalDateTime.now())
-              .name(requestedSequenceGroup.get().getName())
-              .build();
-
-          // Batched write: single DB call for all requests and stat
-          this.showRepository.appendMultipleRequestsAndJukeboxStat(showSubdomain, requests, jukeboxStat);
-
-          // Update in-memory list so PSA position calculation sees these requests
-          if (show.get().getRequests() == null) {
-            show.get().setRequests(new ArrayList<>());
-          }
-          show.get().getRequests().addAll(requests);
-
-          // Handle PSA if needed (calculate inline without re-fetching)
-          if (show.get().getPreferences().getPsaEnabled() && !show.get().getPreferences().getManagePsa()
-              && CollectionUtils.isNotEmpty(show.get().getPsaSequences())) {
-            // Calculate total requests today (existing + 1 we just added for the group)
-            int requestsMadeToday = (int) show.get().getStats().getJukebox().stream()
-                .filter(stat -> stat.getDateTime().isAfter(LocalDateTime.now().withHour(0).withMinute(0).withSecond(0)))
-                .count() + 1; // +1 for the group request we just added
-
-            this.handlePsaForJukeboxInline(showSubdomain, show.get(), requestsMadeToday);
-          }
-          viewerMetrics.recordRequestSuccess();
-          return true;
-        }
+  private ScheduledPsa schedulePsa(Show show, PsaSequence psa, long position) {
+    Request request = this.validationContexts.get(show).sequence(psa.getName())
+        .map(sequence -> Request.builder()
+            .sequence(sequence)
+            .ownerRequested(false)
+            .viewerRequested("PSA")
+            .position(Math.toIntExact(position))
+            .build())
+        .orElse(null);
+    return new ScheduledPsa(psa.getName(), request, show.getPreferences().getPsaFrequency(), LocalDateTime.now());
+  }
+
+  /**
+   * @param requestsToday jukebox requests made today including this one, as returned by the append
+   *                      (0 when the append does not report it)
+   */
+  private MutationOutcome queueAppended(String showSubdomain, Show show, List<Request> requests, ScheduledPsa psa,
+      long requestsToday) {
+    // Apply the same change to the loaded show so a lane's warm copy stays current
+    this.rememberRequests(show, requests);
+    if (psa != null && psa.isDue(requestsToday)) {
+      this.psaScheduler.played(show, psa.playedAt());
+      if (psa.request() != null) {
+        this.rememberRequests(show, List.of(psa.request()));
       }
-      log.errorf("Sequence or sequence group not found: showSubdomain=%s, name=%s", showSubdomain, name);
-      throw new CustomGraphQLExceptionResolver("SEQUENCE_NOT_FOUND");
     }
-    log.errorf("Show not found: showSubdomain=%s", showSubdomain);
-    throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
+    this.showStateChanged(showSubdomain, "queue");
+    viewerMetrics.recordRequestSuccess();
+    return MutationOutcome.ACCEPTED;
   }
 
   public Boolean voteForSequence(String showSubdomain, String name, Float latitude, Float longitude) {
+    return this.voteForSequence(showSubdomain, name, latitude, longitude, ClientUtil.getClientIP(context));
+  }
+
+  /**
+   * Same as {@link #voteForSequence(String, String, Float, Float)} for a client IP resolved by the caller.
+   */
+  public Boolean voteForSequence(String showSubdomain, String name, Float latitude, Float longitude, String clientIp) {
+    return this.tryVoteForSequence(showSubdomain, name, latitude, longitude, clientIp).orThrow();
+  }
+
+  /**
+   * Same as {@link #voteForSequence(String, String, Float, Float, String)}, returning a rejection as a
+   * {@link MutationOutcome} instead of throwing it.
+   */
+  public MutationOutcome tryVoteForSequence(String showSubdomain, String name, Float latitude, Float longitude,
+      String clientIp) {
+    if (this.showMutationLanes.isEnabled()) {
+      return this.showMutationLanes.execute(showSubdomain,
+          show -> this.voteForSequence(show, showSubdomain, name, latitude, longitude, clientIp));
+    }
     // Use optimized query that excludes large stats
-    Optional<Show> show = this.showRepository.findByShowSubdomainForMutations(showSubdomain);
+    return this.voteForSequence(this.showRepository.findByShowSubdomainForMutations(showSubdomain),
+        showSubdomain, name, latitude, longitude, clientIp);
+  }
+
+  private MutationOutcome voteForSequence(Optional<Show> show, String showSubdomain, String name, Float latitude,
+      Float longitude, String clientIp) {
+    VoteTarget target = this.selectForVote(show, showSubdomain, name, latitude, longitude, clientIp);
+    if (!target.outcome().isAccepted()) {
+      return target.outcome();
+    }
+    if (this.voterStore.isCollection()) {
+      MutationOutcome written = this.recordVoteInVoterCollection(show.get(), target, clientIp);
+      if (!written.isAccepted()) {
+        return written;
+      }
+    } else if (this.isAtomicVoteWrite()) {
+      MutationOutcome written = this.recordVoteAtomically(show.get(), target, clientIp);
+      if (!written.isAccepted()) {
+        return written;
+      }
+    } else if (target.sequence() != null) {
+      this.saveSequenceVote(show.get(), target.sequence(), clientIp, false);
+    } else {
+      this.saveSequenceGroupVote(show.get(), target.sequenceGroup(), clientIp);
+    }
+    this.showStateChanged(showSubdomain, "votes");
+    viewerMetrics.recordVoteSuccess();
+    return MutationOutcome.ACCEPTED;
+  }
+
+  /**
+   * Runs every vote rule that can be checked on the loaded show and returns the voted sequence or group,
+   * or the rule it broke.
+   */
+  private VoteTarget selectForVote(Optional<Show> show, String showSubdomain, String name, Float latitude,
+      Float longitude, String clientIp) {
     if (show.isPresent()) {
       Show existingShow = show.get();
-      String clientIp = ClientUtil.getClientIP(context);
       if (StringUtils.isEmpty(clientIp)) {
         log.errorf("Client IP not found or empty in voteForSequence: showSubdomain=%s, name=%s", showSubdomain, name);
-        throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
+        return VoteTarget.rejected(StatusResponse.UNEXPECTED_ERROR);
       }
-      if (this.isIpBlocked(clientIp, existingShow)) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.NAUGHTY.name());
+      ShowValidationContext validation = this.validationContexts.get(existingShow);
+      if (validation.isIpBlocked(clientIp)) {
+        return VoteTarget.rejected(StatusResponse.NAUGHTY);
       }
       if (this.hasViewerVoted(existingShow, clientIp)) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.ALREADY_VOTED.name());
+        return VoteTarget.rejected(StatusResponse.ALREADY_VOTED);
       }
-      if (!this.isViewerPresent(existingShow, latitude, longitude)) {
-        throw new CustomGraphQLExceptionResolver(StatusResponse.INVALID_LOCATION.name());
+      if (!validation.isViewerPresent(latitude, longitude)) {
+        return VoteTarget.rejected(StatusResponse.INVALID_LOCATION);
       }
-      Optional<Sequence> requestedSequence = existingShow.getSequences().stream()
-          .filter(seq -> StringUtils.equalsIgnoreCase(seq.getName(), name))
-          .findFirst();
+      Optional<Sequence> requestedSequence = validation.sequence(name);
       if (requestedSequence.isPresent()) {
-        this.saveSequenceVote(existingShow, requestedSequence.get(), clientIp, false);
-        viewerMetrics.recordVoteSuccess();
-        return true;
-      } else { // It's a sequence group
-        Optional<SequenceGroup> votedSequenceGroup = existingShow.getSequenceGroups().stream()
-            .filter(seq -> StringUtils.equalsIgnoreCase(seq.getName(), name))
-            .findFirst();
-        if (votedSequenceGroup.isPresent()) {
-          this.saveSequenceGroupVote(existingShow, votedSequenceGroup.get(), clientIp);
-          viewerMetrics.recordVoteSuccess();
-          return true;
-        }
+        return new VoteTarget(requestedSequence.get(), null, MutationOutcome.ACCEPTED);
+      }
+      // It's a sequence group
+      Optional<SequenceGroup> votedSequenceGroup = validation.sequenceGroup(name);
+      if (votedSequenceGroup.isPresent()) {
+        return new VoteTarget(null, votedSequenceGroup.get(), MutationOutcome.ACCEPTED);
       }
     }
     log.errorf("voteForSequence unexpected: show or sequence not found for subdomain=%s, name=%s", showSubdomain, name);
-    throw new CustomGraphQLExceptionResolver(StatusResponse.UNEXPECTED_ERROR.name());
+    return VoteTarget.rejected(StatusResponse.UNEXPECTED_ERROR);
   }
 
-  private boolean isIpBlocked(String ipAddress, Show show) {
-    if (CollectionUtils.isNotEmpty(show.getPreferences().getBlockedViewerIps())) {
-      return show.getPreferences().getBlockedViewerIps().contains(ipAddress);
+  private boolean isConditionalQueueWrite() {
+    // A lane validates against its warm copy, so Mongo has to re-check the rules at write time
+    return this.queueWriteMode == QueueWriteMode.CONDITIONAL || this.showMutationLanes.isEnabled();
+  }
+
+  private boolean isAtomicVoteWrite() {
+    return this.voteWriteMode == VoteWriteMode.ATOMIC || this.showMutationLanes.isEnabled();
+  }
+
+  private MutationOutcome recordVoteAtomically(Show show, VoteTarget target, String clientIp) {
+    // Every step of the create-or-increment of the Vote entry re-checks for a duplicate voter
+    Vote newVote = target.newVote(clientIp);
+    if (this.showRepository.recordVoteIfNotVoted(show.getShowSubdomain(), newVote, clientIp, target.votingStat(newVote)) == 0) {
+      this.showMutationLanes.invalidate(show.getShowSubdomain());
+      return MutationOutcome.rejected(StatusResponse.ALREADY_VOTED);
     }
-    return false;
+    this.voteCounted(show, target, newVote, clientIp, clientIp);
+    return MutationOutcome.ACCEPTED;
+  }
+
+  private MutationOutcome recordVoteInVoterCollection(Show show, VoteTarget target, String clientIp) {
+    // The voter goes to its own collection; the Show only gets the count
+    Vote newVote = target.newVote(null);
+    MutationOutcome outcome = this.voterStore.record(show, newVote, clientIp, target.votingStat(newVote));
+    if (!outcome.isAccepted()) {
+      this.showMutationLanes.invalidate(show.getShowSubdomain());
+      return outcome;
+    }
+    this.voteCounted(show, target, newVote, null, clientIp);
+    return MutationOutcome.ACCEPTED;
+  }
+
+  /**
+   * Applies a counted vote to the loaded show so a lane's warm copy stays current.
+   *
+   * @param recordedVoter the voter appended to viewersVoted by the write, or null when it was not appended
+   */
+  private void voteCounted(Show show, VoteTarget target, Vote newVote, String recordedVoter, String clientIp) {
+    if (show.getVotes() == null) {
+      show.setVotes(new ArrayList<>());
+    }
+    Optional<Vote> existingVote = show.getVotes().stream()
+        .filter(target::matches)
+        .findFirst();
+    if (existingVote.isPresent()) {
+      if (recordedVoter != null) {
+        // Copied once into a mutable list, then appended in place; copying on every vote is O(voters)
+        List<String> viewersVoted = existingVote.get().getViewersVoted();
+        if (!(viewersVoted instanceof ArrayList)) {
+          viewersVoted = new ArrayList<>(viewersVoted != null ? viewersVoted : List.of());
+          existingVote.get().setViewersVoted(viewersVoted);
+        }
+        viewersVoted.add(recordedVoter);
+      }
+      existingVote.get().setVotes(existingVote.get().getVotes() + 1);
+      existingVote.get().setLastVoteTime(newVote.getLastVoteTime());
+    } else {
+      newVote.setViewersVoted(new ArrayList<>(newVote.getViewersVoted()));
+      show.getVotes().add(newVote);
+    }
+    this.viewerMembership.voted(show, clientIp);
+  }
+
+  private MutationOutcome conditionalAppendRejected(String showSubdomain, List<Request> requests, String clientIp) {
+    // The show we validated against was out of date; read it again only to tell the viewer why
+    this.showMutationLanes.invalidate(showSubdomain);
+    return this.queueRejection(showSubdomain, this.showRepository.findByShowSubdomainForMutations(showSubdomain),
+        requests, clientIp);
+  }
+
+  private MutationOutcome queueRejection(String showSubdomain, Optional<Show> show,
+      List<Request> requests, String clientIp) {
+    if (show.isPresent()) {
+      if (this.hasViewerRequested(show.get(), clientIp)) {
+        return MutationOutcome.rejected(StatusResponse.ALREADY_REQUESTED);
+      }
+      if (this.isQueueFull(show.get())) {
+        return MutationOutcome.rejected(StatusResponse.QUEUE_FULL);
+      }
+      for (Request request : requests) {
+        if (this.isRequestedSequenceWithinRequestLimit(show.get(), request.getSequence())) {
+          return MutationOutcome.rejected(StatusResponse.SEQUENCE_REQUESTED);
+        }
+      }
+    }
+    log.errorf("Conditional queue append rejected without a matching rule: showSubdomain=%s", showSubdomain);
+    return MutationOutcome.rejected(StatusResponse.UNEXPECTED_ERROR);
+  }
+
+  /*******
+   * Reactive stack (viewer.api.stack=reactive)
+   * Same rules as above as Mutiny pipelines on ReactiveShowRepository, so no thread waits on Mongo.
+   * Queue appends are always conditional and votes always atomic: both are single updates that need no
+   * read-modify-write on the loaded show.
+   *******/
+  public Uni<Boolean> insertViewerPageStatsUni(String showSubdomain, LocalDateTime date, String clientIp) {
+    if (StringUtils.isEmpty(clientIp)) {
+      return Uni.createFrom().item(true); // Skip if no IP available
+    }
+    if (this.pageStatService.isTimeSeries()) {
+      // The owner IP cache reads Mongo on a miss, so this runs on a worker thread
+      return Uni.createFrom().item(() -> this.pageStatService.record(showSubdomain, clientIp, date))
+          .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+    Stat.Page pageStat = Stat.Page.builder()
+        .ip(clientIp)
+        .dateTime(date)
+        .build();
+    return this.reactiveShowRepository.appendPageStatIfNotOwner(showSubdomain, clientIp, pageStat)
+        .map(modifiedCount -> modifiedCount > 0);
+  }
+
+  public Uni<Boolean> updateActiveViewersUni(String showSubdomain, String clientIp) {
+    // Heartbeats are in-memory; only an owner IP cache miss reads Mongo, so this runs on a worker thread
+    return Uni.createFrom().item(() -> this.updateActiveViewers(showSubdomain, clientIp))
+        .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+  }
+
+  public Uni<Boolean> updatePlayingNowUni(String showSubdomain, String playingNow) {
+    return this.reactiveShowRepository.updatePlayingNow(showSubdomain, playingNow).map(matchedCount -> {
+      if (matchedCount > 0) {
+        this.showStateChanged(showSubdomain, "playingNow");
+        return true;
+      }
+      log.errorf("updatePlayingNow unexpected: show not found for subdomain=%s, playingNow=%s", showSubdomain, playingNow);
+      throw CustomGraphQLExceptionResolver.of(StatusResponse.UNEXPECTED_ERROR);
+    });
+  }
+
+  public Uni<Boolean> updatePlayingNextUni(String showSubdomain, String playingNext) {
+    return this.reactiveShowRepository.updatePlayingNext(showSubdomain, playingNext).map(matchedCount -> {
+      if (matchedCount > 0) {
+        this.showStateChanged(showSubdomain, "playingNext");
+        return true;
+      }
+      log.errorf("updatePlayingNext unexpected: show not found for subdomain=%s, playingNext=%s", showSubdomain, playingNext);
+      throw CustomGraphQLExceptionResolver.of(StatusResponse.UNEXPECTED_ERROR);
+    });
+  }
+
+  public Uni<MutationOutcome> tryAddSequenceToQueueUni(String showSubdomain, String name, Float latitude,
+      Float longitude, String clientIp) {
+    return this.reactiveShowRepository.findByShowSubdomainForMutations(showSubdomain).chain(show -> {
+      QueueSelection selection = this.selectForQueue(show, showSubdomain, name, latitude, longitude, clientIp);
+      if (!selection.outcome().isAccepted()) {
+        return Uni.createFrom().item(selection.outcome());
+      }
+      Show existingShow = show.get();
+      Optional<PsaSequence> nextPsa = this.nextAutoPsa(existingShow);
+      if (this.requestStore.isCollection()) {
+        // The request collection uses the blocking repositories
+        return Uni.createFrom()
+            .item(() -> this.appendToRequestCollection(showSubdomain, existingShow, selection, nextPsa, clientIp))
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+      }
+      return this.reactiveShowRepository
+          .allocatePositionBlock(existingShow, selection.sequences().size() + (nextPsa.isPresent() ? 1 : 0))
+          .chain(startPosition -> {
+            List<Request> requests = selection.toRequests(startPosition, clientIp);
+            Stat.Jukebox jukeboxStat = selection.toJukeboxStat();
+            ScheduledPsa psa = nextPsa
+                .map(next -> this.schedulePsa(existingShow, next, startPosition + requests.size()))
+                .orElse(null);
+            return this.reactiveShowRepository.appendRequestsIfAllowed(showSubdomain, requests, jukeboxStat, clientIp, psa)
+                .chain(requestsToday -> requestsToday > 0
+                    ? Uni.createFrom().item(this.queueAppended(showSubdomain, existingShow, requests, psa, requestsToday))
+                    : this.reactiveShowRepository.findByShowSubdomainForMutations(showSubdomain)
+                        .map(current -> this.queueRejection(showSubdomain, current, requests, clientIp)));
+          });
+    });
+  }
+
+  public Uni<MutationOutcome> tryVoteForSequenceUni(String showSubdomain, String name, Float latitude,
+      Float longitude, String clientIp) {
+    return this.reactiveShowRepository.findByShowSubdomainForMutations(showSubdomain).chain(show -> {
+      VoteTarget target = this.selectForVote(show, showSubdomain, name, latitude, longitude, clientIp);
+      if (!target.outcome().isAccepted()) {
+        return Uni.createFrom().item(target.outcome());
+      }
+      if (this.voterStore.isCollection()) {
+        // The voter collection protocol uses the blocking repositories
+        return Uni.createFrom().item(() -> this.recordVoteInVoterCollection(show.get(), target, clientIp))
+            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+            .map(outcome -> {
+              if (outcome.isAccepted()) {
+                this.showStateChanged(showSubdomain, "votes");
+                viewerMetrics.recordVoteSuccess();
+              }
+              return outcome;
+            });
+      }
+      Vote newVote = target.newVote(clientIp);
+      return this.reactiveShowRepository.recordVoteIfNotVoted(showSubdomain, newVote, clientIp, target.votingStat(newVote))
+          .map(modifiedCount -> {
+            if (modifiedCount == 0) {
+              return MutationOutcome.rejected(StatusResponse.ALREADY_VOTED);
+            }
+            this.showStateChanged(showSubdomain, "votes");
+            viewerMetrics.recordVoteSuccess();
+            return MutationOutcome.ACCEPTED;
+          });
+    });
+  }
+
+  private void showStateChanged(String showSubdomain, String reason) {
+    this.showSnapshotCache.invalidate(showSubdomain);
+    this.showEventService.publish(showSubdomain, reason);
   }
 
   private Boolean hasViewerRequested(Show show, String ipAddress) {
     if (BooleanUtils.isTrue(show.getPreferences().getCheckIfRequested())) {
-      return show.getRequests().stream()
-          .anyMatch(request -> StringUtils.equalsIgnoreCase(ipAddress, request.getViewerRequested()));
+      return this.viewerMembership.hasRequested(show, ipAddress);
     }
     return false;
   }
 
   private Boolean hasViewerVoted(Show show, String ipAddress) {
     if (BooleanUtils.isTrue(show.getPreferences().getCheckIfVoted())) {
-      return show.getVotes().stream().anyMatch(vote -> vote.getViewersVoted().contains(ipAddress));
+      return this.viewerMembership.hasVoted(show, ipAddress);
     }
     return false;
   }
@@ -308,35 +660,10 @@ public class GraphQLMutationService {
     return false;
   }
 
-  private Boolean isViewerPresent(Show show, Float latitude, Float longitude) {
-    if (show.getPreferences().getLocationCheckMethod() == LocationCheckMethod.GEO) {
-      if (latitude == null || longitude == null) {
-        return false;
-      }
-      if (show.getPreferences().getAllowedRadius() == null) {
-        log.errorf("GPS check enabled but allowedRadius is null for show: %s", show.getShowSubdomain());
-        return false;
-      }
-      Double distance = LocationUtil.asTheCrowFlies(
-          show.getPreferences().getShowLatitude(),
-          show.getPreferences().getShowLongitude(),
-          latitude,
-          longitude);
-      return distance <= show.getPreferences().getAllowedRadius();
-    }
-    return true;
-  }
-
-  private void checkIfSequenceRequested(Show show, Sequence requestedSequence) {
-    if (this.isRequestedSequencePlayingNow(show, requestedSequence)) {
-      throw new CustomGraphQLExceptionResolver(StatusResponse.SEQUENCE_REQUESTED.name());
-    }
-    if (this.isRequestedSequencePlayingNext(show, requestedSequence)) {
-      throw new CustomGraphQLExceptionResolver(StatusResponse.SEQUENCE_REQUESTED.name());
-    }
-    if (this.isRequestedSequenceWithinRequestLimit(show, requestedSequence)) {
-      throw new CustomGraphQLExceptionResolver(StatusResponse.SEQUENCE_REQUESTED.name());
-    }
+  private boolean isSequenceAlreadyRequested(Show show, Sequence requestedSequence) {
+    return this.isRequestedSequencePlayingNow(show, requestedSequence)
+        || this.isRequestedSequencePlayingNext(show, requestedSequence)
+        || this.isRequestedSequenceWithinRequestLimit(show, requestedSequence);
   }
 
   private Boolean isRequestedSequencePlayingNow(Show show, Sequence requestedSequence) {
@@ -353,50 +680,12 @@ public class GraphQLMutationService {
 
   private Boolean isRequestedSequenceWithinRequestLimit(Show show, Sequence requestedSequence) {
     if (show.getPreferences().getJukeboxRequestLimit() != 0) {
-      List<String> requestNamesLastToFirst = show.getRequests().stream()
-          .sorted(Comparator.comparing(Request::getPosition)
-              .reversed())
-          .limit(show.getPreferences().getJukeboxRequestLimit())
-          .map(request -> request.getSequence().getName())
-          .toList();
-      return requestNamesLastToFirst.contains(requestedSequence.getName());
+      return this.viewerMembership
+          .isAmongLast(show, show.getPreferences().getJukeboxRequestLimit(), requestedSequence.getName());
     }
     return false;
   }
 
-  private void saveSequenceRequest(String showSubdomain, Show show, Sequence requestedSequence, String ipAddress) {
-    long nextPosition = this.showRepository.nextRequestPosition(show);
-    Request request = Request.builder()
-        .sequence(requestedSequence)
-        .ownerRequested(false)
-        .viewerRequested(StringUtils.isEmpty(ipAddress) ? "" : ipAddress)
-        .position(Math.toIntExact(nextPosition))
-        .build();
-    this.showRepository.appendRequest(showSubdomain, request);
-    if (CollectionUtils.isEmpty(show.getRequests())) {
-      show.setRequests(new ArrayList<>());
-    }
-    show.getRequests().add(request);
-  }
-
-  private void handlePsaForJukeboxInline(String showSubdomain, Show show, int requestsMadeToday) {
-    // Inline PSA handling that doesn't require re-fetching show
-    if (requestsMadeToday % show.getPreferences().getPsaFrequency() == 0) {
-      Optional<PsaSequence> nextPsaSequence = show.getPsaSequences().stream()
-          .min(Comparator.comparing(PsaSequence::getLastPlayed)
-              .thenComparing(PsaSequence::getOrder));
-      if (nextPsaSequence.isPresent()) {
-        Optional<Sequence> sequenceToAdd = show.getSequences().stream()
-            .filter(sequence -> StringUtils.equalsIgnoreCase(sequence.getName(), nextPsaSequence.get().getName()))
-            .findFirst();
-        show.getPsaSequences().get(show.getPsaSequences().indexOf(nextPsaSequence.get()))
-            .setLastPlayed(LocalDateTime.now());
-        this.showRepository.updatePsaSequences(showSubdomain, show.getPsaSequences());
-        sequenceToAdd.ifPresent(sequence -> this.saveSequenceRequest(showSubdomain, show, sequence, "PSA"));
-      }
-    }
-  }
-
   private void saveSequenceVote(Show show, Sequence votedSequence, String ipAddress, Boolean isGrouped) {
     Optional<Vote> sequenceVotes = show.getVotes().stream()
         .filter(vote -> vote.getSequence() != null)
@@ -472,4 +761,65 @@ public class GraphQLMutationService {
       this.showRepository.addNewVoteAndStat(show.getShowSubdomain(), newVote, votingStat);
     }
   }
+
+  private record QueueSelection(List<Sequence> sequences, String statName, boolean group, MutationOutcome outcome) {
+    static QueueSelection rejected(StatusResponse status) {
+      return new QueueSelection(List.of(), null, false, MutationOutcome.rejected(status));
+    }
+
+    List<Request> toRequests(long startPosition, String clientIp) {
+      // Build all requests using allocated positions
+      List<Request> requests = new ArrayList<>();
+      for (int i = 0; i < this.sequences.size(); i++) {
+        requests.add(Request.builder()
+            .sequence(this.sequences.get(i))
+            .ownerRequested(false)
+            .viewerRequested(StringUtils.isEmpty(clientIp) ? "" : clientIp)
+            .position(Math.toIntExact(startPosition + i))
+            .build());
+      }
+      return requests;
+    }
+
+    Stat.Jukebox toJukeboxStat() {
+      return Stat.Jukebox.builder()
+          .dateTime(LocalDateTime.now())
+          .name(this.statName)
+          .build();
+    }
+  }
+
+  private record VoteTarget(Sequence sequence, SequenceGroup sequenceGroup, MutationOutcome outcome) {
+    static VoteTarget rejected(StatusResponse status) {
+      return new VoteTarget(null, null, MutationOutcome.rejected(status));
+    }
+
+    String name() {
+      return this.sequenceGroup != null ? this.sequenceGroup.getName() : this.sequence.getName();
+    }
+
+    boolean matches(Vote vote) {
+      return this.sequenceGroup != null
+          ? vote.getSequenceGroup() != null && StringUtils.equals(vote.getSequenceGroup().getName(), this.name())
+          : vote.getSequence() != null && StringUtils.equals(vote.getSequence().getName(), this.name());
+    }
+
+    Vote newVote(String voterIp) {
+      return Vote.builder()
+          .sequence(this.sequence)
+          .sequenceGroup(this.sequenceGroup)
+          .ownerVoted(false)
+          .lastVoteTime(LocalDateTime.now())
+          .viewersVoted(voterIp != null ? List.of(voterIp) : List.of())
+          .votes(1)
+          .build();
+    }
+
+    Stat.Voting votingStat(Vote newVote) {
+      return Stat.Voting.builder()
+          .dateTime(newVote.getLastVoteTime())
+          .name(this.name())
+          .build();
+    }
+  }
 }
@@ -1,11 +1,20 @@
 package com.remotefalcon.service;
 
+import com.remotefalcon.cache.ShowSnapshotCache;
+import com.remotefalcon.cache.ShowSnapshotKey;
+import com.remotefalcon.cache.SingleFlight;
 import com.remotefalcon.library.models.Request;
 import com.remotefalcon.library.models.Sequence;
 import com.remotefalcon.library.models.SequenceGroup;
 import com.remotefalcon.library.models.ViewerPage;
 import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.metrics.ViewerMetrics;
+import com.remotefalcon.repository.ReactiveShowRepository;
 import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.repository.ViewerProjection;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import lombok.extern.jbosslog.JBossLog;
@@ -19,17 +28,144 @@ import java.util.Optional;
 @JBossLog
 @ApplicationScoped
 public class GraphQLQueryService {
+  private static final ViewerProjection QUEUE_PROJECTION = ViewerProjection.forSelectedFields(List.of("requests"));
+
   @Inject
   ShowRepository showRepository;
 
+  @Inject
+  ReactiveShowRepository reactiveShowRepository;
+
+  @Inject
+  ShowSnapshotCache showSnapshotCache;
+
+  @Inject
+  ViewerMembershipIndex viewerMembership;
+
+  @Inject
+  ViewerMetrics viewerMetrics;
+
+  @Inject
+  RequestStore requestStore;
+
+  private SingleFlight<ShowSnapshotKey, Show> showLoads;
+
+  @PostConstruct
+  void init() {
+    this.showLoads = new SingleFlight<>(this.viewerMetrics::recordShowFetch, this.viewerMetrics::recordShowFetchCoalesced);
+  }
+
   public Show getShow(String showSubdomain) {
-    // Use optimized query that excludes stats and sensitive fields
-    Optional<Show> show = this.showRepository.findByShowSubdomainForViewer(showSubdomain);
+    return this.getShow(showSubdomain, ViewerProjection.FULL);
+  }
+
+  public Show getShow(String showSubdomain, ViewerProjection projection) {
+    Show cachedShow = this.showSnapshotCache.get(showSubdomain, projection);
+    if (cachedShow != null) {
+      return cachedShow;
+    }
+    // Concurrent misses for the same subdomain share one Mongo read and one processed snapshot
+    return this.showLoads.execute(new ShowSnapshotKey(showSubdomain, projection), () -> {
+      // Capture the stamp before reading so a concurrent mutation invalidates this load
+      long stamp = this.showSnapshotCache.stamp();
+      Show show = this.loadShow(showSubdomain, projection);
+      this.showSnapshotCache.put(showSubdomain, projection, stamp, show);
+      return show;
+    });
+  }
+
+  /**
+   * Non-blocking {@link #getShow(String, ViewerProjection)} for viewer.api.stack=reactive: same snapshot cache
+   * and load coalescing, with the Mongo read on the reactive client.
+   */
+  public Uni<Show> getShowUni(String showSubdomain, ViewerProjection projection) {
+    Show cachedShow = this.showSnapshotCache.get(showSubdomain, projection);
+    if (cachedShow != null) {
+      return Uni.createFrom().item(cachedShow);
+    }
+    return Uni.createFrom().completionStage(() -> this.showLoads.executeAsync(
+        new ShowSnapshotKey(showSubdomain, projection), () -> {
+          long stamp = this.showSnapshotCache.stamp();
+          Uni<Optional<Show>> loaded = this.reactiveShowRepository.findByShowSubdomainForViewer(showSubdomain, projection);
+          if (this.needsQueuePage(projection)) {
+            // The request collection uses the blocking repository
+            loaded = loaded.emitOn(Infrastructure.getDefaultWorkerPool())
+                .map(show -> this.withQueuePage(showSubdomain, show));
+          }
+          return loaded
+              .map(show -> {
+                Show viewerShow = this.toViewerShow(show);
+                this.showSnapshotCache.put(showSubdomain, projection, stamp, viewerShow);
+                return viewerShow;
+              })
+              .subscribeAsCompletionStage();
+        }));
+  }
+
+  private Show loadShow(String showSubdomain, ViewerProjection projection) {
+    // Use optimized query that excludes stats and sensitive fields, narrowed to the selection when possible
+    Optional<Show> show = projection.isFull()
+        ? this.showRepository.findByShowSubdomainForViewer(showSubdomain)
+        : this.showRepository.findByShowSubdomainForViewer(showSubdomain, projection);
+    return this.toViewerShow(this.needsQueuePage(projection) ? this.withQueuePage(showSubdomain, show) : show);
+  }
+
+  private boolean needsQueuePage(ViewerProjection projection) {
+    return this.requestStore.isCollection()
+        && (projection.isFull() || projection.includedFields().contains("requests"));
+  }
+
+  /**
+   * With viewer.queue.storage=collection the show ships the first page of the queue from the request collection;
+   * its head is the playingNext request.
+   */
+  private Optional<Show> withQueuePage(String showSubdomain, Optional<Show> show) {
+    show.ifPresent(existingShow -> existingShow.setRequests(new ArrayList<>(this.requestStore.firstPage(showSubdomain))));
+    return show;
+  }
+
+  /**
+   * Up to {@code limit} queued requests (at most viewer.queue.page-size) after position {@code afterPosition},
+   * in queue order, for paging past the requests shipped with getShow. A null position starts at the head.
+   */
+  public List<Request> getQueue(String showSubdomain, Integer afterPosition, Integer limit) {
+    long after = afterPosition != null ? afterPosition : 0;
+    if (this.requestStore.isCollection()) {
+      return this.requestStore.page(showSubdomain, after, limit);
+    }
+    return this.queuePage(this.getShow(showSubdomain, QUEUE_PROJECTION), after, limit);
+  }
+
+  public Uni<List<Request>> getQueueUni(String showSubdomain, Integer afterPosition, Integer limit) {
+    long after = afterPosition != null ? afterPosition : 0;
+    if (this.requestStore.isCollection()) {
+      return Uni.createFrom().item(() -> this.requestStore.page(showSubdomain, after, limit))
+          .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+    return this.getShowUni(showSubdomain, QUEUE_PROJECTION).map(show -> this.queuePage(show, after, limit));
+  }
+
+  private List<Request> queuePage(Show show, long afterPosition, Integer limit) {
+    if (show == null || show.getRequests() == null) {
+      return List.of();
+    }
+    // The snapshot is shared, so page over a sorted copy
+    return show.getRequests().stream()
+        .filter(request -> request.getPosition() != null && request.getPosition() > afterPosition)
+        .sorted(Comparator.comparing(Request::getPosition))
+        .limit(this.requestStore.pageLimit(limit))
+        .toList();
+  }
+
+  private Show toViewerShow(Optional<Show> show) {
     if (show.isPresent()) {
       Show existingShow = show.get();
-      this.updatePlayingNow(existingShow);
-      this.updatePlayingNext(existingShow);
-      existingShow.setSequences(this.processSequencesForViewer(existingShow));
+      // Fields outside the projection are null, so only derive what was loaded
+      if (existingShow.getSequences() != null) {
+        this.updatePlayingNow(existingShow);
+        this.updatePlayingNext(existingShow);
+        existingShow.setSequences(this.processSequencesForViewer(existingShow));
+      }
       existingShow.setPages(this.filterActivePageOnly(existingShow.getPages()));
     }
     return show.orElse(null);
@@ -47,8 +183,7 @@ public class GraphQLQueryService {
 
   private void updatePlayingNext(Show show) {
     // Get next from request list
-    Optional<Request> nextRequest = show.getRequests().stream()
-        .min(Comparator.comparing(Request::getPosition));
+    Optional<Request> nextRequest = this.viewerMembership.head(show);
     nextRequest.ifPresent(request -> {
       show.setPlayingNext(request.getSequence().getDisplayName());
       show.setPlayingNextSequence(request.getSequence());
@@ -93,6 +228,9 @@ public class GraphQLQueryService {
   }
 
   private List<SequenceGroup> filterSequenceGroups(List<SequenceGroup> sequenceGroups) {
+    if (sequenceGroups == null) {
+      return List.of();
+    }
     return sequenceGroups.stream()
         .filter(group -> group.getVisibilityCount() == 0)
         .toList();
@@ -131,11 +269,26 @@ public class GraphQLQueryService {
   }
 
   public String activeViewerPage(String showSubdomain) {
+    return this.findActiveViewerPage(showSubdomain).orElse("");
+  }
+
+  /**
+   * The active page's HTML, empty when the show has no active page, or an empty Optional when there is no such show.
+   */
+  public Optional<String> findActiveViewerPage(String showSubdomain) {
     // Optimized: Fetch only the pages array (not entire Show document)
     // Java iteration over 1-5 pages is faster than complex MongoDB projection
-    Optional<Show> show = this.showRepository.findPagesOnlyByShowSubdomain(showSubdomain);
-    if (show.isPresent() && show.get().getPages() != null) {
-      return show.get().getPages().stream()
+    return this.showRepository.findPagesOnlyByShowSubdomain(showSubdomain).map(this::activeViewerPageHtml);
+  }
+
+  public Uni<String> activeViewerPageUni(String showSubdomain) {
+    return this.reactiveShowRepository.findPagesOnlyByShowSubdomain(showSubdomain)
+        .map(show -> show.map(this::activeViewerPageHtml).orElse(""));
+  }
+
+  private String activeViewerPageHtml(Show show) {
+    if (show.getPages() != null) {
+      return show.getPages().stream()
           .filter(ViewerPage::getActive)
           .findFirst()
           .map(ViewerPage::getHtml)
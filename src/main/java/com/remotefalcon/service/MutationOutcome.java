@@ -0,0 +1,60 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.enums.StatusResponse;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Result of a viewer queue or vote mutation. A rejection (NAUGHTY, QUEUE_FULL, ALREADY_VOTED, ...) is a normal
+ * result rather than an exception, so turning a viewer away costs about as much as accepting them. There is one
+ * instance per rejection; GraphQL callers turn it into an error with {@link #orThrow()}, REST callers read
+ * {@link #rejection()} directly.
+ */
+public final class MutationOutcome {
+  public static final MutationOutcome ACCEPTED = new MutationOutcome(null);
+
+  private static final Map<String, MutationOutcome> REJECTIONS = Arrays.stream(StatusResponse.values())
+      .collect(Collectors.toMap(StatusResponse::name, status -> new MutationOutcome(status.name()),
+          (first, second) -> first, ConcurrentHashMap::new));
+
+  private final String rejection;
+
+  private MutationOutcome(String rejection) {
+    this.rejection = rejection;
+  }
+
+  public static MutationOutcome rejected(StatusResponse status) {
+    return rejected(status.name());
+  }
+
+  public static MutationOutcome rejected(String rejection) {
+    return REJECTIONS.computeIfAbsent(rejection, MutationOutcome::new);
+  }
+
+  public boolean isAccepted() {
+    return this.rejection == null;
+  }
+
+  /**
+   * The status the viewer is told, or null when the mutation was accepted.
+   */
+  public String rejection() {
+    return this.rejection;
+  }
+
+  public Boolean orThrow() {
+    if (this.rejection == null) {
+      return true;
+    }
+    throw CustomGraphQLExceptionResolver.of(this.rejection);
+  }
+
+  @Override
+  public String toString() {
+    return this.rejection == null ? "ACCEPTED" : this.rejection;
+  }
+}
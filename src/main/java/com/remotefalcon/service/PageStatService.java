@@ -0,0 +1,133 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.cache.ShowOwnerCache;
+import com.remotefalcon.metrics.ViewerMetrics;
+import com.remotefalcon.repository.PageStatRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records page views when viewer.page-stats.storage=timeseries. Views are buffered and written to the
+ * time-series collection in batches; the owner's IP comes from {@link ShowOwnerCache},
+ * so recording a view never reads the Show document itself.
+ * The buffer holds at most viewer.page-stats.max-buffered views; while Mongo can't keep up, further views are
+ * dropped and counted instead of growing the heap.
+ */
+@JBossLog
+@ApplicationScoped
+public class PageStatService {
+  public enum Storage { EMBEDDED, TIMESERIES }
+
+  @Inject
+  PageStatRepository pageStatRepository;
+
+  @Inject
+  ShowOwnerCache showOwnerCache;
+
+  @ConfigProperty(name = "viewer.page-stats.storage", defaultValue = "embedded")
+  Storage storage;
+
+  @ConfigProperty(name = "viewer.page-stats.flush-interval", defaultValue = "1s")
+  Duration flushInterval;
+
+  @ConfigProperty(name = "viewer.page-stats.batch-size", defaultValue = "500")
+  int batchSize;
+
+  @ConfigProperty(name = "viewer.page-stats.max-buffered", defaultValue = "10000")
+  int maxBuffered;
+
+  @Inject
+  ViewerMetrics viewerMetrics;
+
+  private final ConcurrentLinkedQueue<Document> buffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger buffered = new AtomicInteger();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean();
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  void init() {
+    if (this.isTimeSeries()) {
+      this.executor = Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("page-stats-flush").daemon().factory());
+      this.executor.scheduleWithFixedDelay(this::flush,
+          this.flushInterval.toMillis(), this.flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (this.executor != null) {
+      this.executor.shutdown();
+      this.flush();
+    }
+  }
+
+  public boolean isTimeSeries() {
+    return this.storage == Storage.TIMESERIES;
+  }
+
+  /**
+   * Buffers a page view unless it comes from the show owner. Returns false for the owner or an unknown show;
+   * a view dropped because the buffer is full still counts as recorded for the viewer.
+   */
+  public boolean record(String showSubdomain, String clientIp, LocalDateTime dateTime) {
+    Optional<String> ownerIp = this.showOwnerCache.ownerIp(showSubdomain);
+    if (ownerIp.isEmpty() || StringUtils.equals(ownerIp.get(), clientIp)) {
+      return false;
+    }
+    // Reserve the slot before adding, so concurrent views can't push the buffer past its bound
+    int buffered = this.buffered.incrementAndGet();
+    if (buffered > this.maxBuffered) {
+      this.buffered.decrementAndGet();
+      this.viewerMetrics.recordPageStatDropped();
+      return true;
+    }
+    LocalDateTime viewTime = dateTime != null ? dateTime : LocalDateTime.now();
+    this.buffer.add(new Document("dateTime", Date.from(viewTime.toInstant(ZoneOffset.UTC)))
+        .append("meta", new Document("showSubdomain", showSubdomain).append("ip", clientIp)));
+    if (buffered >= this.batchSize && this.flushScheduled.compareAndSet(false, true)) {
+      this.executor.execute(() -> {
+        this.flushScheduled.set(false);
+        this.flush();
+      });
+    }
+    return true;
+  }
+
+  public void flush() {
+    while (!this.buffer.isEmpty()) {
+      List<Document> batch = new ArrayList<>(this.batchSize);
+      Document pageStat;
+      while (batch.size() < this.batchSize && (pageStat = this.buffer.poll()) != null) {
+        batch.add(pageStat);
+      }
+      this.buffered.addAndGet(-batch.size());
+      try {
+        this.pageStatRepository.insertAll(batch);
+      } catch (Exception e) {
+        // Page views are best-effort; drop the batch rather than let the buffer grow without bound
+        log.errorf(e, "Failed to write %d page stats", batch.size());
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.remotefalcon.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remotefalcon.library.models.PsaSequence;
+import com.remotefalcon.library.quarkus.entity.Show;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Picks the PSA to play next for a loaded show: the one played longest ago, ties broken by order.
+ * Each Show instance gets its own rotation, a heap over its psaSequences (weak, identity-compared keys as in
+ * {@link ViewerMembershipIndex}), so a lane's warm copy finds the next PSA in O(1) and moves a played PSA to
+ * the back in O(log n) instead of scanning and re-sorting the list on every PSA.
+ */
+@ApplicationScoped
+public class PsaScheduler {
+  private static final Comparator<PsaSequence> BY_NEXT_TO_PLAY = Comparator
+      .comparing(PsaSequence::getLastPlayed, Comparator.nullsFirst(Comparator.naturalOrder()))
+      .thenComparing(PsaSequence::getOrder, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  private final Cache<Show, Rotation> rotationsByShow = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+
+  /**
+   * The PSA to queue next, or empty when the show has no PSA sequences.
+   */
+  public Optional<PsaSequence> next(Show show) {
+    return Optional.ofNullable(this.rotationOf(show).peek(show));
+  }
+
+  /**
+   * Records that the PSA returned by {@link #next(Show)} was queued at {@code playedAt}: sets its lastPlayed
+   * on the loaded show and moves it behind every PSA played earlier.
+   */
+  public void played(Show show, LocalDateTime playedAt) {
+    this.rotationOf(show).played(show, playedAt);
+  }
+
+  private Rotation rotationOf(Show show) {
+    return this.rotationsByShow.get(show, key -> new Rotation());
+  }
+
+  /**
+   * Holds the show's psaSequences list rather than the show, so the weak key can still be collected.
+   */
+  private static final class Rotation {
+    private final PriorityQueue<PsaSequence> heap = new PriorityQueue<>(BY_NEXT_TO_PLAY);
+    private List<PsaSequence> indexedPsas;
+    private int indexedPsaCount;
+
+    synchronized PsaSequence peek(Show show) {
+      this.sync(show);
+      return this.heap.peek();
+    }
+
+    synchronized void played(Show show, LocalDateTime playedAt) {
+      this.sync(show);
+      PsaSequence psa = this.heap.poll();
+      if (psa != null) {
+        psa.setLastPlayed(playedAt);
+        this.heap.add(psa);
+      }
+    }
+
+    private void sync(Show show) {
+      List<PsaSequence> psas = show.getPsaSequences();
+      if (psas != this.indexedPsas || psas == null || psas.size() != this.indexedPsaCount) {
+        // Newly loaded or replaced: build the heap once
+        this.heap.clear();
+        if (psas != null) {
+          this.heap.addAll(psas);
+        }
+        this.indexedPsas = psas;
+        this.indexedPsaCount = psas != null ? psas.size() : 0;
+      }
+    }
+  }
+}
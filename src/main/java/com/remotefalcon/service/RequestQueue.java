@@ -0,0 +1,110 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.quarkus.entity.Show;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * The requests of one loaded {@link Show} ordered by position, for head-of-queue and last-N lookups without
+ * re-sorting. Requests appended to the show's list are merged in on the next lookup (appends normally carry the
+ * highest position, so this is an add at the end); the order is rebuilt only when the list is replaced or
+ * shrinks, i.e. for a newly loaded show. Sorting only pays off on a show that serves many lookups, such as a
+ * mutation lane's warm copy; a show loaded for a single lookup uses {@link #scanHead} and {@link #scanAmongLast}.
+ * Not thread-safe, like {@link ViewerMembership}.
+ */
+public final class RequestQueue {
+  private static final Comparator<Request> BY_POSITION =
+      Comparator.comparing(Request::getPosition, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  private final ArrayList<Request> ordered = new ArrayList<>();
+  private List<Request> indexedRequests;
+  private int indexedRequestCount;
+
+  /**
+   * The request with the lowest position, i.e. the one that plays next.
+   */
+  public Optional<Request> head(Show show) {
+    this.sync(show);
+    return this.ordered.isEmpty() ? Optional.empty() : Optional.of(this.ordered.get(0));
+  }
+
+  /**
+   * Whether one of the {@code count} requests with the highest positions is for {@code sequenceName}.
+   */
+  public boolean isAmongLast(Show show, int count, String sequenceName) {
+    this.sync(show);
+    int stop = Math.max(0, this.ordered.size() - count);
+    for (int i = this.ordered.size() - 1; i >= stop; i--) {
+      Request request = this.ordered.get(i);
+      if (request.getSequence() != null && Objects.equals(request.getSequence().getName(), sequenceName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@link #head} as a single pass that builds nothing.
+   */
+  public static Optional<Request> scanHead(Show show) {
+    return show.getRequests() == null ? Optional.empty() : show.getRequests().stream().min(BY_POSITION);
+  }
+
+  /**
+   * {@link #isAmongLast} as a single pass that only keeps the {@code count} highest positions seen so far.
+   */
+  public static boolean scanAmongLast(Show show, int count, String sequenceName) {
+    List<Request> requests = show.getRequests();
+    if (requests == null || count <= 0) {
+      return false;
+    }
+    PriorityQueue<Request> last = new PriorityQueue<>(Math.min(count, requests.size()) + 1, BY_POSITION);
+    for (Request request : requests) {
+      last.add(request);
+      if (last.size() > count) {
+        last.poll();
+      }
+    }
+    return last.stream().anyMatch(request ->
+        request.getSequence() != null && Objects.equals(request.getSequence().getName(), sequenceName));
+  }
+
+  private void sync(Show show) {
+    List<Request> requests = show.getRequests();
+    if (requests == null) {
+      this.ordered.clear();
+      this.indexedRequests = null;
+      this.indexedRequestCount = 0;
+      return;
+    }
+    if (requests != this.indexedRequests || requests.size() < this.indexedRequestCount) {
+      // Newly loaded, replaced or shrunk: sort once (Mongo returns the queue in append order, so this is cheap)
+      this.ordered.clear();
+      this.ordered.addAll(requests);
+      this.ordered.sort(BY_POSITION);
+      this.indexedRequests = requests;
+      this.indexedRequestCount = requests.size();
+      return;
+    }
+    for (int i = this.indexedRequestCount; i < requests.size(); i++) {
+      this.insert(requests.get(i));
+    }
+    this.indexedRequestCount = requests.size();
+  }
+
+  private void insert(Request request) {
+    if (this.ordered.isEmpty() || BY_POSITION.compare(this.ordered.get(this.ordered.size() - 1), request) <= 0) {
+      this.ordered.add(request);
+      return;
+    }
+    int index = Collections.binarySearch(this.ordered, request, BY_POSITION);
+    this.ordered.add(index >= 0 ? index + 1 : -index - 1, request);
+  }
+}
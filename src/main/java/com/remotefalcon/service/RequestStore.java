@@ -0,0 +1,139 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.enums.StatusResponse;
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Stat;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.RequestRepository;
+import com.remotefalcon.repository.ScheduledPsa;
+import com.remotefalcon.repository.ShowRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.apache.commons.lang3.BooleanUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Queues requests when viewer.queue.storage=collection. Requests go to {@link RequestRepository}, one document
+ * each, and the Show document only gets the jukebox stat and daily count. The queue rules can no longer be part
+ * of the append itself, so an append inserts its requests first and then checks depth, duplicate viewer and
+ * request limit against every other queued request, taking its requests back out when one fails. Of two
+ * conflicting appends the one that checks last always sees the other, so both can be rejected when they
+ * overlap exactly, but never both accepted.
+ * Requests in the Show's requests array are not moved over, so switch while the queue is empty.
+ */
+@JBossLog
+@ApplicationScoped
+public class RequestStore {
+  public enum Storage { EMBEDDED, COLLECTION }
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  RequestRepository requestRepository;
+
+  @ConfigProperty(name = "viewer.queue.storage", defaultValue = "embedded")
+  Storage storage;
+
+  @ConfigProperty(name = "viewer.queue.page-size", defaultValue = "50")
+  int pageSize;
+
+  public record Appended(MutationOutcome outcome, long requestsToday) {
+    static Appended rejected(StatusResponse status) {
+      return new Appended(MutationOutcome.rejected(status), 0);
+    }
+  }
+
+  public boolean isCollection() {
+    return this.storage == Storage.COLLECTION;
+  }
+
+  /**
+   * Allocates positions for {@code count} requests after the last queued one.
+   */
+  public long allocatePositions(Show show, int count) {
+    long lastPosition = this.requestRepository.lastPosition(show.getShowSubdomain());
+    return this.showRepository.allocatePositionBlock(show, lastPosition, count);
+  }
+
+  /**
+   * Queues the requests if the show's queue rules hold with them in the queue, then counts the jukebox request
+   * and queues {@code psa} (null when the show has no app-managed PSAs) when that count makes it due.
+   */
+  public Appended append(Show show, List<Request> requests, String viewerIp, Stat.Jukebox stat, ScheduledPsa psa) {
+    String showSubdomain = show.getShowSubdomain();
+    Set<Integer> positions = requests.stream().map(Request::getPosition).collect(Collectors.toSet());
+    if (!this.requestRepository.insertAll(showSubdomain, requests)) {
+      // Only when positions come from scan allocation, which concurrent appends can share
+      log.warnf("Requests not queued, position already taken: showSubdomain=%s, positions=%s", showSubdomain, positions);
+      return Appended.rejected(StatusResponse.UNEXPECTED_ERROR);
+    }
+    StatusResponse broken = this.brokenRule(show, requests, viewerIp, positions);
+    if (broken != null) {
+      this.requestRepository.deleteAll(showSubdomain, positions);
+      return Appended.rejected(broken);
+    }
+    long requestsToday = this.showRepository.countJukeboxRequest(showSubdomain, stat, psa);
+    if (requestsToday == 0) {
+      log.errorf("Jukebox request not counted, show not found: showSubdomain=%s", showSubdomain);
+      this.requestRepository.deleteAll(showSubdomain, positions);
+      return Appended.rejected(StatusResponse.UNEXPECTED_ERROR);
+    }
+    if (psa != null && psa.isDue(requestsToday) && psa.request() != null
+        && !this.requestRepository.insertAll(showSubdomain, List.of(psa.request()))) {
+      log.warnf("PSA not queued, position already taken: showSubdomain=%s, psa=%s", showSubdomain, psa.name());
+    }
+    return new Appended(MutationOutcome.ACCEPTED, requestsToday);
+  }
+
+  /**
+   * The first page of the queue, as shipped with the show.
+   */
+  public List<Request> firstPage(String showSubdomain) {
+    return this.requestRepository.page(showSubdomain, 0, this.pageSize);
+  }
+
+  /**
+   * Up to {@code limit} requests (at most viewer.queue.page-size, which is also the default) queued after
+   * {@code afterPosition}.
+   */
+  public List<Request> page(String showSubdomain, long afterPosition, Integer limit) {
+    return this.requestRepository.page(showSubdomain, afterPosition, this.pageLimit(limit));
+  }
+
+  public int pageLimit(Integer limit) {
+    return limit == null || limit <= 0 ? this.pageSize : Math.min(limit, this.pageSize);
+  }
+
+  private StatusResponse brokenRule(Show show, List<Request> requests, String viewerIp, Set<Integer> positions) {
+    String showSubdomain = show.getShowSubdomain();
+    if (BooleanUtils.isTrue(show.getPreferences().getCheckIfRequested())
+        && this.requestRepository.hasRequestFrom(showSubdomain, viewerIp, positions)) {
+      return StatusResponse.ALREADY_REQUESTED;
+    }
+    int depth = show.getPreferences().getJukeboxDepth();
+    if (depth != 0 && this.requestRepository.count(showSubdomain, positions, depth) >= depth) {
+      return StatusResponse.QUEUE_FULL;
+    }
+    int requestLimit = show.getPreferences().getJukeboxRequestLimit();
+    if (requestLimit != 0) {
+      Set<String> requested = requests.stream()
+          .map(request -> request.getSequence().getName())
+          .collect(Collectors.toSet());
+      boolean recentlyRequested = this.requestRepository.last(showSubdomain, requestLimit, positions).stream()
+          .map(Request::getSequence)
+          .filter(Objects::nonNull)
+          .anyMatch(sequence -> requested.contains(sequence.getName()));
+      if (recentlyRequested) {
+        return StatusResponse.SEQUENCE_REQUESTED;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,249 @@
+package com.remotefalcon.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.metrics.ViewerMetrics;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.response.ShowStateResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.ServiceUnavailableException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the live state of a show (playing now/next, queue, vote counts) to Server-Sent Event subscribers
+ * so viewer pages don't have to poll getShow. Each frame is built and serialized once per change and then
+ * written to every subscriber of the show. Frames carry the full live state, so a subscriber that falls
+ * behind simply skips frames until it catches up.
+ */
+@JBossLog
+@ApplicationScoped
+public class ShowEventService {
+  // Fields that change what a subscriber sees
+  private static final List<String> LIVE_STATE_FIELDS = List.of("playingNow", "playingNext", "requests", "votes");
+
+  @Inject
+  GraphQLQueryService graphQLQueryService;
+
+  @Inject
+  ObjectMapper objectMapper;
+
+  @Inject
+  ViewerMetrics viewerMetrics;
+
+  @Inject
+  MeterRegistry meterRegistry;
+
+  @ConfigProperty(name = "viewer.sse.max-subscribers-per-show", defaultValue = "5000")
+  int maxSubscribersPerShow;
+
+  @ConfigProperty(name = "viewer.sse.max-pending-frames", defaultValue = "4")
+  int maxPendingFrames;
+
+  @ConfigProperty(name = "viewer.sse.keepalive-interval", defaultValue = "30s")
+  Duration keepaliveInterval;
+
+  private final ConcurrentHashMap<String, ShowSubscribers> subscribersByShow = new ConcurrentHashMap<>();
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+  private ScheduledExecutorService executor;
+  private volatile Sse sse;
+
+  @PostConstruct
+  void init() {
+    this.executor = Executors.newScheduledThreadPool(2, Thread.ofPlatform().name("show-events-", 0).daemon().factory());
+    this.executor.scheduleAtFixedRate(this::sendKeepalives,
+        this.keepaliveInterval.toMillis(), this.keepaliveInterval.toMillis(), TimeUnit.MILLISECONDS);
+    Gauge.builder("viewer_sse_subscribers", this.subscriberCount, AtomicInteger::get)
+        .description("Open Server-Sent Event subscriptions")
+        .register(this.meterRegistry);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    this.executor.shutdownNow();
+    this.subscribersByShow.values().forEach(subscribers -> subscribers.sinks.keySet().forEach(SseEventSink::close));
+  }
+
+  public void subscribe(String showSubdomain, SseEventSink eventSink, Sse sse) {
+    this.sse = sse;
+    Show show = this.graphQLQueryService.getShow(showSubdomain);
+    if (show == null) {
+      throw new NotFoundException();
+    }
+    ShowSubscribers subscribers = this.subscribersByShow.compute(showSubdomain, (key, existing) -> {
+      ShowSubscribers current = existing != null ? existing : new ShowSubscribers();
+      if (current.sinks.size() >= this.maxSubscribersPerShow) {
+        throw new ServiceUnavailableException(30L);
+      }
+      current.sinks.put(eventSink, new Subscriber());
+      return current;
+    });
+    this.subscriberCount.incrementAndGet();
+    OutboundSseEvent initialFrame = this.buildFrame("state", show);
+    if (initialFrame != null) {
+      subscribers.latestFrame = initialFrame;
+      this.send(showSubdomain, subscribers, eventSink, initialFrame);
+    }
+  }
+
+  /**
+   * Queues a state frame for the show's subscribers. Cheap when nobody is subscribed, and several
+   * publishes arriving before the frame is built collapse into one.
+   */
+  public void publish(String showSubdomain, String reason) {
+    ShowSubscribers subscribers = this.subscribersByShow.get(showSubdomain);
+    if (subscribers == null || subscribers.sinks.isEmpty() || this.sse == null) {
+      return;
+    }
+    if (!subscribers.publishPending.compareAndSet(false, true)) {
+      return;
+    }
+    this.executor.execute(() -> {
+      subscribers.publishPending.set(false);
+      try {
+        OutboundSseEvent frame = this.buildFrame(reason, this.graphQLQueryService.getShow(showSubdomain));
+        if (frame != null) {
+          subscribers.latestFrame = frame;
+          subscribers.sinks.keySet().forEach(sink -> this.send(showSubdomain, subscribers, sink, frame));
+        }
+      } catch (Exception e) {
+        log.errorf(e, "Failed to publish show state: showSubdomain=%s", showSubdomain);
+      }
+    });
+  }
+
+  void onShowChanged(@Observes ShowChangeEvent event) {
+    // Picks up changes made by other pods, the control panel and the plugin
+    if (event.showSubdomain() != null && event.touchesAny(LIVE_STATE_FIELDS)) {
+      this.publish(event.showSubdomain(), "state");
+    }
+  }
+
+  private OutboundSseEvent buildFrame(String reason, Show show) {
+    if (show == null) {
+      return null;
+    }
+    try {
+      String json = this.objectMapper.writeValueAsString(toState(show));
+      return this.sse.newEventBuilder()
+          .name(reason)
+          .mediaType(MediaType.TEXT_PLAIN_TYPE)
+          .data(String.class, json)
+          .build();
+    } catch (JsonProcessingException e) {
+      log.errorf(e, "Failed to serialize show state: showSubdomain=%s", show.getShowSubdomain());
+      return null;
+    }
+  }
+
+  static ShowStateResponse toState(Show show) {
+    List<String> queue = show.getRequests() == null ? List.of() : show.getRequests().stream()
+        .sorted(Comparator.comparing(Request::getPosition))
+        .map(request -> request.getSequence() != null ? request.getSequence().getDisplayName() : null)
+        .filter(Objects::nonNull)
+        .toList();
+    Map<String, Integer> votes = new LinkedHashMap<>();
+    if (show.getVotes() != null) {
+      for (Vote vote : show.getVotes()) {
+        String name = vote.getSequence() != null ? vote.getSequence().getName()
+            : vote.getSequenceGroup() != null ? vote.getSequenceGroup().getName() : null;
+        if (name != null) {
+          votes.merge(name, vote.getVotes(), Integer::sum);
+        }
+      }
+    }
+    return ShowStateResponse.builder()
+        .playingNow(show.getPlayingNow())
+        .playingNext(show.getPlayingNext())
+        .queue(queue)
+        .votes(votes)
+        .build();
+  }
+
+  private void send(String showSubdomain, ShowSubscribers subscribers, SseEventSink sink, OutboundSseEvent frame) {
+    Subscriber subscriber = subscribers.sinks.get(sink);
+    if (subscriber == null) {
+      return;
+    }
+    if (sink.isClosed()) {
+      this.remove(showSubdomain, subscribers, sink);
+      return;
+    }
+    if (subscriber.pendingFrames.incrementAndGet() > this.maxPendingFrames) {
+      // Slow consumer: skip this frame and send the latest state once its backlog drains
+      subscriber.pendingFrames.decrementAndGet();
+      subscriber.behind = true;
+      this.viewerMetrics.recordSseFrameDropped();
+      return;
+    }
+    sink.send(frame).whenComplete((ignored, error) -> {
+      subscriber.pendingFrames.decrementAndGet();
+      if (error != null) {
+        this.remove(showSubdomain, subscribers, sink);
+        return;
+      }
+      OutboundSseEvent latestFrame = subscribers.latestFrame;
+      if (subscriber.behind && latestFrame != null) {
+        subscriber.behind = false;
+        this.send(showSubdomain, subscribers, sink, latestFrame);
+      }
+    });
+  }
+
+  private void remove(String showSubdomain, ShowSubscribers subscribers, SseEventSink sink) {
+    if (subscribers.sinks.remove(sink) != null) {
+      this.subscriberCount.decrementAndGet();
+      sink.close();
+    }
+    // Drop the entry atomically with respect to subscribe() so no sink is added to a detached set
+    this.subscribersByShow.computeIfPresent(showSubdomain, (key, current) ->
+        current == subscribers && current.sinks.isEmpty() ? null : current);
+  }
+
+  private void sendKeepalives() {
+    if (this.sse == null) {
+      return;
+    }
+    // Comment frames keep proxies from timing out idle streams and surface closed connections
+    OutboundSseEvent keepalive = this.sse.newEventBuilder().comment("keepalive").build();
+    this.subscribersByShow.forEach((showSubdomain, subscribers) ->
+        subscribers.sinks.keySet().forEach(sink -> this.send(showSubdomain, subscribers, sink, keepalive)));
+  }
+
+  int subscriberCount(String showSubdomain) {
+    ShowSubscribers subscribers = this.subscribersByShow.get(showSubdomain);
+    return subscribers == null ? 0 : subscribers.sinks.size();
+  }
+
+  private static class ShowSubscribers {
+    final Map<SseEventSink, Subscriber> sinks = new ConcurrentHashMap<>();
+    final AtomicBoolean publishPending = new AtomicBoolean();
+    volatile OutboundSseEvent latestFrame;
+  }
+
+  private static class Subscriber {
+    // Frames handed to the sink but not yet flushed to the client
+    final AtomicInteger pendingFrames = new AtomicInteger();
+    volatile boolean behind;
+  }
+}
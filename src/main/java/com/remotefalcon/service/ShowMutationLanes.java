@@ -0,0 +1,245 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.repository.ShowRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Runs the queue and vote mutations of each show one at a time on a per-show lane, a mailbox drained by
+ * a single consumer on its own virtual thread, so a slow show never holds up the lanes of other shows.
+ * Each lane keeps a warm copy of the show (as loaded for mutations) that the mutations
+ * validate against and update in place after their writes, so a busy show is read from Mongo once per
+ * state TTL instead of once per viewer. A change made outside the lanes to anything but requests, votes,
+ * PSA state and stats drops the copy right away. Changes to those fields can't be told apart from the lanes'
+ * own writes, so instead a rejection based on a warm copy (e.g. ALREADY_VOTED after the plugin reset the votes)
+ * is checked again against a fresh read before the viewer sees it. Acceptances need no such check, since lane
+ * writes are conditional and Mongo re-checks the rules. Lanes idle for longer than the idle timeout are evicted.
+ */
+@JBossLog
+@ApplicationScoped
+public class ShowMutationLanes {
+  // Fields the lanes write themselves; a change to only these must not throw away every warm copy
+  private static final List<String> LANE_FIELDS = List.of("requests", "votes", "psaSequences", "stats",
+      "queuePositionCounter", "jukeboxRequestsToday", "jukeboxRequestsByDay", "votingRound", "votingRoundCounted");
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  ViewerMembershipIndex viewerMembership;
+
+  @ConfigProperty(name = "viewer.mutation-lanes.enabled", defaultValue = "false")
+  boolean enabled;
+
+  @ConfigProperty(name = "viewer.mutation-lanes.state-ttl", defaultValue = "2s")
+  Duration stateTtl;
+
+  @ConfigProperty(name = "viewer.mutation-lanes.idle-timeout", defaultValue = "5m")
+  Duration idleTimeout;
+
+  private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+  private ExecutorService executor;
+  private ScheduledExecutorService evictor;
+
+  @PostConstruct
+  void init() {
+    if (this.enabled) {
+      this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("show-mutation-lane-", 0).factory());
+      this.evictor = Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("show-mutation-lane-evictor").daemon().factory());
+      this.evictor.scheduleWithFixedDelay(this::evictIdle,
+          this.idleTimeout.toMillis(), this.idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (this.executor != null) {
+      this.evictor.shutdown();
+      this.executor.shutdown();
+    }
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Runs {@code mutation} on the show's lane with its warm copy (empty when the show does not exist)
+   * and waits for the result. A rejection (returned as a rejected {@link MutationOutcome} or thrown as a
+   * {@link CustomGraphQLExceptionResolver}) against a warm copy runs {@code mutation} once more against a fresh
+   * read, and its answer stands. Any other failure drops the copy so the next mutation starts from a fresh read.
+   */
+  public <T> T execute(String showSubdomain, Function<Optional<Show>, T> mutation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    Lane[] target = new Lane[1];
+    // Enqueue inside compute so an eviction can never remove a lane that has just been given work
+    this.lanes.compute(showSubdomain, (key, lane) -> {
+      Lane current = lane != null ? lane : new Lane(key);
+      current.mailbox.add(() -> {
+        try {
+          boolean warm = current.isWarm();
+          Object value = applyRejecting(mutation, current.state());
+          if (warm && value instanceof Rejection) {
+            current.invalidate();
+            value = applyRejecting(mutation, current.state());
+          }
+          result.complete(unwrap(value));
+        } catch (CustomGraphQLExceptionResolver e) {
+          result.completeExceptionally(e);
+        } catch (RuntimeException e) {
+          current.invalidate();
+          result.completeExceptionally(e);
+        }
+      });
+      current.lastUsed = System.nanoTime();
+      target[0] = current;
+      return current;
+    });
+    target[0].schedule();
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Drops the warm copy of the show, e.g. after a conditional write showed it was out of date.
+   */
+  public void invalidate(String showSubdomain) {
+    Lane lane = this.lanes.get(showSubdomain);
+    if (lane != null) {
+      lane.invalidate();
+    }
+  }
+
+  /**
+   * {@code mutation}'s result, wrapped in a {@link Rejection} when it is a rejected {@link MutationOutcome}
+   * or a thrown {@link CustomGraphQLExceptionResolver}.
+   */
+  private static Object applyRejecting(Function<Optional<Show>, ?> mutation, Optional<Show> show) {
+    try {
+      Object value = mutation.apply(show);
+      return value instanceof MutationOutcome outcome && !outcome.isAccepted() ? new Rejection(null, value) : value;
+    } catch (CustomGraphQLExceptionResolver e) {
+      return new Rejection(e, null);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T unwrap(Object value) {
+    if (value instanceof Rejection rejection) {
+      if (rejection.exception() != null) {
+        throw rejection.exception();
+      }
+      return (T) rejection.value();
+    }
+    return (T) value;
+  }
+
+  private record Rejection(CustomGraphQLExceptionResolver exception, Object value) {
+  }
+
+  void onShowChanged(@Observes ShowChangeEvent event) {
+    if (event.showSubdomain() == null) {
+      this.lanes.values().forEach(Lane::invalidate);
+    } else if (!event.touchesOnly(LANE_FIELDS)) {
+      this.invalidate(event.showSubdomain());
+    }
+  }
+
+  void evictIdle() {
+    long cutoff = System.nanoTime() - this.idleTimeout.toNanos();
+    this.lanes.keySet().forEach(showSubdomain -> this.lanes.computeIfPresent(showSubdomain, (key, lane) ->
+        lane.mailbox.isEmpty() && !lane.scheduled.get() && lane.lastUsed - cutoff < 0 ? null : lane));
+  }
+
+  int laneCount() {
+    return this.lanes.size();
+  }
+
+  private class Lane {
+    final String showSubdomain;
+    final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean scheduled = new AtomicBoolean();
+    volatile long lastUsed = System.nanoTime();
+    volatile boolean stale;
+    // Only touched by the lane's consumer
+    Show show;
+    long loadedAt;
+
+    Lane(String showSubdomain) {
+      this.showSubdomain = showSubdomain;
+    }
+
+    void schedule() {
+      if (this.scheduled.compareAndSet(false, true)) {
+        ShowMutationLanes.this.executor.execute(this::drain);
+      }
+    }
+
+    void drain() {
+      Runnable task;
+      while ((task = this.mailbox.poll()) != null) {
+        task.run();
+      }
+      this.scheduled.set(false);
+      if (!this.mailbox.isEmpty()) {
+        this.schedule();
+      }
+    }
+
+    /**
+     * True when {@link #state()} would answer from the copy rather than from a fresh read.
+     */
+    boolean isWarm() {
+      return this.show != null && !this.stale
+          && System.nanoTime() - this.loadedAt <= ShowMutationLanes.this.stateTtl.toNanos();
+    }
+
+    Optional<Show> state() {
+      long now = System.nanoTime();
+      if (this.show == null || this.stale || now - this.loadedAt > ShowMutationLanes.this.stateTtl.toNanos()) {
+        this.stale = false;
+        this.show = ShowMutationLanes.this.showRepository.findByShowSubdomainForMutations(this.showSubdomain)
+            .orElse(null);
+        if (this.show != null) {
+          // Serves mutations until the next reload, so its duplicate checks are worth indexing
+          ShowMutationLanes.this.viewerMembership.retain(this.show);
+        }
+        this.loadedAt = now;
+      }
+      return Optional.ofNullable(this.show);
+    }
+
+    void invalidate() {
+      this.stale = true;
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.Preference;
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.models.SequenceGroup;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.util.IpRange;
+import lombok.extern.jbosslog.JBossLog;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Immutable lookups the queue and vote rules need from a show's configuration (preferences, sequences and
+ * sequence groups), built once per configuration version instead of on every mutation: the blocked IPs as a
+ * hash set plus CIDR blocks, sequences and groups by case-insensitive name, each group's sequences sorted by
+ * order, and the trigonometry of the show's own location for the GEO check.
+ */
+@JBossLog
+public final class ShowValidationContext {
+  // Same constants as LocationUtil.asTheCrowFlies: degrees of arc to statute miles
+  private static final double MILES_PER_DEGREE = 60 * 1.1515;
+
+  private final String showSubdomain;
+  private final long version;
+  private final Set<String> blockedIps;
+  private final List<IpRange> blockedRanges;
+  private final Map<String, Sequence> sequencesByName;
+  private final Map<String, SequenceGroup> sequenceGroupsByName;
+  private final Map<String, List<Sequence>> sequencesByGroup;
+  private final boolean geoCheck;
+  private final boolean radiusMissing;
+  private final double showLatitude;
+  private final double showLongitude;
+  private final double sinShowLatitude;
+  private final double cosShowLatitude;
+  // A viewer is within the radius when the cosine of their angular distance is at least this
+  private final double minCosDistance;
+
+  private ShowValidationContext(Show show, long version) {
+    this.showSubdomain = show.getShowSubdomain();
+    this.version = version;
+    Preference preferences = show.getPreferences();
+
+    Set<String> ips = new HashSet<>();
+    List<IpRange> ranges = new ArrayList<>();
+    if (preferences != null && preferences.getBlockedViewerIps() != null) {
+      for (String blocked : preferences.getBlockedViewerIps()) {
+        if (blocked == null) {
+          continue;
+        }
+        Optional<IpRange> range = IpRange.parse(blocked);
+        if (range.isPresent()) {
+          ranges.add(range.get());
+        } else {
+          ips.add(blocked);
+        }
+      }
+    }
+    this.blockedIps = Set.copyOf(ips);
+    this.blockedRanges = List.copyOf(ranges);
+
+    Map<String, Sequence> sequences = new HashMap<>();
+    Map<String, List<Sequence>> groups = new HashMap<>();
+    if (show.getSequences() != null) {
+      for (Sequence sequence : show.getSequences()) {
+        // First match wins, as with the stream scan it replaces
+        if (sequence.getName() != null) {
+          sequences.putIfAbsent(key(sequence.getName()), sequence);
+        }
+        if (sequence.getGroup() != null) {
+          groups.computeIfAbsent(key(sequence.getGroup()), group -> new ArrayList<>()).add(sequence);
+        }
+      }
+    }
+    Map<String, SequenceGroup> sequenceGroups = new HashMap<>();
+    if (show.getSequenceGroups() != null) {
+      for (SequenceGroup sequenceGroup : show.getSequenceGroups()) {
+        if (sequenceGroup.getName() != null) {
+          sequenceGroups.putIfAbsent(key(sequenceGroup.getName()), sequenceGroup);
+        }
+      }
+    }
+    Map<String, List<Sequence>> sortedGroups = new HashMap<>();
+    // Built for every group up front, so a sequence without an order must not fail the whole show
+    Comparator<Sequence> byOrder = Comparator.comparing(Sequence::getOrder, Comparator.nullsLast(Comparator.naturalOrder()));
+    groups.forEach((group, members) -> sortedGroups.put(group, members.stream().sorted(byOrder).toList()));
+    this.sequencesByName = Map.copyOf(sequences);
+    this.sequenceGroupsByName = Map.copyOf(sequenceGroups);
+    this.sequencesByGroup = Map.copyOf(sortedGroups);
+
+    this.geoCheck = preferences != null && preferences.getLocationCheckMethod() == LocationCheckMethod.GEO;
+    this.radiusMissing = this.geoCheck && (preferences.getAllowedRadius() == null
+        || preferences.getShowLatitude() == null || preferences.getShowLongitude() == null);
+    if (this.geoCheck && !this.radiusMissing) {
+      this.showLatitude = preferences.getShowLatitude();
+      this.showLongitude = preferences.getShowLongitude();
+      this.sinShowLatitude = Math.sin(Math.toRadians(this.showLatitude));
+      this.cosShowLatitude = Math.cos(Math.toRadians(this.showLatitude));
+      double radiusRadians = Math.toRadians(preferences.getAllowedRadius() / MILES_PER_DEGREE);
+      this.minCosDistance = radiusRadians >= Math.PI ? -1.0 : Math.cos(radiusRadians);
+    } else {
+      this.showLatitude = 0;
+      this.showLongitude = 0;
+      this.sinShowLatitude = 0;
+      this.cosShowLatitude = 0;
+      this.minCosDistance = 0;
+    }
+  }
+
+  public static ShowValidationContext of(Show show, long version) {
+    return new ShowValidationContext(show, version);
+  }
+
+  public long version() {
+    return this.version;
+  }
+
+  public boolean isIpBlocked(String ipAddress) {
+    if (ipAddress == null) {
+      return false;
+    }
+    if (this.blockedIps.contains(ipAddress)) {
+      return true;
+    }
+    if (this.blockedRanges.isEmpty()) {
+      return false;
+    }
+    byte[] address = IpRange.toBytes(ipAddress);
+    for (IpRange range : this.blockedRanges) {
+      if (range.contains(address)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public Optional<Sequence> sequence(String name) {
+    return name == null ? Optional.empty() : Optional.ofNullable(this.sequencesByName.get(key(name)));
+  }
+
+  public Optional<SequenceGroup> sequenceGroup(String name) {
+    return name == null ? Optional.empty() : Optional.ofNullable(this.sequenceGroupsByName.get(key(name)));
+  }
+
+  /**
+   * Sequences of the group, sorted by order.
+   */
+  public List<Sequence> groupSequences(String groupName) {
+    return groupName == null ? List.of() : this.sequencesByGroup.getOrDefault(key(groupName), List.of());
+  }
+
+  public boolean isViewerPresent(Float latitude, Float longitude) {
+    if (!this.geoCheck) {
+      return true;
+    }
+    if (latitude == null || longitude == null) {
+      return false;
+    }
+    if (this.radiusMissing) {
+      log.errorf("GPS check enabled but allowedRadius or show location is null for show: %s", this.showSubdomain);
+      return false;
+    }
+    if (this.showLatitude == latitude && this.showLongitude == longitude) {
+      return true;
+    }
+    // Spherical law of cosines, compared in cosine space so no acos is needed per viewer
+    double cosDistance = this.sinShowLatitude * Math.sin(Math.toRadians(latitude))
+        + this.cosShowLatitude * Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(this.showLongitude - longitude));
+    return cosDistance >= this.minCosDistance;
+  }
+
+  private static String key(String name) {
+    return StringUtils.lowerCase(name, Locale.ROOT);
+  }
+}
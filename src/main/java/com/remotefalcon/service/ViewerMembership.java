@@ -0,0 +1,106 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Hash index of the IPs that have requested and voted in one loaded {@link Show}, so the duplicate checks are a
+ * set lookup instead of a walk over every request and every vote's voter list. Each set is built on first use.
+ * Requests appended to the show's list afterwards are picked up on the next lookup; voters recorded in memory
+ * must be reported with {@link #voted(String)}. Building the sets costs a pass over every voter and requester, so
+ * it only pays off on a show that serves many mutations, such as a mutation lane's warm copy; a show loaded for a
+ * single mutation is checked with {@link #scanRequested} and {@link #scanVoted} instead.
+ * Not thread-safe: a lane's copy is only used by one mutation at a time.
+ */
+public final class ViewerMembership {
+  private Set<String> requesters;
+  private List<Request> indexedRequests;
+  private int indexedRequestCount;
+  private Set<String> voters;
+
+  /**
+   * Same match as comparing viewerRequested with equalsIgnoreCase.
+   */
+  public boolean hasRequested(Show show, String ipAddress) {
+    List<Request> requests = show.getRequests();
+    if (requests == null || ipAddress == null) {
+      return false;
+    }
+    if (this.requesters == null || requests != this.indexedRequests || requests.size() < this.indexedRequestCount) {
+      // First use, or the list was replaced or shrank: index it from the start
+      this.requesters = new HashSet<>();
+      this.indexedRequests = requests;
+      this.indexedRequestCount = 0;
+    }
+    for (int i = this.indexedRequestCount; i < requests.size(); i++) {
+      String viewerRequested = requests.get(i).getViewerRequested();
+      if (viewerRequested != null) {
+        this.requesters.add(key(viewerRequested));
+      }
+    }
+    this.indexedRequestCount = requests.size();
+    return this.requesters.contains(key(ipAddress));
+  }
+
+  public boolean hasVoted(Show show, String ipAddress) {
+    if (this.voters == null) {
+      this.voters = new HashSet<>();
+      if (show.getVotes() != null) {
+        for (Vote vote : show.getVotes()) {
+          if (vote.getViewersVoted() != null) {
+            this.voters.addAll(vote.getViewersVoted());
+          }
+        }
+      }
+    }
+    return this.voters.contains(ipAddress);
+  }
+
+  public void voted(String ipAddress) {
+    if (this.voters != null) {
+      this.voters.add(ipAddress);
+    }
+  }
+
+  /**
+   * {@link #hasRequested} as a single pass that builds nothing.
+   */
+  public static boolean scanRequested(Show show, String ipAddress) {
+    List<Request> requests = show.getRequests();
+    if (requests == null || ipAddress == null) {
+      return false;
+    }
+    for (Request request : requests) {
+      if (StringUtils.equalsIgnoreCase(request.getViewerRequested(), ipAddress)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * {@link #hasVoted} as a single pass that builds nothing.
+   */
+  public static boolean scanVoted(Show show, String ipAddress) {
+    if (show.getVotes() == null) {
+      return false;
+    }
+    for (Vote vote : show.getVotes()) {
+      if (vote.getViewersVoted() != null && vote.getViewersVoted().contains(ipAddress)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String key(String ipAddress) {
+    return StringUtils.lowerCase(ipAddress, Locale.ROOT);
+  }
+}
@@ -0,0 +1,72 @@
+package com.remotefalcon.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.quarkus.entity.Show;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.Optional;
+
+/**
+ * Answers viewer membership and queue order lookups on a loaded show. Keys are weak and compared by identity, so
+ * every Show instance read from Mongo gets its own {@link ViewerMembership} and {@link RequestQueue} and they go
+ * away with the instance. Both are only built for shows that are {@link #retain retained}, i.e. a mutation lane's
+ * warm copy, which keeps them for its whole lifetime so a lookup skips the walk over every request and voter.
+ * A show loaded for one mutation or query is scanned once instead, which is cheaper than building an index or a
+ * sorted copy it would use a single time.
+ */
+@ApplicationScoped
+public class ViewerMembershipIndex {
+  private final Cache<Show, ViewerMembership> byShow = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+  private final Cache<Show, RequestQueue> queuesByShow = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+
+  /**
+   * Indexes the viewers and queue of {@code show} from now on, for a copy that will serve many mutations.
+   */
+  public void retain(Show show) {
+    this.byShow.get(show, key -> new ViewerMembership());
+    this.queuesByShow.get(show, key -> new RequestQueue());
+  }
+
+  public boolean hasRequested(Show show, String ipAddress) {
+    ViewerMembership membership = this.byShow.getIfPresent(show);
+    return membership != null ? membership.hasRequested(show, ipAddress) : ViewerMembership.scanRequested(show, ipAddress);
+  }
+
+  public boolean hasVoted(Show show, String ipAddress) {
+    ViewerMembership membership = this.byShow.getIfPresent(show);
+    return membership != null ? membership.hasVoted(show, ipAddress) : ViewerMembership.scanVoted(show, ipAddress);
+  }
+
+  /**
+   * Reports a voter recorded in memory on {@code show}.
+   */
+  public void voted(Show show, String ipAddress) {
+    ViewerMembership membership = this.byShow.getIfPresent(show);
+    if (membership != null) {
+      membership.voted(ipAddress);
+    }
+  }
+
+  /**
+   * The request that plays next, i.e. the one with the lowest position.
+   */
+  public Optional<Request> head(Show show) {
+    RequestQueue queue = this.queuesByShow.getIfPresent(show);
+    return queue != null ? queue.head(show) : RequestQueue.scanHead(show);
+  }
+
+  /**
+   * Whether one of the {@code count} requests with the highest positions is for {@code sequenceName}.
+   */
+  public boolean isAmongLast(Show show, int count, String sequenceName) {
+    RequestQueue queue = this.queuesByShow.getIfPresent(show);
+    return queue != null ? queue.isAmongLast(show, count, sequenceName)
+        : RequestQueue.scanAmongLast(show, count, sequenceName);
+  }
+}
@@ -0,0 +1,102 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.enums.StatusResponse;
+import com.remotefalcon.library.models.Stat;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.repository.VoterRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import lombok.extern.jbosslog.JBossLog;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records votes when viewer.vote.voter-store=collection. Voters go to {@link VoterRepository}, keyed by the show's
+ * voting round, and the Show document only gets the vote counts. A round is the votingRound id on the Show;
+ * once a vote has been counted in it, the next vote after the show's votes are reset (the plugin clears them
+ * when the winner plays) starts a new one. The count update only applies while the round the voter was recorded
+ * in is still current, so a vote that raced a reset is moved to the new round instead of the old one.
+ * Voters in the votes.viewersVoted arrays of shows that voted before the switch are still honoured, both on the
+ * loaded show and in the count update's filter, until their round ends.
+ */
+@JBossLog
+@ApplicationScoped
+public class VoterStore {
+  public enum Storage { EMBEDDED, COLLECTION }
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  VoterRepository voterRepository;
+
+  @ConfigProperty(name = "viewer.vote.voter-store", defaultValue = "embedded")
+  Storage storage;
+
+  // Last voting round seen per show; only a hint, the count update re-checks it
+  private final ConcurrentHashMap<String, String> rounds = new ConcurrentHashMap<>();
+
+  public boolean isCollection() {
+    return this.storage == Storage.COLLECTION;
+  }
+
+  /**
+   * Counts {@code vote} (a new Vote entry without viewersVoted, used when the show has none for its sequence
+   * or group yet) for {@code voterIp}. Rejects with ALREADY_VOTED when checkIfVoted is on and the viewer
+   * already voted in the current round.
+   */
+  public MutationOutcome record(Show show, Vote vote, String voterIp, Stat.Voting votingStat) {
+    String showSubdomain = show.getShowSubdomain();
+    if (!BooleanUtils.isTrue(show.getPreferences().getCheckIfVoted())) {
+      return this.showRepository.recordVote(showSubdomain, vote, votingStat) > 0
+          ? MutationOutcome.ACCEPTED
+          : MutationOutcome.rejected(StatusResponse.UNEXPECTED_ERROR);
+    }
+    String round = this.rounds.get(showSubdomain);
+    if (round == null || CollectionUtils.isEmpty(show.getVotes())) {
+      // Unknown round, or the votes were reset and this may be the first vote of a new one
+      round = this.claimRound(showSubdomain);
+    }
+    for (int attempt = 1; round != null && attempt <= MAX_ATTEMPTS; attempt++) {
+      boolean recorded = this.voterRepository.insertIfAbsent(showSubdomain, round, voterIp);
+      if (recorded && this.showRepository.recordVoteInRound(showSubdomain, vote, voterIp, votingStat, round) > 0) {
+        return MutationOutcome.ACCEPTED;
+      }
+      if (recorded) {
+        // Not counted, so take the voter back out before deciding why
+        this.voterRepository.delete(showSubdomain, round, voterIp);
+      }
+      // Still the same round: the viewer has voted in it (or is in a viewersVoted array from before the switch)
+      String current = this.claimRound(showSubdomain);
+      if (Objects.equals(current, round)) {
+        return MutationOutcome.rejected(StatusResponse.ALREADY_VOTED);
+      }
+      round = current;
+    }
+    if (round == null) {
+      log.errorf("Vote not recorded, show not found: showSubdomain=%s", showSubdomain);
+      return MutationOutcome.rejected(StatusResponse.UNEXPECTED_ERROR);
+    }
+    log.warnf("Vote not recorded, voting round kept changing: showSubdomain=%s", showSubdomain);
+    return MutationOutcome.rejected(StatusResponse.UNEXPECTED_ERROR);
+  }
+
+  private String claimRound(String showSubdomain) {
+    String round = this.showRepository.claimVotingRound(showSubdomain, new ObjectId().toHexString());
+    if (round == null) {
+      this.rounds.remove(showSubdomain);
+    } else {
+      this.rounds.put(showSubdomain, round);
+    }
+    return round;
+  }
+}
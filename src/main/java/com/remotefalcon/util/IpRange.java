@@ -0,0 +1,88 @@
+package com.remotefalcon.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An IPv4 or IPv6 CIDR block such as 203.0.113.0/24, for blocked viewer entries that cover a range.
+ */
+public record IpRange(byte[] network, int prefixLength) {
+  // Only literals are parsed, so a malformed entry or viewer IP can never turn into a DNS lookup. IPv4 is split by
+  // hand; InetAddress only sees values with a ':', which it always parses as IPv6 literals without resolving them
+  private static final Pattern IPV4_LITERAL = Pattern.compile("(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})");
+  private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+  /**
+   * Parses "address/prefix"; empty when the entry is not a valid CIDR block.
+   */
+  public static Optional<IpRange> parse(String cidr) {
+    int slash = cidr != null ? cidr.indexOf('/') : -1;
+    if (slash < 0) {
+      return Optional.empty();
+    }
+    byte[] address = toBytes(cidr.substring(0, slash).trim());
+    if (address == null) {
+      return Optional.empty();
+    }
+    int prefixLength;
+    try {
+      prefixLength = Integer.parseInt(cidr.substring(slash + 1).trim());
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+    if (prefixLength < 0 || prefixLength > address.length * 8) {
+      return Optional.empty();
+    }
+    return Optional.of(new IpRange(address, prefixLength));
+  }
+
+  /**
+   * Address bytes of an IP literal, or null when the value is not one.
+   */
+  public static byte[] toBytes(String ip) {
+    if (ip == null || ip.isEmpty()) {
+      return null;
+    }
+    Matcher ipv4 = IPV4_LITERAL.matcher(ip);
+    if (ipv4.matches()) {
+      byte[] address = new byte[4];
+      for (int i = 0; i < 4; i++) {
+        int octet = Integer.parseInt(ipv4.group(i + 1));
+        if (octet > 255) {
+          return null;
+        }
+        address[i] = (byte) octet;
+      }
+      return address;
+    }
+    if (!IPV6_LITERAL.matcher(ip).matches()) {
+      return null;
+    }
+    try {
+      return InetAddress.getByName(ip).getAddress();
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+
+  public boolean contains(byte[] address) {
+    if (address == null || address.length != this.network.length) {
+      return false;
+    }
+    int fullBytes = this.prefixLength / 8;
+    for (int i = 0; i < fullBytes; i++) {
+      if (address[i] != this.network[i]) {
+        return false;
+      }
+    }
+    int remainingBits = this.prefixLength % 8;
+    if (remainingBits == 0) {
+      return true;
+    }
+    int mask = (0xFF << (8 - remainingBits)) & 0xFF;
+    return (address[fullBytes] & mask) == (this.network[fullBytes] & mask);
+  }
+}
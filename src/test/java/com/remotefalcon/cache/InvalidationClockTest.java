@@ -0,0 +1,40 @@
+package com.remotefalcon.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvalidationClockTest {
+
+  @Test
+  @DisplayName("A stamp stays current until its own key is invalidated")
+  void staleOnlyForInvalidatedKey() {
+    InvalidationClock clock = new InvalidationClock(10);
+    long stamp = clock.stamp();
+
+    clock.invalidate("other");
+    assertTrue(clock.isCurrent("sub", stamp));
+
+    clock.invalidate("sub");
+    assertFalse(clock.isCurrent("sub", stamp));
+    assertTrue(clock.isCurrent("sub", clock.stamp()));
+  }
+
+  @Test
+  @DisplayName("Tracks no more than its bound, and stamps older than a forgotten invalidation stay stale")
+  void boundedTracking() {
+    InvalidationClock clock = new InvalidationClock(10);
+    long stamp = clock.stamp();
+    clock.invalidate("sub");
+
+    for (int i = 0; i < 1_000; i++) {
+      clock.isCurrent("unknown-" + i, stamp);
+      clock.invalidate("invalidated-" + i);
+    }
+
+    assertTrue(clock.trackedCount() <= 10, "tracked=" + clock.trackedCount());
+    assertFalse(clock.isCurrent("sub", stamp));
+    assertTrue(clock.isCurrent("sub", clock.stamp()));
+  }
+}
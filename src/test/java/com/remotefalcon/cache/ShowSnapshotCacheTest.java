@@ -0,0 +1,103 @@
+package com.remotefalcon.cache;
+
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.models.ViewerPage;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ViewerProjection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkus.runtime.configuration.MemorySize;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowSnapshotCacheTest {
+
+  private ShowSnapshotCache newCache(boolean enabled) {
+    return new ShowSnapshotCache(enabled, Duration.ofMinutes(1), Duration.ofMinutes(5),
+        new MemorySize(BigInteger.valueOf(1024 * 1024)), new SimpleMeterRegistry());
+  }
+
+  private Show show(String subdomain) {
+    Show show = new Show();
+    show.setShowSubdomain(subdomain);
+    show.setSequences(new ArrayList<>());
+    return show;
+  }
+
+  @Test
+  @DisplayName("Returns the cached snapshot until the subdomain is invalidated")
+  void returnsCachedUntilInvalidated() {
+    ShowSnapshotCache cache = newCache(true);
+    Show show = show("sub");
+
+    cache.put("sub", ViewerProjection.FULL, cache.stamp(), show);
+    assertSame(show, cache.get("sub", ViewerProjection.FULL));
+
+    cache.invalidate("sub");
+    assertNull(cache.get("sub", ViewerProjection.FULL));
+  }
+
+  @Test
+  @DisplayName("Drops a load that started before an invalidation")
+  void dropsStaleLoad() {
+    ShowSnapshotCache cache = newCache(true);
+    long stamp = cache.stamp();
+
+    cache.invalidate("sub");
+    cache.put("sub", ViewerProjection.FULL, stamp, show("sub"));
+
+    assertNull(cache.get("sub", ViewerProjection.FULL));
+  }
+
+  @Test
+  @DisplayName("Keeps one snapshot per projection and invalidates them together")
+  void cachesPerProjection() {
+    ShowSnapshotCache cache = newCache(true);
+    ViewerProjection narrow = new ViewerProjection(Set.of("playingNow", "sequences"));
+    Show full = show("sub");
+    Show partial = show("sub");
+
+    cache.put("sub", ViewerProjection.FULL, cache.stamp(), full);
+    cache.put("sub", narrow, cache.stamp(), partial);
+    assertSame(full, cache.get("sub", ViewerProjection.FULL));
+    assertSame(partial, cache.get("sub", narrow));
+
+    cache.invalidate("sub");
+    assertNull(cache.get("sub", ViewerProjection.FULL));
+    assertNull(cache.get("sub", narrow));
+  }
+
+  @Test
+  @DisplayName("Never caches when disabled")
+  void disabledNeverCaches() {
+    ShowSnapshotCache cache = newCache(false);
+
+    cache.put("sub", ViewerProjection.FULL, cache.stamp(), show("sub"));
+
+    assertNull(cache.get("sub", ViewerProjection.FULL));
+  }
+
+  @Test
+  @DisplayName("Weighs shows by the size of their collections and page html")
+  void weighsBySize() {
+    Show small = show("small");
+    Show large = show("large");
+    List<Sequence> sequences = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      sequences.add(new Sequence());
+    }
+    large.setSequences(sequences);
+    ViewerPage page = new ViewerPage();
+    page.setHtml("x".repeat(10_000));
+    large.setPages(List.of(page));
+
+    assertTrue(ShowSnapshotCache.estimateWeight(large) > ShowSnapshotCache.estimateWeight(small));
+  }
+}
@@ -0,0 +1,59 @@
+package com.remotefalcon.cache;
+
+import com.remotefalcon.library.models.Preference;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.service.ShowValidationContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowValidationContextCacheTest {
+
+  // The test profile turns this cache off, so it is built here directly
+  private ShowValidationContextCache newCache() {
+    return new ShowValidationContextCache(true, Duration.ofMinutes(1), Duration.ofMinutes(5));
+  }
+
+  private Show show(String... blockedIps) {
+    Show show = new Show();
+    show.setShowSubdomain("sub");
+    Preference preferences = new Preference();
+    preferences.setBlockedViewerIps(Set.of(blockedIps));
+    show.setPreferences(preferences);
+    return show;
+  }
+
+  @Test
+  @DisplayName("A context stays cached until the show's configuration changes")
+  void cachedUntilConfigChanges() {
+    ShowValidationContextCache cache = newCache();
+    ShowValidationContext context = cache.get(show());
+
+    cache.onShowChanged(new ShowChangeEvent("sub", Set.of("requests.0", "stats.jukebox.3")));
+    assertSame(context, cache.get(show("1.2.3.4")));
+
+    cache.onShowChanged(new ShowChangeEvent("sub", Set.of("preferences.blockedViewerIps")));
+    assertTrue(cache.get(show("1.2.3.4")).isIpBlocked("1.2.3.4"));
+  }
+
+  @Test
+  @DisplayName("A context built at the old version is not cached after a config change event")
+  void discardsContextBuiltBeforeChange() {
+    ShowValidationContextCache cache = newCache();
+    long stamp = cache.stamp();
+
+    cache.onShowChanged(new ShowChangeEvent("sub", Set.of("preferences.blockedViewerIps")));
+    ShowValidationContext stale = cache.put(show(), stamp);
+    assertFalse(stale.isIpBlocked("1.2.3.4"));
+
+    ShowValidationContext fresh = cache.get(show("1.2.3.4"));
+    assertNotSame(stale, fresh);
+    assertTrue(fresh.isIpBlocked("1.2.3.4"));
+    assertSame(fresh, cache.get(show("1.2.3.4")));
+  }
+}
@@ -0,0 +1,72 @@
+package com.remotefalcon.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+  @Test
+  @DisplayName("Concurrent callers for the same key share a single load")
+  void coalescesConcurrentLoads() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    AtomicInteger coalesced = new AtomicInteger();
+    SingleFlight<String, String> singleFlight = new SingleFlight<>(loads::incrementAndGet, coalesced::incrementAndGet);
+    CountDownLatch loaderStarted = new CountDownLatch(1);
+    CountDownLatch releaseLoader = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Future<String> leader = executor.submit(() -> singleFlight.execute("sub", () -> {
+        loaderStarted.countDown();
+        await(releaseLoader);
+        return "show";
+      }));
+      assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+
+      List<Future<String>> followers = new ArrayList<>();
+      for (int i = 0; i < 7; i++) {
+        followers.add(executor.submit(() -> singleFlight.execute("sub", () -> "unexpected")));
+      }
+      while (coalesced.get() < 7) {
+        Thread.onSpinWait();
+      }
+      releaseLoader.countDown();
+
+      assertEquals("show", leader.get(5, TimeUnit.SECONDS));
+      for (Future<String> follower : followers) {
+        assertEquals("show", follower.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+      assertEquals(7, coalesced.get());
+      assertEquals(0, singleFlight.inFlightCount());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Loader failures are rethrown and the key is released")
+  void propagatesFailure() {
+    SingleFlight<String, String> singleFlight = new SingleFlight<>(() -> { }, () -> { });
+
+    assertThrows(IllegalStateException.class, () -> singleFlight.execute("sub", () -> {
+      throw new IllegalStateException("boom");
+    }));
+    assertEquals("ok", singleFlight.execute("sub", () -> "ok"));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
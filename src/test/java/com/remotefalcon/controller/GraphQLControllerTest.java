@@ -1,11 +1,15 @@
 package com.remotefalcon.controller;
 
 import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ViewerProjection;
 import com.remotefalcon.service.GraphQLMutationService;
 import com.remotefalcon.service.GraphQLQueryService;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -26,13 +30,28 @@ class GraphQLControllerTest {
   @InjectMock
   GraphQLQueryService queryService;
 
+  @InjectMock
+  ShowSelection showSelection;
+
+  @InjectMock
+  RoutingContext routingContext;
+
+  @InjectMock
+  HttpServerRequest httpServerRequest;
+
+  @BeforeEach
+  void setUp() {
+    when(routingContext.request()).thenReturn(httpServerRequest);
+    when(httpServerRequest.getHeader("CF-Connecting-IP")).thenReturn("1.2.3.4");
+  }
+
   @Test
   @DisplayName("insertViewerPageStats delegates to mutation service and returns result")
   void testInsertViewerPageStats() {
     LocalDateTime now = LocalDateTime.now();
-    when(mutationService.insertViewerPageStats("sub", now)).thenReturn(true);
+    when(mutationService.insertViewerPageStats("sub", now, "1.2.3.4")).thenReturn(true);
 
-    Boolean result = controller.insertViewerPageStats("sub", now);
+    Boolean result = controller.insertViewerPageStats("sub", now).toCompletableFuture().join();
 
     assertTrue(result);
     verify(mutationService).insertViewerPageStats("sub", now);
@@ -41,9 +60,9 @@ class GraphQLControllerTest {
   @Test
   @DisplayName("updateActiveViewers delegates to mutation service and returns result")
   void testUpdateActiveViewers() {
-    when(mutationService.updateActiveViewers("sub")).thenReturn(true);
+    when(mutationService.updateActiveViewers("sub", "1.2.3.4")).thenReturn(true);
 
-    Boolean result = controller.updateActiveViewers("sub");
+    Boolean result = controller.updateActiveViewers("sub").toCompletableFuture().join();
 
     assertTrue(result);
     verify(mutationService).updateActiveViewers("sub");
@@ -54,7 +73,7 @@ class GraphQLControllerTest {
   void testUpdatePlayingNow() {
     when(mutationService.updatePlayingNow("sub", "Track A")).thenReturn(true);
 
-    Boolean result = controller.updatePlayingNow("sub", "Track A");
+    Boolean result = controller.updatePlayingNow("sub", "Track A").toCompletableFuture().join();
 
     assertTrue(result);
     verify(mutationService).updatePlayingNow("sub", "Track A");
@@ -65,7 +84,7 @@ class GraphQLControllerTest {
   void testUpdatePlayingNext() {
     when(mutationService.updatePlayingNext("sub", "Track B")).thenReturn(true);
 
-    Boolean result = controller.updatePlayingNext("sub", "Track B");
+    Boolean result = controller.updatePlayingNext("sub", "Track B").toCompletableFuture().join();
 
     assertTrue(result);
     verify(mutationService).updatePlayingNext("sub", "Track B");
@@ -74,9 +93,9 @@ class GraphQLControllerTest {
   @Test
   @DisplayName("addSequenceToQueue delegates to mutation service and returns result")
   void testAddSequenceToQueue() {
-    when(mutationService.addSequenceToQueue("sub", "Song", 1.23f, 4.56f)).thenReturn(true);
+    when(mutationService.addSequenceToQueue("sub", "Song", 1.23f, 4.56f, "1.2.3.4")).thenReturn(true);
 
-    Boolean result = controller.addSequenceToQueue("sub", "Song", 1.23, 4.56);
+    Boolean result = controller.addSequenceToQueue("sub", "Song", 1.23, 4.56).toCompletableFuture().join();
 
     assertTrue(result);
     verify(mutationService).addSequenceToQueue("sub", "Song", 1.23f, 4.56f);
@@ -85,24 +104,25 @@ class GraphQLControllerTest {
   @Test
   @DisplayName("voteForSequence delegates to mutation service and returns result")
   void testVoteForSequence() {
-    when(mutationService.voteForSequence("sub", "Song", 1.23f, 4.56f)).thenReturn(true);
+    when(mutationService.voteForSequence("sub", "Song", 1.23f, 4.56f, "1.2.3.4")).thenReturn(true);
 
-    Boolean result = controller.voteForSequence("sub", "Song", 1.23, 4.56);
+    Boolean result = controller.voteForSequence("sub", "Song", 1.23, 4.56).toCompletableFuture().join();
 
     assertTrue(result);
     verify(mutationService).voteForSequence("sub", "Song", 1.23f, 4.56f);
   }
 
   @Test
-  @DisplayName("getShow delegates to query service and returns the show")
+  @DisplayName("getShow delegates to query service with the selected projection and returns the show")
   void testGetShow() {
     Show show = mock(Show.class);
-    when(queryService.getShow("sub")).thenReturn(show);
+    when(showSelection.projection()).thenReturn(ViewerProjection.FULL);
+    when(queryService.getShow("sub", ViewerProjection.FULL)).thenReturn(show);
 
-    Show actual = controller.getShow("sub");
+    Show actual = controller.getShow("sub").toCompletableFuture().join();
 
     assertSame(show, actual);
-    verify(queryService).getShow("sub");
+    verify(queryService).getShow("sub", ViewerProjection.FULL);
   }
 
   @Test
@@ -110,7 +130,7 @@ class GraphQLControllerTest {
   void testActiveViewerPage() {
     when(queryService.activeViewerPage("sub")).thenReturn("PAGE");
 
-    String page = controller.activeViewerPage("sub");
+    String page = controller.activeViewerPage("sub").toCompletableFuture().join();
 
     assertEquals("PAGE", page);
     verify(queryService).activeViewerPage("sub");
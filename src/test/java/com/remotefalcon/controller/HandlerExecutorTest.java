@@ -0,0 +1,53 @@
+package com.remotefalcon.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandlerExecutorTest {
+
+  @Test
+  @DisplayName("Virtual threads run no more calls at once than max-concurrent")
+  void boundsVirtualThreadConcurrency() {
+    HandlerExecutor executor = new HandlerExecutor(null, HandlerExecutor.Execution.VIRTUAL, 4);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<CompletionStage<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      int call = i;
+      results.add(executor.submit(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(5);
+        running.decrementAndGet();
+        return call;
+      }));
+    }
+
+    results.forEach(result -> result.toCompletableFuture().join());
+    assertTrue(maxRunning.get() <= 4, "maxRunning=" + maxRunning.get());
+    executor.shutdown();
+  }
+
+  @Test
+  @DisplayName("A failed call completes with its own exception and gives its permit back")
+  void releasesPermitOnFailure() {
+    HandlerExecutor executor = new HandlerExecutor(null, HandlerExecutor.Execution.VIRTUAL, 1);
+
+    CompletableFuture<Object> failed = executor.submit(() -> {
+      throw new IllegalStateException("boom");
+    }).toCompletableFuture();
+    Throwable cause = assertThrows(Exception.class, failed::join).getCause();
+    assertInstanceOf(IllegalStateException.class, cause);
+
+    assertEquals("ok", executor.submit(() -> "ok").toCompletableFuture().join());
+    executor.shutdown();
+  }
+}
@@ -1,12 +1,17 @@
 package com.remotefalcon.controller;
 
 import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.enums.StatusResponse;
 import com.remotefalcon.request.RequestVoteRequest;
 import com.remotefalcon.response.RequestVoteResponse;
 import com.remotefalcon.service.GraphQLMutationService;
+import com.remotefalcon.service.MutationOutcome;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -22,6 +27,18 @@ class RestControllerTest {
   @InjectMock
   GraphQLMutationService mutationService;
 
+  @InjectMock
+  RoutingContext routingContext;
+
+  @InjectMock
+  HttpServerRequest httpServerRequest;
+
+  @BeforeEach
+  void setUp() {
+    when(routingContext.request()).thenReturn(httpServerRequest);
+    when(httpServerRequest.getHeader("CF-Connecting-IP")).thenReturn("1.2.3.4");
+  }
+
   private RequestVoteRequest buildRequest() {
     return RequestVoteRequest.builder()
         .showSubdomain("sub")
@@ -34,51 +51,77 @@ class RestControllerTest {
   @Test
   @DisplayName("addSequenceToQueue returns empty message on success and delegates to service")
   void addSequenceToQueue_success() {
-    when(mutationService.addSequenceToQueue("sub", "Song", 1.23f, 4.56f)).thenReturn(true);
+    when(mutationService.tryAddSequenceToQueue("sub", "Song", 1.23f, 4.56f, "1.2.3.4")).thenReturn(MutationOutcome.ACCEPTED);
 
     RequestVoteRequest request = buildRequest();
-    RequestVoteResponse response = controller.addSequenceToQueue(request);
+    RequestVoteResponse response = controller.addSequenceToQueue(request).toCompletableFuture().join();
 
     assertNotNull(response);
     assertNull(response.getMessage(), "Expected no message on success");
-    verify(mutationService).addSequenceToQueue("sub", "Song", 1.23f, 4.56f);
+    verify(mutationService).tryAddSequenceToQueue("sub", "Song", 1.23f, 4.56f, "1.2.3.4");
+  }
+
+  @Test
+  @DisplayName("addSequenceToQueue returns the rejection as the message")
+  void addSequenceToQueue_rejected() {
+    when(mutationService.tryAddSequenceToQueue(anyString(), anyString(), anyFloat(), anyFloat(), anyString()))
+        .thenReturn(MutationOutcome.rejected(StatusResponse.QUEUE_FULL));
+
+    RequestVoteResponse response = controller.addSequenceToQueue(buildRequest()).toCompletableFuture().join();
+
+    assertNotNull(response);
+    assertEquals("QUEUE_FULL", response.getMessage());
+    verify(mutationService).tryAddSequenceToQueue("sub", "Song", 1.23f, 4.56f, "1.2.3.4");
   }
 
   @Test
   @DisplayName("addSequenceToQueue returns error message when CustomGraphQLExceptionResolver is thrown")
   void addSequenceToQueue_error() {
-    when(mutationService.addSequenceToQueue(anyString(), anyString(), anyFloat(), anyFloat()))
+    when(mutationService.tryAddSequenceToQueue(anyString(), anyString(), anyFloat(), anyFloat(), anyString()))
         .thenThrow(new CustomGraphQLExceptionResolver("Queue error"));
 
-    RequestVoteResponse response = controller.addSequenceToQueue(buildRequest());
+    RequestVoteResponse response = controller.addSequenceToQueue(buildRequest()).toCompletableFuture().join();
 
     assertNotNull(response);
     assertEquals("Queue error", response.getMessage());
-    verify(mutationService).addSequenceToQueue("sub", "Song", 1.23f, 4.56f);
+    verify(mutationService).tryAddSequenceToQueue("sub", "Song", 1.23f, 4.56f, "1.2.3.4");
   }
 
   @Test
   @DisplayName("voteForSequence returns empty message on success and delegates to service")
   void voteForSequence_success() {
-    when(mutationService.voteForSequence("sub", "Song", 1.23f, 4.56f)).thenReturn(true);
+    when(mutationService.tryVoteForSequence("sub", "Song", 1.23f, 4.56f, "1.2.3.4")).thenReturn(MutationOutcome.ACCEPTED);
 
-    RequestVoteResponse response = controller.voteForSequence(buildRequest());
+    RequestVoteResponse response = controller.voteForSequence(buildRequest()).toCompletableFuture().join();
 
     assertNotNull(response);
     assertNull(response.getMessage(), "Expected no message on success");
-    verify(mutationService).voteForSequence("sub", "Song", 1.23f, 4.56f);
+    verify(mutationService).tryVoteForSequence("sub", "Song", 1.23f, 4.56f, "1.2.3.4");
+  }
+
+  @Test
+  @DisplayName("voteForSequence returns the rejection as the message")
+  void voteForSequence_rejected() {
+    when(mutationService.tryVoteForSequence(anyString(), anyString(), anyFloat(), anyFloat(), anyString()))
+        .thenReturn(MutationOutcome.rejected(StatusResponse.ALREADY_VOTED));
+
+    RequestVoteResponse response = controller.voteForSequence(buildRequest()).toCompletableFuture().join();
+
+    assertNotNull(response);
+    assertEquals("ALREADY_VOTED", response.getMessage());
+    verify(mutationService).tryVoteForSequence("sub", "Song", 1.23f, 4.56f, "1.2.3.4");
   }
 
   @Test
   @DisplayName("voteForSequence returns error message when CustomGraphQLExceptionResolver is thrown")
   void voteForSequence_error() {
-    when(mutationService.voteForSequence(anyString(), anyString(), anyFloat(), anyFloat()))
+    when(mutationService.tryVoteForSequence(anyString(), anyString(), anyFloat(), anyFloat(), anyString()))
         .thenThrow(new CustomGraphQLExceptionResolver("Vote error"));
 
-    RequestVoteResponse response = controller.voteForSequence(buildRequest());
+    RequestVoteResponse response = controller.voteForSequence(buildRequest()).toCompletableFuture().join();
 
     assertNotNull(response);
     assertEquals("Vote error", response.getMessage());
-    verify(mutationService).voteForSequence("sub", "Song", 1.23f, 4.56f);
+    verify(mutationService).tryVoteForSequence("sub", "Song", 1.23f, 4.56f, "1.2.3.4");
   }
 }
@@ -0,0 +1,69 @@
+package com.remotefalcon.integration;
+
+import com.remotefalcon.library.models.ActiveViewer;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.service.ActiveViewerTracker;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the in-memory active viewer tracker and its merge flush.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class ActiveViewersIntegrationTest {
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  ActiveViewerTracker tracker;
+
+  private static final String TEST_SUBDOMAIN = "active-viewers-integration-test";
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Active Viewers Test Show");
+    List<ActiveViewer> activeViewers = new ArrayList<>();
+    // Written by another pod: one current, one long expired, one for an IP this pod also tracks
+    activeViewers.add(ActiveViewer.builder().ipAddress("7.7.7.7").visitDateTime(LocalDateTime.now()).build());
+    activeViewers.add(ActiveViewer.builder().ipAddress("8.8.8.8").visitDateTime(LocalDateTime.now().minusDays(1)).build());
+    activeViewers.add(ActiveViewer.builder().ipAddress("5.5.5.5").visitDateTime(LocalDateTime.now().minusMinutes(1)).build());
+    show.setActiveViewers(activeViewers);
+    showRepository.persist(show);
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Flush merges tracked viewers with other pods' viewers and prunes expired ones")
+  void flushMergesAndPrunes() {
+    tracker.heartbeat(TEST_SUBDOMAIN, "5.5.5.5");
+    tracker.heartbeat(TEST_SUBDOMAIN, "5.5.5.5");
+    tracker.heartbeat(TEST_SUBDOMAIN, "6.6.6.6");
+
+    tracker.flush();
+
+    List<ActiveViewer> activeViewers = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getActiveViewers();
+    assertEquals(List.of("5.5.5.5", "6.6.6.6", "7.7.7.7"), activeViewers.stream()
+        .map(ActiveViewer::getIpAddress)
+        .sorted()
+        .toList());
+  }
+}
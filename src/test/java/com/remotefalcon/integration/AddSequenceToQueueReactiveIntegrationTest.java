@@ -0,0 +1,14 @@
+package com.remotefalcon.integration;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+
+/**
+ * {@link AddSequenceToQueueIntegrationTest} against the reactive stack.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(ReactiveStackProfile.class)
+class AddSequenceToQueueReactiveIntegrationTest extends AddSequenceToQueueIntegrationTest {
+}
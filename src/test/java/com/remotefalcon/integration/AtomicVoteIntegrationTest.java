@@ -0,0 +1,194 @@
+package com.remotefalcon.integration;
+
+import com.remotefalcon.library.models.*;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Contention tests for viewer.vote.write-mode=atomic, where the duplicate-voter check and the
+ * create-or-increment of the Vote entry happen in one update.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(AtomicVoteIntegrationTest.AtomicVoteProfile.class)
+class AtomicVoteIntegrationTest {
+
+  public static class AtomicVoteProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("viewer.vote.write-mode", "atomic");
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  private static final String TEST_SUBDOMAIN = "atomic-vote-integration-test";
+
+  private Sequence jingleBells;
+  private SequenceGroup classics;
+
+  @BeforeAll
+  static void setup() {
+    RestAssured.basePath = "/remote-falcon-viewer";
+  }
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    jingleBells = new Sequence();
+    jingleBells.setName("Jingle Bells");
+    jingleBells.setDisplayName("Jingle Bells");
+    jingleBells.setOrder(1);
+    classics = new SequenceGroup();
+    classics.setName("Christmas Classics");
+    classics.setVisibilityCount(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Thousands of parallel first votes create one Vote entry with the exact total")
+  void parallelVotesOnNewSequence() throws Exception {
+    showRepository.persist(createTestShow(false));
+
+    long counted = this.voteInParallel(2000, i -> "10.0." + (i / 250) + "." + (i % 250), i -> jingleBells);
+
+    assertEquals(2000, counted);
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals(1, show.getVotes().size());
+    assertEquals(2000, show.getVotes().get(0).getVotes());
+    assertEquals(2000, new HashSet<>(show.getVotes().get(0).getViewersVoted()).size());
+    assertEquals(2000, show.getStats().getVoting().size());
+  }
+
+  @Test
+  @DisplayName("Repeated parallel votes from the same viewers count once per viewer")
+  void duplicateVotersCountedOnce() throws Exception {
+    showRepository.persist(createTestShow(true));
+
+    // 200 viewers each vote 10 times, alternating between a sequence and a sequence group
+    long counted = this.voteInParallel(2000, i -> "10.1.0." + (i % 200), i -> null);
+
+    assertEquals(200, counted);
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertTrue(show.getVotes().size() <= 2);
+    assertEquals(200, show.getVotes().stream().mapToInt(Vote::getVotes).sum());
+    assertEquals(200, show.getVotes().stream().mapToInt(vote -> vote.getViewersVoted().size()).sum());
+    assertEquals(200, show.getStats().getVoting().size());
+  }
+
+  @Test
+  @DisplayName("A second vote through the API is rejected with ALREADY_VOTED")
+  void secondVoteRejected() {
+    showRepository.persist(createTestShow(true));
+    String mutation = """
+        mutation { voteForSequence(showSubdomain: "%s", name: "Jingle Bells") }
+        """.formatted(TEST_SUBDOMAIN);
+    String body = "{\"query\": \"%s\"}".formatted(mutation.replace("\n", " ").replace("\"", "\\\""));
+
+    given().contentType(ContentType.JSON).header("CF-Connecting-IP", "10.2.0.1").body(body)
+        .when().post("/graphql")
+        .then().statusCode(200);
+    given().contentType(ContentType.JSON).header("CF-Connecting-IP", "10.2.0.1").body(body)
+        .when().post("/graphql")
+        .then().statusCode(200)
+        .body("errors[0].extensions.message", containsString("ALREADY_VOTED"));
+
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals(1, show.getVotes().size());
+    assertEquals(1, show.getVotes().get(0).getVotes());
+  }
+
+  /**
+   * Sends {@code total} votes from 32 threads and returns how many were counted.
+   * A null sequence alternates between {@link #jingleBells} and {@link #classics}.
+   */
+  private long voteInParallel(int total, Function<Integer, String> ipFor, Function<Integer, Sequence> sequenceFor)
+      throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(32);
+    try {
+      List<Future<Long>> results = new ArrayList<>(total);
+      for (int i = 0; i < total; i++) {
+        int index = i;
+        results.add(executor.submit(() -> {
+          String ip = ipFor.apply(index);
+          Sequence sequence = sequenceFor.apply(index);
+          Vote.VoteBuilder vote = sequence != null || index % 2 == 0
+              ? Vote.builder().sequence(sequence != null ? sequence : jingleBells)
+              : Vote.builder().sequenceGroup(classics);
+          Vote newVote = vote.ownerVoted(false)
+              .lastVoteTime(LocalDateTime.now())
+              .viewersVoted(List.of(ip))
+              .votes(1)
+              .build();
+          Stat.Voting stat = Stat.Voting.builder().dateTime(LocalDateTime.now()).name("vote").build();
+          return showRepository.recordVoteIfNotVoted(TEST_SUBDOMAIN, newVote, ip, stat);
+        }));
+      }
+      long counted = 0;
+      for (Future<Long> result : results) {
+        counted += result.get();
+      }
+      return counted;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Show createTestShow(boolean checkIfVoted) {
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Atomic Vote Test Show");
+    show.setLastLoginIp("10.9.9.9");
+
+    Preference preferences = new Preference();
+    preferences.setCheckIfVoted(checkIfVoted);
+    preferences.setCheckIfRequested(false);
+    preferences.setLocationCheckMethod(com.remotefalcon.library.enums.LocationCheckMethod.NONE);
+    preferences.setJukeboxDepth(0);
+    preferences.setJukeboxRequestLimit(0);
+    preferences.setBlockedViewerIps(new HashSet<>());
+    show.setPreferences(preferences);
+
+    show.setSequences(new ArrayList<>(List.of(jingleBells)));
+    show.setSequenceGroups(new ArrayList<>(List.of(classics)));
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+    return show;
+  }
+}
@@ -0,0 +1,293 @@
+package com.remotefalcon.integration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.*;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.JukeboxCountingDays;
+import com.remotefalcon.repository.ShowRepository;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for viewer.queue.write-mode=conditional, where queue rules are enforced by the update filter.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(ConditionalQueueIntegrationTest.ConditionalProfile.class)
+class ConditionalQueueIntegrationTest {
+
+  public static class ConditionalProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("viewer.queue.write-mode", "conditional");
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  JukeboxCountingDays countingDays;
+
+  private static final String TEST_SUBDOMAIN = "conditional-queue-integration-test";
+
+  @BeforeAll
+  static void setup() {
+    RestAssured.basePath = "/remote-falcon-viewer";
+  }
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    showRepository.persist(createTestShow());
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Concurrent requests never overflow jukeboxDepth")
+  void concurrentRequestsRespectDepth() throws Exception {
+    List<Future<String>> responses = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(10);
+    try {
+      for (int i = 0; i < 10; i++) {
+        String ip = "10.1.1." + (i + 10);
+        responses.add(executor.submit(() -> this.request(ip, "Jingle Bells")));
+      }
+      int accepted = 0;
+      for (Future<String> response : responses) {
+        String message = response.get();
+        if (message == null) {
+          accepted++;
+        } else {
+          assertEquals("QUEUE_FULL", message);
+        }
+      }
+      assertEquals(3, accepted);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(3, showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getRequests().size());
+  }
+
+  @Test
+  @DisplayName("A second request from the same viewer is rejected with ALREADY_REQUESTED")
+  void duplicateViewerRejected() {
+    assertNull(this.request("10.2.2.2", "Jingle Bells"));
+    assertEquals("ALREADY_REQUESTED", this.request("10.2.2.2", "Silent Night"));
+  }
+
+  @Test
+  @DisplayName("Accepted requests are counted for today; rejected ones are not")
+  void acceptedRequestsCountedForToday() {
+    assertNull(this.request("10.3.3.3", "Jingle Bells"));
+    assertEquals("ALREADY_REQUESTED", this.request("10.3.3.3", "Silent Night"));
+    Document show = showRepository.mongoCollection().withDocumentClass(Document.class)
+        .find(Filters.eq("showSubdomain", TEST_SUBDOMAIN))
+        .first();
+    assertNotNull(show);
+    Document requestsToday = show.get("jukeboxRequestsToday", Document.class);
+    assertEquals(LocalDate.now().toString(), requestsToday.getString("day"));
+    assertEquals(1, requestsToday.get("count", Number.class).intValue());
+  }
+
+  @Test
+  @DisplayName("The first request of a day starts the counter over and drops the old per-day map")
+  void counterStartsOverEachDay() {
+    String yesterday = LocalDate.now().minusDays(1).toString();
+    showRepository.mongoCollection().withDocumentClass(Document.class).updateOne(
+        Filters.eq("showSubdomain", TEST_SUBDOMAIN),
+        Updates.combine(
+            Updates.set("jukeboxRequestsToday", new Document("day", yesterday).append("count", 5)),
+            Updates.set("jukeboxRequestsByDay", new Document(yesterday, 5))));
+    // As if this pod last counted a request for the show yesterday
+    countingDays.counting(TEST_SUBDOMAIN, LocalDate.now().minusDays(1));
+
+    assertNull(this.request("10.5.5.1", "Jingle Bells"));
+    assertNull(this.request("10.5.5.2", "Silent Night"));
+    Document show = showRepository.mongoCollection().withDocumentClass(Document.class)
+        .find(Filters.eq("showSubdomain", TEST_SUBDOMAIN))
+        .first();
+    assertNotNull(show);
+    Document requestsToday = show.get("jukeboxRequestsToday", Document.class);
+    assertEquals(LocalDate.now().toString(), requestsToday.getString("day"));
+    assertEquals(2, requestsToday.get("count", Number.class).intValue());
+    assertFalse(show.containsKey("jukeboxRequestsByDay"));
+  }
+
+  @Test
+  @DisplayName("The psaFrequency-th request of the day queues the next PSA and marks only it as played")
+  void psaQueuedWhenDue() {
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    Sequence stationId = new Sequence();
+    stationId.setName("Station ID");
+    stationId.setDisplayName("Station ID");
+    stationId.setOrder(3);
+    show.getSequences().add(stationId);
+    show.getPsaSequences().add(this.psa("Station ID", 1));
+    show.getPsaSequences().add(this.psa("Thank You", 2));
+    show.getPreferences().setPsaEnabled(true);
+    show.getPreferences().setPsaFrequency(2);
+    showRepository.update(show);
+
+    assertNull(this.request("10.6.6.1", "Jingle Bells"));
+    assertEquals(1, showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getRequests().size());
+    assertNull(this.request("10.6.6.2", "Silent Night"));
+
+    show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals(3, show.getRequests().size());
+    assertEquals(1, show.getRequests().stream()
+        .filter(request -> "PSA".equals(request.getViewerRequested()))
+        .filter(request -> "Station ID".equals(request.getSequence().getName()))
+        .count());
+    assertEquals(2, show.getStats().getJukebox().size());
+    assertNotNull(show.getPsaSequences().get(0).getLastPlayed());
+    assertNull(show.getPsaSequences().get(1).getLastPlayed());
+  }
+
+  @Test
+  @DisplayName("Concurrent requests queue exactly one PSA per psaFrequency requests, each with its request")
+  void concurrentRequestsQueueEachPsaOnce() throws Exception {
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    Sequence stationId = new Sequence();
+    stationId.setName("Station ID");
+    stationId.setDisplayName("Station ID");
+    stationId.setOrder(3);
+    show.getSequences().add(stationId);
+    show.getPsaSequences().add(this.psa("Station ID", 1));
+    show.getPreferences().setPsaEnabled(true);
+    show.getPreferences().setPsaFrequency(2);
+    show.getPreferences().setJukeboxDepth(0);
+    showRepository.update(show);
+
+    List<Future<String>> responses = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      for (int i = 0; i < 8; i++) {
+        String ip = "10.7.7." + (i + 10);
+        responses.add(executor.submit(() -> this.request(ip, "Jingle Bells")));
+      }
+      for (Future<String> response : responses) {
+        assertNull(response.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals(12, show.getRequests().size());
+    assertEquals(4, show.getRequests().stream()
+        .filter(request -> "PSA".equals(request.getViewerRequested()))
+        .count());
+    assertNotNull(show.getPsaSequences().get(0).getLastPlayed());
+  }
+
+  @Test
+  @DisplayName("The request limit looks at the most recent requests by position, not by array order")
+  void requestLimitFollowsPositions() {
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    show.getPreferences().setJukeboxRequestLimit(1);
+    // Jingle Bells is the most recent by position although it comes first in the array
+    show.getRequests().add(Request.builder().sequence(show.getSequences().get(0))
+        .ownerRequested(false).viewerRequested("10.4.4.1").position(2).build());
+    show.getRequests().add(Request.builder().sequence(show.getSequences().get(1))
+        .ownerRequested(false).viewerRequested("10.4.4.2").position(1).build());
+    show.getPreferences().setJukeboxDepth(0);
+    showRepository.update(show);
+
+    assertEquals("SEQUENCE_REQUESTED", this.request("10.4.4.3", "Jingle Bells"));
+    assertNull(this.request("10.4.4.4", "Silent Night"));
+  }
+
+  private String request(String ip, String sequence) {
+    return given()
+        .contentType(ContentType.JSON)
+        .header("CF-Connecting-IP", ip)
+        .body("""
+            { "showSubdomain": "%s", "sequence": "%s" }
+            """.formatted(TEST_SUBDOMAIN, sequence))
+        .when()
+        .post("/addSequenceToQueue")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("message");
+  }
+
+  private PsaSequence psa(String name, int order) {
+    PsaSequence psa = new PsaSequence();
+    psa.setName(name);
+    psa.setOrder(order);
+    return psa;
+  }
+
+  private Show createTestShow() {
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Conditional Queue Test Show");
+    show.setLastLoginIp("10.0.0.1");
+    show.setPlayingNow("");
+    show.setPlayingNext("");
+
+    Preference preferences = new Preference();
+    preferences.setJukeboxDepth(3);
+    preferences.setCheckIfRequested(true);
+    preferences.setCheckIfVoted(false);
+    preferences.setLocationCheckMethod(LocationCheckMethod.NONE);
+    preferences.setJukeboxRequestLimit(0);
+    preferences.setPsaEnabled(false);
+    preferences.setManagePsa(false);
+    preferences.setBlockedViewerIps(new java.util.HashSet<>());
+    show.setPreferences(preferences);
+
+    List<Sequence> sequences = new ArrayList<>();
+    Sequence seq1 = new Sequence();
+    seq1.setName("Jingle Bells");
+    seq1.setDisplayName("Jingle Bells");
+    seq1.setOrder(1);
+    sequences.add(seq1);
+    Sequence seq2 = new Sequence();
+    seq2.setName("Silent Night");
+    seq2.setDisplayName("Silent Night");
+    seq2.setOrder(2);
+    sequences.add(seq2);
+    show.setSequences(sequences);
+    show.setSequenceGroups(new ArrayList<>());
+
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+    return show;
+  }
+}
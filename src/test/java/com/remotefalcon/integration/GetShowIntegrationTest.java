@@ -329,6 +329,136 @@ class GetShowIntegrationTest {
         .body("data.getShow", nullValue());
   }
 
+  @Test
+  @Order(9)
+  @DisplayName("E2E: GET show returns an ETag and answers a matching If-None-Match with 304")
+  void testGetShowRest_ETag() {
+    String etag = given()
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN)
+        .then()
+        .statusCode(200)
+        .header("ETag", notNullValue())
+        .header("Cache-Control", containsString("no-cache"))
+        .body("showSubdomain", equalTo(TEST_SUBDOMAIN))
+        .body("$", not(hasKey("password")))
+        .extract()
+        .header("ETag");
+
+    given()
+        .header("If-None-Match", etag)
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN)
+        .then()
+        .statusCode(304);
+
+    given()
+        .header("If-None-Match", "\"stale\"")
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN)
+        .then()
+        .statusCode(200)
+        .header("ETag", equalTo(etag));
+  }
+
+  @Test
+  @Order(10)
+  @DisplayName("E2E: GET show returns 404 for non-existent show")
+  void testGetShowRest_NotFound() {
+    given()
+        .when()
+        .get("/shows/non-existent-show")
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  @Order(11)
+  @DisplayName("E2E: GET page serves the active page HTML, gzipped on request, with ETag and 304")
+  void testGetActivePageRest() {
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    ViewerPage page = new ViewerPage();
+    page.setName("Page");
+    page.setHtml("<h1>Active Page</h1>");
+    page.setActive(true);
+    show.setPages(List.of(page));
+    showRepository.update(show);
+
+    String etag = given()
+        .header("Accept-Encoding", "gzip")
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN + "/page")
+        .then()
+        .statusCode(200)
+        .contentType(containsString("text/html"))
+        .header("Content-Encoding", "gzip")
+        .header("Vary", containsString("Accept-Encoding"))
+        .body(equalTo("<h1>Active Page</h1>"))
+        .extract()
+        .header("ETag");
+
+    given()
+        .header("Accept-Encoding", "gzip")
+        .header("If-None-Match", etag)
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN + "/page")
+        .then()
+        .statusCode(304);
+
+    given()
+        .header("Accept-Encoding", "identity")
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN + "/page")
+        .then()
+        .statusCode(200)
+        .header("Content-Encoding", nullValue())
+        .header("ETag", not(equalTo(etag)))
+        .body(equalTo("<h1>Active Page</h1>"));
+  }
+
+  @Test
+  @Order(12)
+  @DisplayName("E2E: GET show leaves viewer IPs out of votes, requests and preferences")
+  void testGetShowRest_ViewerIpsExcluded() {
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    show.getRequests().add(Request.builder()
+        .sequence(show.getSequences().get(0))
+        .ownerRequested(false)
+        .viewerRequested("1.2.3.4")
+        .position(1)
+        .build());
+    show.getVotes().add(Vote.builder()
+        .sequence(show.getSequences().get(1))
+        .votes(1)
+        .viewersVoted(new ArrayList<>(List.of("5.6.7.8")))
+        .build());
+    show.getPreferences().setBlockedViewerIps(new java.util.HashSet<>(java.util.Set.of("9.9.9.9")));
+    showRepository.update(show);
+
+    given()
+        .when()
+        .get("/shows/" + TEST_SUBDOMAIN)
+        .then()
+        .statusCode(200)
+        .body("requests", hasSize(1))
+        .body("requests[0]", not(hasKey("viewerRequested")))
+        .body("votes", hasSize(1))
+        .body("votes[0]", not(hasKey("viewersVoted")))
+        .body("preferences", not(hasKey("blockedViewerIps")))
+        .body(not(anyOf(containsString("1.2.3.4"), containsString("5.6.7.8"), containsString("9.9.9.9"))));
+  }
+
+  @Test
+  @Order(13)
+  @DisplayName("E2E: GET page returns 404 for non-existent show")
+  void testGetActivePageRest_NotFound() {
+    given()
+        .when()
+        .get("/shows/non-existent-show/page")
+        .then()
+        .statusCode(404);
+  }
+
   /**
    * Helper method to create a test show with realistic configuration
    */
@@ -0,0 +1,96 @@
+package com.remotefalcon.integration;
+
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.PageStatRepository;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.service.PageStatService;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for page stats stored in the time-series collection.
+ * Verifies owner exclusion and that buffered views are flushed without touching the Show document.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(PageStatsTimeSeriesIntegrationTest.TimeSeriesProfile.class)
+class PageStatsTimeSeriesIntegrationTest {
+
+  public static class TimeSeriesProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "viewer.page-stats.storage", "timeseries",
+          "viewer.page-stats.flush-interval", "1h",
+          "viewer.page-stats.max-buffered", "3"
+      );
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  PageStatRepository pageStatRepository;
+
+  @Inject
+  PageStatService pageStatService;
+
+  private static final String TEST_SUBDOMAIN = "page-stats-timeseries-test";
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Page Stats Test Show");
+    show.setLastLoginIp("10.0.0.1");
+    showRepository.persist(show);
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Views from viewers are written in a batch; the owner's views are skipped")
+  void recordsViewerPageStats() {
+    long before = pageStatRepository.countByShowSubdomain(TEST_SUBDOMAIN);
+
+    assertTrue(pageStatService.record(TEST_SUBDOMAIN, "5.5.5.5", LocalDateTime.now()));
+    assertTrue(pageStatService.record(TEST_SUBDOMAIN, "6.6.6.6", LocalDateTime.now()));
+    assertFalse(pageStatService.record(TEST_SUBDOMAIN, "10.0.0.1", LocalDateTime.now()));
+    assertFalse(pageStatService.record("page-stats-missing-show", "5.5.5.5", LocalDateTime.now()));
+
+    pageStatService.flush();
+
+    assertEquals(before + 2, pageStatRepository.countByShowSubdomain(TEST_SUBDOMAIN));
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertTrue(show.getStats() == null || show.getStats().getPage() == null || show.getStats().getPage().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Views beyond the buffer bound are dropped until the next flush")
+  void dropsViewsWhenBufferFull() {
+    pageStatService.flush();
+    long before = pageStatRepository.countByShowSubdomain(TEST_SUBDOMAIN);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(pageStatService.record(TEST_SUBDOMAIN, "7.7.7." + i, LocalDateTime.now()));
+    }
+    pageStatService.flush();
+
+    assertEquals(before + 3, pageStatRepository.countByShowSubdomain(TEST_SUBDOMAIN));
+  }
+}
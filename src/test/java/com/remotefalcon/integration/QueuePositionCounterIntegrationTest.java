@@ -0,0 +1,146 @@
+package com.remotefalcon.integration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.*;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for viewer.queue.position-allocation=counter, where positions come from an atomic
+ * per-show counter instead of the loaded queue.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(QueuePositionCounterIntegrationTest.CounterProfile.class)
+class QueuePositionCounterIntegrationTest {
+
+  public static class CounterProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("viewer.queue.position-allocation", "counter");
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  private static final String TEST_SUBDOMAIN = "queue-position-counter-test";
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    showRepository.persist(createTestShow());
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Concurrent position allocation from the same snapshot never hands out a position twice")
+  void concurrentAllocation() throws Exception {
+    Show snapshot = showRepository.findByShowSubdomainForMutations(TEST_SUBDOMAIN).orElseThrow();
+
+    List<Future<Long>> futures = new ArrayList<>();
+    try (var executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 50; i++) {
+        futures.add(executor.submit(() -> showRepository.nextRequestPosition(snapshot)));
+      }
+    }
+    Set<Long> positions = new TreeSet<>();
+    for (Future<Long> future : futures) {
+      positions.add(future.get());
+    }
+
+    assertEquals(50, positions.size());
+    assertEquals(1L, positions.iterator().next());
+    assertEquals(51L, showRepository.allocatePositionBlock(snapshot, 3));
+  }
+
+  @Test
+  @DisplayName("A counter past the reset threshold starts over only while the queue is empty")
+  void startsOverWhenQueueEmpty() {
+    this.setCounter(5_000_000L);
+    Show empty = showRepository.findByShowSubdomainForMutations(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals(1L, showRepository.nextRequestPosition(empty));
+    // A second allocation against the same empty snapshot continues from the reset counter
+    assertEquals(2L, showRepository.nextRequestPosition(empty));
+
+    this.setCounter(5_000_000L);
+    Show queued = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    queued.getRequests().add(Request.builder()
+        .sequence(queued.getSequences().get(0))
+        .ownerRequested(false)
+        .viewerRequested("1.1.1.1")
+        .position(3)
+        .build());
+    showRepository.update(queued);
+    assertEquals(5_000_001L, showRepository.nextRequestPosition(queued));
+  }
+
+  private void setCounter(long value) {
+    showRepository.mongoCollection().updateOne(
+        Filters.eq("showSubdomain", TEST_SUBDOMAIN), Updates.set("queuePositionCounter", value));
+  }
+
+  private Show createTestShow() {
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Queue Position Counter Test Show");
+    show.setLastLoginIp("10.0.0.1");
+    show.setPlayingNow("");
+    show.setPlayingNext("");
+
+    Preference preferences = new Preference();
+    preferences.setJukeboxDepth(0);
+    preferences.setCheckIfRequested(false);
+    preferences.setCheckIfVoted(false);
+    preferences.setLocationCheckMethod(LocationCheckMethod.NONE);
+    preferences.setJukeboxRequestLimit(0);
+    preferences.setPsaEnabled(false);
+    preferences.setManagePsa(false);
+    preferences.setBlockedViewerIps(new java.util.HashSet<>());
+    show.setPreferences(preferences);
+
+    Sequence sequence = new Sequence();
+    sequence.setName("Jingle Bells");
+    sequence.setDisplayName("Jingle Bells");
+    sequence.setOrder(1);
+    sequence.setActive(true);
+    sequence.setVisibilityCount(0);
+    show.setSequences(new ArrayList<>(List.of(sequence)));
+    show.setSequenceGroups(new ArrayList<>());
+
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+    return show;
+  }
+}
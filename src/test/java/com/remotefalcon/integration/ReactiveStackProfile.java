@@ -0,0 +1,16 @@
+package com.remotefalcon.integration;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+/**
+ * Runs an integration test against viewer.api.stack=reactive. Quarkus profiles apply per class, so a test
+ * covers both stacks by being subclassed with this profile; the subclass inherits every test.
+ */
+public class ReactiveStackProfile implements QuarkusTestProfile {
+  @Override
+  public Map<String, String> getConfigOverrides() {
+    return Map.of("viewer.api.stack", "reactive");
+  }
+}
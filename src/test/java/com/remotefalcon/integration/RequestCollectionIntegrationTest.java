@@ -0,0 +1,215 @@
+package com.remotefalcon.integration;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.*;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.RequestRepository;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.service.GraphQLQueryService;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for viewer.queue.storage=collection, where requests are queued in their own collection and
+ * the queue rules are checked with indexed queries against it.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(RequestCollectionIntegrationTest.RequestCollectionProfile.class)
+class RequestCollectionIntegrationTest {
+
+  public static class RequestCollectionProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "viewer.queue.storage", "collection",
+          "viewer.queue.position-allocation", "counter",
+          "viewer.queue.page-size", "2");
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  GraphQLQueryService graphQLQueryService;
+
+  private static final String TEST_SUBDOMAIN = "request-collection-integration-test";
+
+  @BeforeAll
+  static void setup() {
+    RestAssured.basePath = "/remote-falcon-viewer";
+  }
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    showRepository.persist(createTestShow());
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+    this.requests().deleteMany(Filters.eq("showSubdomain", TEST_SUBDOMAIN));
+  }
+
+  @Test
+  @DisplayName("Concurrent requests never overflow jukeboxDepth and leave the Show's requests empty")
+  void concurrentRequestsRespectDepth() throws Exception {
+    List<Future<String>> responses = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(10);
+    int accepted = 0;
+    try {
+      String[] sequences = {"Jingle Bells", "Silent Night", "Deck The Halls"};
+      for (int i = 0; i < 10; i++) {
+        String ip = "10.1.1." + (i + 10);
+        String sequence = sequences[i % sequences.length];
+        responses.add(executor.submit(() -> this.request(ip, sequence)));
+      }
+      for (Future<String> response : responses) {
+        if (response.get() == null) {
+          accepted++;
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    // Appends that overlap exactly may all step back, but the queue never goes past its depth
+    assertTrue(accepted >= 1 && accepted <= 3, "accepted=" + accepted);
+    assertEquals(accepted, this.requests().countDocuments(Filters.eq("showSubdomain", TEST_SUBDOMAIN)));
+    assertTrue(showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getRequests().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Duplicate viewers and sequences within the request limit are rejected; only accepted requests are counted")
+  void rulesCheckedAgainstCollection() {
+    assertNull(this.request("10.2.2.2", "Jingle Bells"));
+    assertEquals("ALREADY_REQUESTED", this.request("10.2.2.2", "Silent Night"));
+    assertEquals("SEQUENCE_REQUESTED", this.request("10.2.2.3", "Jingle Bells"));
+    assertNull(this.request("10.2.2.3", "Silent Night"));
+
+    assertEquals(2, this.requests().countDocuments(Filters.eq("showSubdomain", TEST_SUBDOMAIN)));
+    Document show = showRepository.mongoCollection().withDocumentClass(Document.class)
+        .find(Filters.eq("showSubdomain", TEST_SUBDOMAIN))
+        .first();
+    assertNotNull(show);
+    Document requestsToday = show.get("jukeboxRequestsToday", Document.class);
+    assertEquals(LocalDate.now().toString(), requestsToday.getString("day"));
+    assertEquals(2, requestsToday.get("count", Number.class).intValue());
+  }
+
+  @Test
+  @DisplayName("The duplicate viewer check matches IPs regardless of case, as the embedded queue does")
+  void duplicateViewerIgnoresCase() {
+    assertNull(this.request("2001:DB8::1", "Jingle Bells"));
+    assertEquals("ALREADY_REQUESTED", this.request("2001:db8::1", "Silent Night"));
+    Document queued = this.requests().find(Filters.eq("showSubdomain", TEST_SUBDOMAIN)).first();
+    assertNotNull(queued);
+    assertEquals("2001:DB8::1", queued.getString("viewerRequested"));
+    assertEquals("2001:db8::1", queued.getString("viewerKey"));
+  }
+
+  @Test
+  @DisplayName("getShow ships the first page of the queue with its head as playingNext; getQueue returns the rest")
+  void getShowPaginatesQueue() {
+    assertNull(this.request("10.3.3.1", "Jingle Bells"));
+    assertNull(this.request("10.3.3.2", "Silent Night"));
+    assertNull(this.request("10.3.3.3", "Deck The Halls"));
+
+    Show show = graphQLQueryService.getShow(TEST_SUBDOMAIN);
+    assertEquals(2, show.getRequests().size());
+    assertEquals("Jingle Bells", show.getPlayingNext());
+    assertEquals("Silent Night", show.getRequests().get(1).getSequence().getName());
+
+    List<Request> rest = graphQLQueryService.getQueue(TEST_SUBDOMAIN, show.getRequests().get(1).getPosition(), null);
+    assertEquals(1, rest.size());
+    assertEquals("Deck The Halls", rest.get(0).getSequence().getName());
+    assertEquals("10.3.3.3", rest.get(0).getViewerRequested());
+  }
+
+  private MongoCollection<Document> requests() {
+    return showRepository.mongoDatabase().getCollection(RequestRepository.COLLECTION);
+  }
+
+  private String request(String ip, String sequence) {
+    return given()
+        .contentType(ContentType.JSON)
+        .header("CF-Connecting-IP", ip)
+        .body("""
+            { "showSubdomain": "%s", "sequence": "%s" }
+            """.formatted(TEST_SUBDOMAIN, sequence))
+        .when()
+        .post("/addSequenceToQueue")
+        .then()
+        .statusCode(200)
+        .extract()
+        .path("message");
+  }
+
+  private Show createTestShow() {
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Request Collection Test Show");
+    show.setLastLoginIp("10.0.0.1");
+    show.setPlayingNow("");
+    show.setPlayingNext("");
+
+    Preference preferences = new Preference();
+    preferences.setJukeboxDepth(3);
+    preferences.setCheckIfRequested(true);
+    preferences.setCheckIfVoted(false);
+    preferences.setLocationCheckMethod(LocationCheckMethod.NONE);
+    preferences.setJukeboxRequestLimit(1);
+    preferences.setPsaEnabled(false);
+    preferences.setManagePsa(false);
+    preferences.setBlockedViewerIps(new java.util.HashSet<>());
+    show.setPreferences(preferences);
+
+    List<Sequence> sequences = new ArrayList<>();
+    String[] names = {"Jingle Bells", "Silent Night", "Deck The Halls"};
+    for (int i = 0; i < names.length; i++) {
+      Sequence sequence = new Sequence();
+      sequence.setName(names[i]);
+      sequence.setDisplayName(names[i]);
+      sequence.setOrder(i + 1);
+      sequence.setActive(true);
+      sequence.setVisibilityCount(0);
+      sequences.add(sequence);
+    }
+    show.setSequences(sequences);
+    show.setSequenceGroups(new ArrayList<>());
+
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+    return show;
+  }
+}
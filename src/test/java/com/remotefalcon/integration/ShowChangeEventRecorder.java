@@ -0,0 +1,32 @@
+package com.remotefalcon.integration;
+
+import com.remotefalcon.repository.ShowChangeEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Singleton;
+import jakarta.interceptor.Interceptor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records change stream events after every application observer has handled them,
+ * so tests can wait for an event instead of sleeping.
+ */
+@Singleton
+public class ShowChangeEventRecorder {
+  private final List<ShowChangeEvent> events = new CopyOnWriteArrayList<>();
+
+  void record(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) ShowChangeEvent event) {
+    events.add(event);
+  }
+
+  public boolean hasEvent(String showSubdomain, String field) {
+    return events.stream().anyMatch(event -> showSubdomain.equals(event.showSubdomain())
+        && (field == null ? event.isWholeDocument() : event.touchesAny(List.of(field))));
+  }
+
+  public void clear() {
+    events.clear();
+  }
+}
@@ -0,0 +1,175 @@
+package com.remotefalcon.integration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.remotefalcon.cache.ShowSnapshotCache;
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.*;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowChangeStreamWatcher;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.service.GraphQLQueryService;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for change-stream driven snapshot cache invalidation.
+ * Writes go straight to Mongo (as another pod or the control panel would) and the cached
+ * getShow snapshot must pick them up without waiting for the TTL.
+ * Runs against the single-node replica set started by MongoTestResource.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(ShowChangeStreamIntegrationTest.CacheEnabledProfile.class)
+class ShowChangeStreamIntegrationTest {
+
+  public static class CacheEnabledProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of(
+          "viewer.show-cache.enabled", "true",
+          "viewer.show-cache.ttl", "10m",
+          "viewer.show-cache.watched-ttl", "10m"
+      );
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  GraphQLQueryService queryService;
+
+  @Inject
+  ShowSnapshotCache showSnapshotCache;
+
+  @Inject
+  ShowChangeStreamWatcher watcher;
+
+  @Inject
+  ShowChangeEventRecorder recorder;
+
+  private static final String TEST_SUBDOMAIN = "change-stream-integration-test";
+  private static final String OTHER_SUBDOMAIN = "change-stream-integration-test-other";
+
+  @BeforeEach
+  void setUp() {
+    awaitTrue(() -> watcher.isConnected());
+    tearDown();
+    recorder.clear();
+    showRepository.persist(createTestShow(TEST_SUBDOMAIN));
+    showRepository.persist(createTestShow(OTHER_SUBDOMAIN));
+    // Let the insert events pass before caching anything
+    awaitTrue(() -> recorder.hasEvent(TEST_SUBDOMAIN, null) && recorder.hasEvent(OTHER_SUBDOMAIN, null));
+  }
+
+  @AfterEach
+  void tearDown() {
+    for (String subdomain : List.of(TEST_SUBDOMAIN, OTHER_SUBDOMAIN)) {
+      showRepository.findByShowSubdomain(subdomain)
+          .ifPresent(show -> showRepository.delete(show));
+    }
+  }
+
+  @Test
+  @DisplayName("External playingNow update invalidates the cached snapshot")
+  void externalUpdateInvalidatesSnapshot() {
+    Show cached = queryService.getShow(TEST_SUBDOMAIN);
+    assertSame(cached, queryService.getShow(TEST_SUBDOMAIN));
+    assertEquals("Jingle Bells Display", cached.getPlayingNow());
+
+    showRepository.mongoCollection().updateOne(
+        Filters.eq("showSubdomain", TEST_SUBDOMAIN),
+        Updates.set("playingNow", "Silent Night"));
+
+    awaitTrue(() -> "Silent Night Display".equals(queryService.getShow(TEST_SUBDOMAIN).getPlayingNow()));
+  }
+
+  @Test
+  @DisplayName("Page stat writes do not evict the cached snapshot")
+  void pageStatWriteKeepsSnapshot() {
+    Show cached = queryService.getShow(TEST_SUBDOMAIN);
+
+    showRepository.appendPageStat(TEST_SUBDOMAIN, Stat.Page.builder()
+        .ip("5.5.5.5")
+        .dateTime(LocalDateTime.now())
+        .build());
+    awaitTrue(() -> recorder.hasEvent(TEST_SUBDOMAIN, "stats.page"));
+
+    assertSame(cached, queryService.getShow(TEST_SUBDOMAIN));
+  }
+
+  private void awaitTrue(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (!condition.getAsBoolean()) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Condition not met within 10 seconds");
+      }
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        fail("Interrupted while waiting");
+      }
+    }
+  }
+
+  private Show createTestShow(String subdomain) {
+    Show show = new Show();
+    show.setShowSubdomain(subdomain);
+    show.setShowName("Change Stream Test Show");
+    show.setLastLoginIp("10.0.0.1");
+    show.setPlayingNow("Jingle Bells");
+    show.setPlayingNext("");
+    show.setPlayingNextFromSchedule("");
+
+    Preference preferences = new Preference();
+    preferences.setLocationCheckMethod(LocationCheckMethod.NONE);
+    show.setPreferences(preferences);
+
+    List<Sequence> sequences = new ArrayList<>();
+    Sequence seq1 = new Sequence();
+    seq1.setName("Jingle Bells");
+    seq1.setDisplayName("Jingle Bells Display");
+    seq1.setOrder(1);
+    seq1.setActive(true);
+    seq1.setVisibilityCount(0);
+    sequences.add(seq1);
+
+    Sequence seq2 = new Sequence();
+    seq2.setName("Silent Night");
+    seq2.setDisplayName("Silent Night Display");
+    seq2.setOrder(2);
+    seq2.setActive(true);
+    seq2.setVisibilityCount(0);
+    sequences.add(seq2);
+    show.setSequences(sequences);
+
+    show.setSequenceGroups(new ArrayList<>());
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+    show.setPages(new ArrayList<>());
+
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+
+    return show;
+  }
+}
@@ -0,0 +1,108 @@
+package com.remotefalcon.integration;
+
+import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.service.GraphQLMutationService;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the plugin's updatePlayingNow/updatePlayingNext calls, which resolve the
+ * display name inside a single pipeline update.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+class UpdatePlayingNowIntegrationTest {
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  GraphQLMutationService mutationService;
+
+  private static final String TEST_SUBDOMAIN = "update-playing-now-integration-test";
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Playing Now Test Show");
+    List<Sequence> sequences = new ArrayList<>();
+    Sequence withDisplayName = new Sequence();
+    withDisplayName.setName("Jingle Bells");
+    withDisplayName.setDisplayName("Jingle Bells Display");
+    sequences.add(withDisplayName);
+    Sequence blankDisplayName = new Sequence();
+    blankDisplayName.setName("Silent Night");
+    blankDisplayName.setDisplayName("  ");
+    sequences.add(blankDisplayName);
+    Sequence accented = new Sequence();
+    accented.setName("Noël Éternel");
+    accented.setDisplayName("Noël Éternel Display");
+    sequences.add(accented);
+    Sequence cyrillic = new Sequence();
+    cyrillic.setName("Щелкунчик");
+    cyrillic.setDisplayName("Nutcracker");
+    sequences.add(cyrillic);
+    show.setSequences(sequences);
+    showRepository.persist(show);
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Resolves the display name case-insensitively")
+  void resolvesDisplayName() {
+    assertTrue(mutationService.updatePlayingNow(TEST_SUBDOMAIN, "jingle bells"));
+    assertTrue(mutationService.updatePlayingNext(TEST_SUBDOMAIN, "JINGLE BELLS"));
+
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals("Jingle Bells Display", show.getPlayingNow());
+    assertEquals("Jingle Bells Display", show.getPlayingNext());
+  }
+
+  @Test
+  @DisplayName("Resolves the display name of non-ASCII names case-insensitively, as equalsIgnoreCase does")
+  void resolvesNonAsciiDisplayName() {
+    assertTrue(mutationService.updatePlayingNow(TEST_SUBDOMAIN, "NOËL ÉTERNEL"));
+    assertTrue(mutationService.updatePlayingNext(TEST_SUBDOMAIN, "щелкунчик"));
+
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals("Noël Éternel Display", show.getPlayingNow());
+    assertEquals("Nutcracker", show.getPlayingNext());
+
+    mutationService.updatePlayingNow(TEST_SUBDOMAIN, "Ünbekannt");
+    assertEquals("Ünbekannt", showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getPlayingNow());
+  }
+
+  @Test
+  @DisplayName("Falls back to the given name for unknown sequences and blank display names")
+  void fallsBackToName() {
+    mutationService.updatePlayingNow(TEST_SUBDOMAIN, "Silent Night");
+    assertEquals("Silent Night", showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getPlayingNow());
+
+    mutationService.updatePlayingNow(TEST_SUBDOMAIN, "$notAField");
+    assertEquals("$notAField", showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getPlayingNow());
+  }
+
+  @Test
+  @DisplayName("Throws for an unknown show")
+  void unknownShow() {
+    assertThrows(CustomGraphQLExceptionResolver.class,
+        () -> mutationService.updatePlayingNow("update-playing-now-missing", "Jingle Bells"));
+  }
+}
@@ -0,0 +1,190 @@
+package com.remotefalcon.integration;
+
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.remotefalcon.library.enums.StatusResponse;
+import com.remotefalcon.library.models.*;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.repository.VoterRepository;
+import com.remotefalcon.service.MutationOutcome;
+import com.remotefalcon.service.VoterStore;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for viewer.vote.voter-store=collection, where voters are kept in their own collection per voting round
+ * and the Show document only holds the vote counts.
+ */
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(VoterCollectionIntegrationTest.VoterCollectionProfile.class)
+class VoterCollectionIntegrationTest {
+
+  public static class VoterCollectionProfile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("viewer.vote.voter-store", "collection");
+    }
+  }
+
+  @Inject
+  ShowRepository showRepository;
+
+  @Inject
+  VoterStore voterStore;
+
+  private static final String TEST_SUBDOMAIN = "voter-collection-integration-test";
+
+  private Sequence jingleBells;
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    jingleBells = new Sequence();
+    jingleBells.setName("Jingle Bells");
+    jingleBells.setDisplayName("Jingle Bells");
+    jingleBells.setOrder(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  @Test
+  @DisplayName("Repeated parallel votes count once per viewer and leave viewersVoted empty")
+  void duplicateVotersCountedOnce() throws Exception {
+    showRepository.persist(createTestShow(new ArrayList<>()));
+
+    // 200 viewers each vote 5 times
+    ExecutorService executor = Executors.newFixedThreadPool(32);
+    long counted = 0;
+    try {
+      List<Future<MutationOutcome>> results = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        String ip = "10.5.0." + (i % 200);
+        results.add(executor.submit(() -> this.vote(ip)));
+      }
+      for (Future<MutationOutcome> result : results) {
+        MutationOutcome outcome = result.get();
+        if (outcome.isAccepted()) {
+          counted++;
+        } else {
+          assertEquals(StatusResponse.ALREADY_VOTED.name(), outcome.rejection());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(200, counted);
+    Show show = showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow();
+    assertEquals(1, show.getVotes().size());
+    assertEquals(200, show.getVotes().get(0).getVotes());
+    assertTrue(show.getVotes().get(0).getViewersVoted().isEmpty());
+    assertEquals(200, showRepository.mongoDatabase().getCollection(VoterRepository.COLLECTION).countDocuments(
+        Filters.and(Filters.eq("showSubdomain", TEST_SUBDOMAIN), Filters.eq("round", this.votingRound()))));
+  }
+
+  @Test
+  @DisplayName("Resetting the votes starts a new round in which the viewer can vote again")
+  void resetStartsNewRound() {
+    showRepository.persist(createTestShow(new ArrayList<>()));
+    assertTrue(this.vote("10.6.0.1").isAccepted());
+    assertFalse(this.vote("10.6.0.1").isAccepted());
+    String firstRound = this.votingRound();
+
+    // What the plugin does once the winning sequence plays
+    showRepository.mongoCollection().updateOne(Filters.eq("showSubdomain", TEST_SUBDOMAIN),
+        Updates.set("votes", List.of()));
+
+    assertTrue(this.vote("10.6.0.1").isAccepted());
+    assertNotEquals(firstRound, this.votingRound());
+    assertEquals(1, showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getVotes().get(0).getVotes());
+  }
+
+  @Test
+  @DisplayName("Voters already in viewersVoted from before the switch are still rejected")
+  void legacyVotersRejected() {
+    Vote legacyVote = Vote.builder()
+        .sequence(jingleBells)
+        .ownerVoted(false)
+        .lastVoteTime(LocalDateTime.now())
+        .viewersVoted(List.of("10.7.0.1"))
+        .votes(1)
+        .build();
+    showRepository.persist(createTestShow(new ArrayList<>(List.of(legacyVote))));
+
+    assertEquals(StatusResponse.ALREADY_VOTED.name(), this.vote("10.7.0.1").rejection());
+    assertTrue(this.vote("10.7.0.2").isAccepted());
+    assertEquals(2, showRepository.findByShowSubdomain(TEST_SUBDOMAIN).orElseThrow().getVotes().get(0).getVotes());
+  }
+
+  private MutationOutcome vote(String ip) {
+    Show show = showRepository.findByShowSubdomainForMutations(TEST_SUBDOMAIN).orElseThrow();
+    Vote newVote = Vote.builder()
+        .sequence(jingleBells)
+        .ownerVoted(false)
+        .lastVoteTime(LocalDateTime.now())
+        .viewersVoted(List.of())
+        .votes(1)
+        .build();
+    Stat.Voting stat = Stat.Voting.builder().dateTime(LocalDateTime.now()).name("Jingle Bells").build();
+    return voterStore.record(show, newVote, ip, stat);
+  }
+
+  private String votingRound() {
+    Document show = showRepository.mongoCollection().withDocumentClass(Document.class)
+        .find(Filters.eq("showSubdomain", TEST_SUBDOMAIN))
+        .first();
+    return show.getString("votingRound");
+  }
+
+  private Show createTestShow(List<Vote> votes) {
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Voter Collection Test Show");
+    show.setLastLoginIp("10.9.9.9");
+
+    Preference preferences = new Preference();
+    preferences.setCheckIfVoted(true);
+    preferences.setCheckIfRequested(false);
+    preferences.setLocationCheckMethod(com.remotefalcon.library.enums.LocationCheckMethod.NONE);
+    preferences.setJukeboxDepth(0);
+    preferences.setJukeboxRequestLimit(0);
+    preferences.setBlockedViewerIps(new HashSet<>());
+    show.setPreferences(preferences);
+
+    show.setSequences(new ArrayList<>(List.of(jingleBells)));
+    show.setSequenceGroups(new ArrayList<>());
+    show.setRequests(new ArrayList<>());
+    show.setVotes(votes);
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+    return show;
+  }
+}
@@ -0,0 +1,181 @@
+package com.remotefalcon.load;
+
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.Preference;
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.models.Stat;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowRepository;
+import io.restassured.RestAssured;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Show-start spike against getShow and the REST queue and vote endpoints: every simulated viewer calls at once,
+ * and the run reports throughput and p99 latency. Subclasses pin viewer.handlers.execution so the worker pool and
+ * virtual threads can be compared. Tagged "load", so it only runs with {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+abstract class HandlerLoadTest {
+  private static final Logger log = Logger.getLogger(HandlerLoadTest.class);
+  private static final String TEST_SUBDOMAIN = "handler-load-test";
+  private static final int POLLS_PER_VIEWER = 5;
+
+  @Inject
+  ShowRepository showRepository;
+
+  @BeforeEach
+  void setUp() {
+    tearDown();
+    Show show = new Show();
+    show.setShowSubdomain(TEST_SUBDOMAIN);
+    show.setShowName("Handler Load Test Show");
+    show.setLastLoginIp("192.0.2.1");
+    show.setPlayingNow("Jingle Bells");
+    // No queue or vote rules, so every viewer's request and vote is accepted and written
+    Preference preferences = new Preference();
+    preferences.setJukeboxDepth(0);
+    preferences.setJukeboxRequestLimit(0);
+    preferences.setCheckIfRequested(false);
+    preferences.setCheckIfVoted(false);
+    preferences.setLocationCheckMethod(LocationCheckMethod.NONE);
+    preferences.setPsaEnabled(false);
+    preferences.setManagePsa(false);
+    preferences.setBlockedViewerIps(new HashSet<>());
+    show.setPreferences(preferences);
+    // Requested and voted for by every viewer; a request for the sequence playing now would be rejected
+    Sequence sequence = new Sequence();
+    sequence.setName("Silent Night");
+    sequence.setDisplayName("Silent Night");
+    sequence.setOrder(1);
+    show.setSequences(new ArrayList<>(List.of(sequence)));
+    show.setSequenceGroups(new ArrayList<>());
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    show.setActiveViewers(new ArrayList<>());
+    show.setPsaSequences(new ArrayList<>());
+    Stat stats = new Stat();
+    stats.setPage(new ArrayList<>());
+    stats.setJukebox(new ArrayList<>());
+    stats.setVoting(new ArrayList<>());
+    show.setStats(stats);
+    showRepository.persist(show);
+  }
+
+  @AfterEach
+  void tearDown() {
+    showRepository.findByShowSubdomain(TEST_SUBDOMAIN)
+        .ifPresent(show -> showRepository.delete(show));
+  }
+
+  abstract String execution();
+
+  @ParameterizedTest(name = "{0} concurrent viewers")
+  @ValueSource(ints = {1_000, 10_000})
+  void showStartSpike(int viewers) throws Exception {
+    String body = "{\"query\": \"query { getShow(showSubdomain: \\\"" + TEST_SUBDOMAIN + "\\\") { playingNow } }\"}";
+    this.spike("getShow", "/graphql", body, viewers, POLLS_PER_VIEWER,
+        response -> response.statusCode() == 200 && response.body().contains("Jingle Bells"));
+  }
+
+  @ParameterizedTest(name = "{0} concurrent viewers")
+  @ValueSource(ints = {1_000, 10_000})
+  void restQueueSpike(int viewers) throws Exception {
+    this.spike("addSequenceToQueue", "/addSequenceToQueue", this.restBody(), viewers, 1, HandlerLoadTest::accepted);
+  }
+
+  @ParameterizedTest(name = "{0} concurrent viewers")
+  @ValueSource(ints = {1_000, 10_000})
+  void restVoteSpike(int viewers) throws Exception {
+    this.spike("voteForSequence", "/voteForSequence", this.restBody(), viewers, 1, HandlerLoadTest::accepted);
+  }
+
+  private String restBody() {
+    return "{\"showSubdomain\": \"" + TEST_SUBDOMAIN + "\", \"sequence\": \"Silent Night\"}";
+  }
+
+  private static boolean accepted(HttpResponse<String> response) {
+    // Accepted mutations answer with a null message; a rejection names its reason
+    return response.statusCode() == 200 && !response.body().contains("\"message\":\"");
+  }
+
+  /**
+   * Sends {@code callsPerViewer} POSTs of {@code body} to {@code path} from each of {@code viewers} viewers
+   * (each with its own IP) at once, logs throughput and latency, and fails when any call is not {@code ok}.
+   */
+  private void spike(String endpoint, String path, String body, int viewers, int callsPerViewer,
+      Predicate<HttpResponse<String>> ok) throws Exception {
+    URI uri = URI.create("http://localhost:" + RestAssured.port + "/remote-falcon-viewer" + path);
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(30))
+        .build();
+
+    ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    AtomicInteger failures = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    long elapsed;
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int viewer = 0; viewer < viewers; viewer++) {
+        String ip = "10." + (viewer >> 16 & 255) + "." + (viewer >> 8 & 255) + "." + (viewer & 255);
+        clients.execute(() -> {
+          try {
+            start.await();
+            for (int i = 0; i < callsPerViewer; i++) {
+              HttpRequest request = HttpRequest.newBuilder(uri)
+                  .header("Content-Type", "application/json")
+                  .header("CF-Connecting-IP", ip)
+                  .timeout(Duration.ofMinutes(2))
+                  .POST(HttpRequest.BodyPublishers.ofString(body))
+                  .build();
+              long sent = System.nanoTime();
+              HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+              latencies.add(System.nanoTime() - sent);
+              if (!ok.test(response)) {
+                failures.incrementAndGet();
+              }
+            }
+          } catch (Exception e) {
+            failures.incrementAndGet();
+          }
+        });
+      }
+      long begin = System.nanoTime();
+      start.countDown();
+      clients.shutdown();
+      clients.awaitTermination(10, TimeUnit.MINUTES);
+      elapsed = System.nanoTime() - begin;
+    }
+
+    List<Long> sorted = latencies.stream().sorted().toList();
+    long p99 = sorted.isEmpty() ? 0 : sorted.get(Math.max(0, (int) Math.ceil(sorted.size() * 0.99) - 1));
+    log.infof("handlers=%s endpoint=%s viewers=%d requests=%d failures=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms",
+        execution(), endpoint, viewers, sorted.size(), failures.get(), sorted.size() / (elapsed / 1e9),
+        sorted.isEmpty() ? 0 : sorted.get(sorted.size() / 2) / 1e6, p99 / 1e6);
+    assertEquals(0, failures.get());
+    assertEquals(viewers * callsPerViewer, sorted.size());
+  }
+}
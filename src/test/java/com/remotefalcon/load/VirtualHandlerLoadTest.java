@@ -0,0 +1,27 @@
+package com.remotefalcon.load;
+
+import com.remotefalcon.integration.MongoTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+import java.util.Map;
+
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(VirtualHandlerLoadTest.Profile.class)
+class VirtualHandlerLoadTest extends HandlerLoadTest {
+
+  public static class Profile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("viewer.handlers.execution", "virtual");
+    }
+  }
+
+  @Override
+  String execution() {
+    return "virtual";
+  }
+}
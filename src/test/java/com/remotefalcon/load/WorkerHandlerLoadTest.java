@@ -0,0 +1,27 @@
+package com.remotefalcon.load;
+
+import com.remotefalcon.integration.MongoTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+
+import java.util.Map;
+
+@QuarkusTest
+@QuarkusTestResource(MongoTestResource.class)
+@TestProfile(WorkerHandlerLoadTest.Profile.class)
+class WorkerHandlerLoadTest extends HandlerLoadTest {
+
+  public static class Profile implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("viewer.handlers.execution", "worker");
+    }
+  }
+
+  @Override
+  String execution() {
+    return "worker";
+  }
+}
@@ -0,0 +1,129 @@
+package com.remotefalcon.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.remotefalcon.library.quarkus.entity.Show;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ShowWriteBatcherTest {
+
+  private ShowWriteBatcher newBatcher(Duration window, int maxBatchSize) {
+    return new ShowWriteBatcher(true, window, maxBatchSize, 2, new SimpleMeterRegistry());
+  }
+
+  private WriteModel<Show> vote(String ip) {
+    return new UpdateOneModel<>(Filters.eq("showSubdomain", "sub"), Updates.push("votes.$.viewersVoted", ip));
+  }
+
+  private List<CompletableFuture<Void>> writeConcurrently(ShowWriteBatcher batcher, MongoCollection<Show> collection,
+      int count) {
+    List<CompletableFuture<Void>> results = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      WriteModel<Show> model = vote("10.0.0." + i);
+      results.add(CompletableFuture.runAsync(() -> batcher.write(collection, "sub", model)));
+    }
+    return results;
+  }
+
+  @Test
+  @DisplayName("Writes arriving within the window are sent as one bulkWrite")
+  @SuppressWarnings("unchecked")
+  void foldsWritesIntoOneBulkWrite() {
+    MongoCollection<Show> collection = mock(MongoCollection.class);
+    ShowWriteBatcher batcher = newBatcher(Duration.ofMillis(200), 3);
+
+    writeConcurrently(batcher, collection, 3).forEach(CompletableFuture::join);
+
+    ArgumentCaptor<List<WriteModel<Show>>> models = ArgumentCaptor.forClass(List.class);
+    verify(collection, times(1)).bulkWrite(models.capture(), any(BulkWriteOptions.class));
+    assertEquals(3, models.getValue().size());
+    assertEquals(0, batcher.pendingShows());
+  }
+
+  @Test
+  @DisplayName("Each caller sees only its own write error")
+  @SuppressWarnings("unchecked")
+  void mapsErrorsToCallers() {
+    MongoCollection<Show> collection = mock(MongoCollection.class);
+    ShowWriteBatcher batcher = newBatcher(Duration.ofMillis(200), 2);
+    BulkWriteError error = new BulkWriteError(2, "bad update", new BsonDocument(), 1);
+    when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new MongoBulkWriteException(
+        BulkWriteResult.unacknowledged(), List.of(error), null, new ServerAddress(), Set.of()));
+
+    WriteModel<Show> first = vote("10.0.0.1");
+    WriteModel<Show> second = vote("10.0.0.2");
+    List<Throwable> failures = new ArrayList<>();
+    CompletableFuture<Void> firstResult = CompletableFuture.runAsync(() -> batcher.write(collection, "sub", first));
+    // Give the first write a head start so it takes index 0
+    while (batcher.pendingShows() == 0) {
+      Thread.onSpinWait();
+    }
+    try {
+      batcher.write(collection, "sub", second);
+    } catch (MongoException e) {
+      failures.add(e);
+    }
+
+    firstResult.join();
+    assertEquals(1, failures.size());
+    MongoWriteException failure = assertInstanceOf(MongoWriteException.class, failures.get(0));
+    assertEquals(2, failure.getCode());
+    assertEquals("bad update", failure.getError().getMessage());
+    assertEquals(new ServerAddress(), failure.getServerAddress());
+  }
+
+  @Test
+  @DisplayName("Different shows are committed separately")
+  @SuppressWarnings("unchecked")
+  void batchesPerShow() {
+    MongoCollection<Show> collection = mock(MongoCollection.class);
+    ShowWriteBatcher batcher = newBatcher(Duration.ofMillis(5), 100);
+
+    batcher.write(collection, "one", vote("10.0.0.1"));
+    batcher.write(collection, "two", vote("10.0.0.2"));
+
+    verify(collection, times(2)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+  }
+
+  @Test
+  @DisplayName("A disabled batcher starts no flush threads and shuts down cleanly")
+  void disabledStartsNoThreads() {
+    long before = flushThreads();
+    ShowWriteBatcher batcher = new ShowWriteBatcher(false, Duration.ofMillis(5), 100, 4, new SimpleMeterRegistry());
+
+    assertFalse(batcher.isEnabled());
+    assertEquals(before, flushThreads());
+    assertDoesNotThrow(batcher::shutdown);
+  }
+
+  private static long flushThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(thread -> thread.getName().startsWith("show-group-commit-"))
+        .count();
+  }
+}
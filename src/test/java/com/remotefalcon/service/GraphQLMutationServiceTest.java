@@ -1,5 +1,6 @@
 package com.remotefalcon.service;
 
+import com.remotefalcon.cache.ShowOwnerCache;
 import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
 import com.remotefalcon.library.enums.LocationCheckMethod;
 import com.remotefalcon.library.models.*;
@@ -36,6 +37,15 @@ class GraphQLMutationServiceTest {
   @InjectMock
   HttpServerRequest httpServerRequest;
 
+  @InjectMock
+  PageStatService pageStatService;
+
+  @InjectMock
+  ShowOwnerCache showOwnerCache;
+
+  @InjectMock
+  ActiveViewerTracker activeViewerTracker;
+
   @BeforeEach
   void setUp() {
     reset(showRepository, routingContext, httpServerRequest);
@@ -43,24 +53,6 @@ class GraphQLMutationServiceTest {
     when(httpServerRequest.getHeader("CF-Connecting-IP")).thenReturn("1.2.3.4");
   }
 
-  private Show mockShowWithStatsAndActiveViewers(String lastLoginIp) {
-    Show show = mock(Show.class);
-    when(show.getLastLoginIp()).thenReturn(lastLoginIp);
-
-    // Stats with real lists
-    Stat stats = mock(Stat.class);
-    when(stats.getPage()).thenReturn(new ArrayList<>());
-    when(stats.getJukebox()).thenReturn(new ArrayList<>());
-    when(stats.getVoting()).thenReturn(new ArrayList<>());
-    when(show.getStats()).thenReturn(stats);
-
-    // Active viewers list
-    List<ActiveViewer> activeViewers = new ArrayList<>();
-    when(show.getActiveViewers()).thenReturn(activeViewers);
-
-    return show;
-  }
-
   private Show mockShowWithPrefsAndCollections() {
     // Use deep stubs to allow chaining on getPreferences()
     Show show = mock(Show.class, RETURNS_DEEP_STUBS);
@@ -137,39 +129,52 @@ class GraphQLMutationServiceTest {
       assertTrue(result);
       verify(showRepository, never()).appendPageStatIfNotOwner(anyString(), anyString(), any());
     }
+
+    @Test
+    @DisplayName("Should record to the time-series collection instead of the Show document in timeseries mode")
+    void shouldRecordToTimeSeries() {
+      LocalDateTime now = LocalDateTime.now();
+      when(pageStatService.isTimeSeries()).thenReturn(true);
+      when(pageStatService.record("test", "1.2.3.4", now)).thenReturn(true);
+
+      Boolean result = service.insertViewerPageStats("test", now);
+
+      assertTrue(result);
+      verify(pageStatService).record("test", "1.2.3.4", now);
+      verify(showRepository, never()).appendPageStatIfNotOwner(anyString(), anyString(), any());
+    }
   }
 
   @Nested
   @DisplayName("updateActiveViewers")
   class UpdateActiveViewersTests {
     @Test
-    @DisplayName("Should add active viewer and persist when IP differs from last login and remove existing duplicate")
+    @DisplayName("Should track active viewer in memory when IP differs from last login")
     void shouldUpdateActiveViewers() {
-      Show show = mockShowWithStatsAndActiveViewers("9.9.9.9");
-      when(showRepository.findByShowSubdomain("test")).thenReturn(Optional.of(show));
+      when(showOwnerCache.ownerIp("test")).thenReturn(Optional.of("9.9.9.9"));
 
       Boolean result = service.updateActiveViewers("test");
 
       assertTrue(result);
-      verify(showRepository).updateActiveViewer(eq("test"), eq("1.2.3.4"), any(LocalDateTime.class));
+      verify(activeViewerTracker).heartbeat("test", "1.2.3.4");
+      verifyNoInteractions(showRepository);
     }
 
     @Test
-    @DisplayName("Should not persist when IP equals last login IP")
+    @DisplayName("Should not track when IP equals last login IP")
     void shouldNotPersistWhenSameIpAsLastLogin() {
-      Show show = mockShowWithStatsAndActiveViewers("1.2.3.4");
-      when(showRepository.findByShowSubdomain("test")).thenReturn(Optional.of(show));
+      when(showOwnerCache.ownerIp("test")).thenReturn(Optional.of("1.2.3.4"));
 
       Boolean result = service.updateActiveViewers("test");
 
       assertTrue(result);
-      verify(showRepository, never()).updateActiveViewer(anyString(), anyString(), any());
+      verify(activeViewerTracker, never()).heartbeat(anyString(), anyString());
     }
 
     @Test
     @DisplayName("Should throw when show not found for active viewers update")
     void shouldThrowWhenShowNotFound() {
-      when(showRepository.findByShowSubdomain("missing")).thenReturn(Optional.empty());
+      when(showOwnerCache.ownerIp("missing")).thenReturn(Optional.empty());
       assertThrows(CustomGraphQLExceptionResolver.class, () -> service.updateActiveViewers("missing"));
     }
   }
@@ -180,19 +185,19 @@ class GraphQLMutationServiceTest {
     @Test
     @DisplayName("Should update playing now and persist")
     void shouldUpdatePlayingNow() {
-      Show show = mockShowWithStatsAndActiveViewers("9.9.9.9");
-      when(showRepository.findByShowSubdomain("test")).thenReturn(Optional.of(show));
+      when(showRepository.updatePlayingNow("test", "Song A")).thenReturn(1L);
 
       Boolean result = service.updatePlayingNow("test", "Song A");
 
       assertTrue(result);
       verify(showRepository).updatePlayingNow("test", "Song A");
+      verify(showRepository, never()).findByShowSubdomain(anyString());
     }
 
     @Test
     @DisplayName("Should throw when show not found for playing now update")
     void shouldThrowPlayingNowNotFound() {
-      when(showRepository.findByShowSubdomain("missing")).thenReturn(Optional.empty());
+      when(showRepository.updatePlayingNow("missing", "Song A")).thenReturn(0L);
       assertThrows(CustomGraphQLExceptionResolver.class, () -> service.updatePlayingNow("missing", "Song A"));
     }
   }
@@ -203,19 +208,19 @@ class GraphQLMutationServiceTest {
     @Test
     @DisplayName("Should update playing next and persist")
     void shouldUpdatePlayingNext() {
-      Show show = mockShowWithStatsAndActiveViewers("9.9.9.9");
-      when(showRepository.findByShowSubdomain("test")).thenReturn(Optional.of(show));
+      when(showRepository.updatePlayingNext("test", "Next Song")).thenReturn(1L);
 
       Boolean result = service.updatePlayingNext("test", "Next Song");
 
       assertTrue(result);
       verify(showRepository).updatePlayingNext("test", "Next Song");
+      verify(showRepository, never()).findByShowSubdomain(anyString());
     }
 
     @Test
     @DisplayName("Should throw when show not found for playing next update")
     void shouldThrowPlayingNextNotFound() {
-      when(showRepository.findByShowSubdomain("missing")).thenReturn(Optional.empty());
+      when(showRepository.updatePlayingNext("missing", "Next Song")).thenReturn(0L);
       assertThrows(CustomGraphQLExceptionResolver.class, () -> service.updatePlayingNext("missing", "Next Song"));
     }
   }
@@ -389,7 +394,7 @@ class GraphQLMutationServiceTest {
     }
 
     @Test
-    @DisplayName("Append sequence when requests exist; PSA handled (frequency 1) and appended after user request")
+    @DisplayName("Append sequence when requests exist; PSA (frequency 1) queued after user request in the same write")
     void appendSequenceAndHandlePsa() {
       Show show = mockShowWithPrefsAndCollections();
       // Existing latest position 5
@@ -424,21 +429,50 @@ class GraphQLMutationServiceTest {
       show.getSequences().add(userSeq);
       show.getSequences().add(psaSeq);
 
-      when(showRepository.findByShowSubdomainForMutations("sub")).thenReturn(Optional.of(show), Optional.of(show));
-      when(showRepository.nextRequestPosition(any(Show.class))).thenReturn(6L, 7L);
+      when(showRepository.findByShowSubdomainForMutations("sub")).thenReturn(Optional.of(show));
+      // One position for the user request and one for the PSA
+      when(showRepository.allocatePositionBlock(show, 2)).thenReturn(6L);
+      when(showRepository.appendRequestsCountingToday(eq("sub"), any(), any(), any())).thenReturn(1L);
 
       Boolean result = service.addSequenceToQueue("sub", "user-seq", 0f, 0f);
       assertTrue(result);
 
-      // Verify user request was added
-      verify(showRepository).appendRequestAndJukeboxStat(eq("sub"), argThat(req ->
-          req.getPosition() == 6 && "1.2.3.4".equals(req.getViewerRequested())
-      ), any());
-
-      // Verify PSA request was added
-      verify(showRepository).appendRequest(eq("sub"), argThat(req ->
-          req.getPosition() == 7 && "PSA".equals(req.getViewerRequested())
+      // User request and PSA go out in one write that returns today's request count
+      verify(showRepository).appendRequestsCountingToday(eq("sub"), argThat(reqs ->
+          reqs.size() == 1 && reqs.get(0).getPosition() == 6 && "1.2.3.4".equals(reqs.get(0).getViewerRequested())
+      ), any(), argThat(psaToQueue ->
+          "psa-seq".equals(psaToQueue.name()) && psaToQueue.frequency() == 1
+              && psaToQueue.request().getPosition() == 7 && "PSA".equals(psaToQueue.request().getViewerRequested())
       ));
+      verify(psa).setLastPlayed(any());
+      // The loaded show now holds the user request and the PSA
+      assertEquals(3, show.getRequests().size());
+    }
+
+    @Test
+    @DisplayName("PSA is not queued when today's request count is not a multiple of the frequency")
+    void psaSkippedBetweenFrequency() {
+      Show show = mockShowWithPrefsAndCollections();
+      when(show.getPreferences().getPsaEnabled()).thenReturn(true);
+      when(show.getPreferences().getManagePsa()).thenReturn(false);
+      when(show.getPreferences().getPsaFrequency()).thenReturn(2);
+      PsaSequence psa = mock(PsaSequence.class);
+      when(psa.getName()).thenReturn("psa-seq");
+      when(psa.getLastPlayed()).thenReturn(LocalDateTime.now().minusDays(1));
+      show.getPsaSequences().add(psa);
+      Sequence userSeq = mock(Sequence.class);
+      when(userSeq.getName()).thenReturn("user-seq");
+      show.getSequences().add(userSeq);
+
+      when(showRepository.findByShowSubdomainForMutations("sub")).thenReturn(Optional.of(show));
+      when(showRepository.allocatePositionBlock(show, 2)).thenReturn(1L);
+      when(showRepository.appendRequestsCountingToday(eq("sub"), any(), any(), any())).thenReturn(3L);
+
+      assertTrue(service.addSequenceToQueue("sub", "user-seq", 0f, 0f));
+
+      // Only the user request was queued and the PSA keeps its lastPlayed
+      verify(psa, never()).setLastPlayed(any());
+      assertEquals(1, show.getRequests().size());
     }
 
     @Test
@@ -6,6 +6,7 @@ import com.remotefalcon.library.models.SequenceGroup;
 import com.remotefalcon.library.models.ViewerPage;
 import com.remotefalcon.library.quarkus.entity.Show;
 import com.remotefalcon.repository.ShowRepository;
+import com.remotefalcon.repository.ViewerProjection;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -17,6 +18,7 @@ import org.mockito.ArgumentCaptor;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -178,6 +180,29 @@ class GraphQLQueryServiceTest {
       Show result = service.getShow("missing");
       assertNull(result);
     }
+
+    @Test
+    @DisplayName("Should load only the projected fields when the selection is narrowed")
+    void shouldUseNarrowedProjection() {
+      ViewerProjection projection = ViewerProjection.forSelectedFields(List.of("showName", "playingNow"));
+      Show show = mock(Show.class);
+      when(show.getSequences()).thenReturn(new ArrayList<>());
+      when(showRepository.findByShowSubdomainForViewer("sub", projection)).thenReturn(Optional.of(show));
+
+      Show result = service.getShow("sub", projection);
+
+      assertSame(show, result);
+      assertEquals(Set.of("showName", "playingNow", "sequences"), projection.includedFields());
+      verify(showRepository).findByShowSubdomainForViewer("sub", projection);
+      verify(showRepository, never()).findByShowSubdomainForViewer("sub");
+    }
+
+    @Test
+    @DisplayName("Should fall back to the full viewer document for fields without a known dependency")
+    void shouldFallBackToFullProjection() {
+      assertTrue(ViewerProjection.forSelectedFields(List.of("showName", "stats")).isFull());
+      assertTrue(ViewerProjection.forSelectedFields(List.of("__typename")).isFull());
+    }
   }
 
   @Nested
@@ -227,6 +252,18 @@ class GraphQLQueryServiceTest {
       assertEquals("", html);
     }
 
+    @Test
+    @DisplayName("findActiveViewerPage tells a missing show apart from one without an active page")
+    void findReturnsEmptyOnlyWhenShowMissing() {
+      Show show = mock(Show.class);
+      when(show.getPages()).thenReturn(new ArrayList<>());
+      when(showRepository.findPagesOnlyByShowSubdomain("sub")).thenReturn(Optional.of(show));
+      when(showRepository.findPagesOnlyByShowSubdomain("missing")).thenReturn(Optional.empty());
+
+      assertEquals(Optional.of(""), service.findActiveViewerPage("sub"));
+      assertTrue(service.findActiveViewerPage("missing").isEmpty());
+    }
+
     @Test
     @DisplayName("Returns empty string when pages list is null")
     void returnsEmptyWhenPagesNull() {
@@ -0,0 +1,44 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.enums.StatusResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationOutcomeTest {
+
+  @Test
+  @DisplayName("Accepted outcome has no rejection and orThrow returns true")
+  void accepted() {
+    assertTrue(MutationOutcome.ACCEPTED.isAccepted());
+    assertNull(MutationOutcome.ACCEPTED.rejection());
+    assertTrue(MutationOutcome.ACCEPTED.orThrow());
+  }
+
+  @Test
+  @DisplayName("Rejections are shared per status")
+  void rejectionsAreShared() {
+    MutationOutcome queueFull = MutationOutcome.rejected(StatusResponse.QUEUE_FULL);
+
+    assertFalse(queueFull.isAccepted());
+    assertEquals("QUEUE_FULL", queueFull.rejection());
+    assertSame(queueFull, MutationOutcome.rejected("QUEUE_FULL"));
+    assertSame(MutationOutcome.rejected("SEQUENCE_NOT_FOUND"), MutationOutcome.rejected("SEQUENCE_NOT_FOUND"));
+  }
+
+  @Test
+  @DisplayName("orThrow throws the shared stackless exception carrying the status as message")
+  void orThrowUsesPreallocatedException() {
+    CustomGraphQLExceptionResolver first = assertThrows(CustomGraphQLExceptionResolver.class,
+        () -> MutationOutcome.rejected(StatusResponse.NAUGHTY).orThrow());
+    CustomGraphQLExceptionResolver second = assertThrows(CustomGraphQLExceptionResolver.class,
+        () -> MutationOutcome.rejected(StatusResponse.NAUGHTY).orThrow());
+
+    assertSame(first, second);
+    assertEquals(0, first.getStackTrace().length);
+    assertEquals("NAUGHTY", first.getMessage());
+    assertEquals("NAUGHTY", first.getExtensions().get("message"));
+  }
+}
@@ -0,0 +1,68 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.models.PsaSequence;
+import com.remotefalcon.library.quarkus.entity.Show;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PsaSchedulerTest {
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 12, 24, 20, 0);
+
+  private PsaSequence psa(String name, int order, LocalDateTime lastPlayed) {
+    PsaSequence psa = new PsaSequence();
+    psa.setName(name);
+    psa.setOrder(order);
+    psa.setLastPlayed(lastPlayed);
+    return psa;
+  }
+
+  private Show show(PsaSequence... psas) {
+    Show show = new Show();
+    show.setPsaSequences(new ArrayList<>(List.of(psas)));
+    return show;
+  }
+
+  @Test
+  @DisplayName("Next PSA is the one played longest ago, ties broken by order")
+  void nextIsLeastRecentlyPlayed() {
+    Show show = this.show(
+        this.psa("B", 2, NOW.minusHours(2)),
+        this.psa("A", 1, NOW.minusHours(2)),
+        this.psa("C", 3, NOW.minusHours(1)));
+
+    assertEquals("A", new PsaScheduler().next(show).orElseThrow().getName());
+    assertTrue(new PsaScheduler().next(this.show()).isEmpty());
+  }
+
+  @Test
+  @DisplayName("A played PSA moves behind the others and its lastPlayed is updated")
+  void playedRotates() {
+    Show show = this.show(this.psa("A", 1, NOW.minusHours(3)), this.psa("B", 2, NOW.minusHours(2)));
+    PsaScheduler scheduler = new PsaScheduler();
+
+    scheduler.played(show, NOW);
+
+    assertEquals(NOW, show.getPsaSequences().get(0).getLastPlayed());
+    assertEquals("B", scheduler.next(show).orElseThrow().getName());
+    scheduler.played(show, NOW.plusMinutes(5));
+    assertEquals("A", scheduler.next(show).orElseThrow().getName());
+  }
+
+  @Test
+  @DisplayName("Replacing the PSA list rebuilds the rotation")
+  void replacedListRebuilds() {
+    Show show = this.show(this.psa("A", 1, NOW.minusHours(1)));
+    PsaScheduler scheduler = new PsaScheduler();
+    assertEquals("A", scheduler.next(show).orElseThrow().getName());
+
+    show.setPsaSequences(new ArrayList<>(List.of(this.psa("Z", 1, null))));
+
+    assertEquals("Z", scheduler.next(show).orElseThrow().getName());
+  }
+}
@@ -0,0 +1,102 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.quarkus.entity.Show;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestQueueTest {
+
+  private Request request(String sequenceName, int position) {
+    Sequence sequence = new Sequence();
+    sequence.setName(sequenceName);
+    return Request.builder().sequence(sequence).position(position).build();
+  }
+
+  private Show show(Request... requests) {
+    Show show = new Show();
+    show.setRequests(new ArrayList<>(List.of(requests)));
+    return show;
+  }
+
+  @Test
+  @DisplayName("Head is the lowest position regardless of list order")
+  void headIsLowestPosition() {
+    Show show = this.show(this.request("B", 5), this.request("A", 2), this.request("C", 9));
+
+    assertEquals("A", new RequestQueue().head(show).orElseThrow().getSequence().getName());
+    assertTrue(new RequestQueue().head(this.show()).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Last-N lookup only considers the highest positions")
+  void lastNByPosition() {
+    Show show = this.show(this.request("A", 1), this.request("B", 2), this.request("C", 3));
+    RequestQueue queue = new RequestQueue();
+
+    assertTrue(queue.isAmongLast(show, 2, "C"));
+    assertTrue(queue.isAmongLast(show, 2, "B"));
+    assertFalse(queue.isAmongLast(show, 2, "A"));
+    assertTrue(queue.isAmongLast(show, 10, "A"));
+  }
+
+  @Test
+  @DisplayName("Appended requests are merged in order without a rebuild")
+  void appendsAreMerged() {
+    Show show = this.show(this.request("A", 1), this.request("B", 4));
+    RequestQueue queue = new RequestQueue();
+    assertFalse(queue.isAmongLast(show, 1, "C"));
+
+    show.getRequests().add(this.request("C", 5));
+    show.getRequests().add(this.request("D", 0));
+
+    assertTrue(queue.isAmongLast(show, 1, "C"));
+    assertEquals("D", queue.head(show).orElseThrow().getSequence().getName());
+  }
+
+  @Test
+  @DisplayName("A replaced request list is reindexed")
+  void replacedListIsReindexed() {
+    Show show = this.show(this.request("A", 1));
+    RequestQueue queue = new RequestQueue();
+    assertTrue(queue.head(show).isPresent());
+
+    show.setRequests(new ArrayList<>(List.of(this.request("Z", 7))));
+    assertEquals("Z", queue.head(show).orElseThrow().getSequence().getName());
+  }
+
+  @Test
+  @DisplayName("Scans give the same answers without sorting a copy")
+  void scansMatchQueue() {
+    Show show = this.show(this.request("B", 5), this.request("A", 2), this.request("C", 9), this.request("D", 7));
+
+    assertEquals("A", RequestQueue.scanHead(show).orElseThrow().getSequence().getName());
+    assertTrue(RequestQueue.scanHead(this.show()).isEmpty());
+    assertTrue(RequestQueue.scanAmongLast(show, 2, "C"));
+    assertTrue(RequestQueue.scanAmongLast(show, 2, "D"));
+    assertFalse(RequestQueue.scanAmongLast(show, 2, "B"));
+    assertTrue(RequestQueue.scanAmongLast(show, 10, "A"));
+    assertFalse(RequestQueue.scanAmongLast(show, 0, "C"));
+  }
+
+  @Test
+  @DisplayName("Index keeps a queue only for retained shows and scans the rest")
+  void indexKeepsQueueOnlyForRetainedShows() {
+    ViewerMembershipIndex index = new ViewerMembershipIndex();
+    Show oneShot = this.show(this.request("B", 5), this.request("A", 2));
+    Show retained = this.show(this.request("B", 5), this.request("A", 2));
+    index.retain(retained);
+
+    assertEquals("A", index.head(oneShot).orElseThrow().getSequence().getName());
+    assertTrue(index.isAmongLast(oneShot, 1, "B"));
+    retained.getRequests().add(this.request("C", 1));
+    assertEquals("C", index.head(retained).orElseThrow().getSequence().getName());
+    assertFalse(index.isAmongLast(retained, 1, "C"));
+  }
+}
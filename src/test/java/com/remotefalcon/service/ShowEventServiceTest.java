@@ -0,0 +1,124 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.models.SequenceGroup;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.response.ShowStateResponse;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+class ShowEventServiceTest {
+
+  @Inject
+  ShowEventService service;
+
+  @InjectMock
+  GraphQLQueryService queryService;
+
+  private Sse sse;
+  private OutboundSseEvent frame;
+
+  @BeforeEach
+  void setUp() {
+    sse = mock(Sse.class);
+    frame = mock(OutboundSseEvent.class);
+    OutboundSseEvent.Builder builder = mock(OutboundSseEvent.Builder.class, RETURNS_SELF);
+    when(builder.build()).thenReturn(frame);
+    when(sse.newEventBuilder()).thenReturn(builder);
+  }
+
+  private SseEventSink openSink() {
+    SseEventSink sink = mock(SseEventSink.class);
+    when(sink.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+    return sink;
+  }
+
+  private Show show(String subdomain) {
+    Show show = new Show();
+    show.setShowSubdomain(subdomain);
+    show.setPlayingNow("Song A");
+    show.setRequests(new ArrayList<>());
+    show.setVotes(new ArrayList<>());
+    return show;
+  }
+
+  @Test
+  @DisplayName("Subscribing sends the current state as the first frame")
+  void subscribeSendsInitialState() {
+    when(queryService.getShow("events-initial")).thenReturn(show("events-initial"));
+    SseEventSink sink = openSink();
+
+    service.subscribe("events-initial", sink, sse);
+
+    verify(sink).send(frame);
+    assertEquals(1, service.subscriberCount("events-initial"));
+  }
+
+  @Test
+  @DisplayName("Subscribing to an unknown show is rejected")
+  void subscribeUnknownShow() {
+    when(queryService.getShow("missing")).thenReturn(null);
+
+    assertThrows(NotFoundException.class, () -> service.subscribe("missing", openSink(), sse));
+    assertEquals(0, service.subscriberCount("missing"));
+  }
+
+  @Test
+  @DisplayName("Closed sinks are dropped on the next frame")
+  void closedSinksAreDropped() {
+    when(queryService.getShow("events-closed")).thenReturn(show("events-closed"));
+    SseEventSink sink = openSink();
+    service.subscribe("events-closed", sink, sse);
+    when(sink.isClosed()).thenReturn(true);
+
+    service.publish("events-closed", "votes");
+
+    verify(sink, timeout(2000)).close();
+    assertEquals(0, service.subscriberCount("events-closed"));
+  }
+
+  @Test
+  @DisplayName("State lists the queue by position and sums votes per sequence or group")
+  void buildsCompactState() {
+    Show show = show("sub");
+    Sequence first = new Sequence();
+    first.setName("first");
+    first.setDisplayName("First");
+    Sequence second = new Sequence();
+    second.setName("second");
+    second.setDisplayName("Second");
+    show.setRequests(new ArrayList<>(List.of(
+        Request.builder().sequence(second).position(2).build(),
+        Request.builder().sequence(first).position(1).build())));
+    SequenceGroup group = new SequenceGroup();
+    group.setName("Group");
+    show.setVotes(new ArrayList<>(List.of(
+        Vote.builder().sequence(first).votes(3).build(),
+        Vote.builder().sequenceGroup(group).votes(2).build())));
+
+    ShowStateResponse state = ShowEventService.toState(show);
+
+    assertEquals("Song A", state.getPlayingNow());
+    assertEquals(List.of("First", "Second"), state.getQueue());
+    assertEquals(3, state.getVotes().get("first"));
+    assertEquals(2, state.getVotes().get("Group"));
+  }
+}
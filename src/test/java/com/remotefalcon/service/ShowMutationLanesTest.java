@@ -0,0 +1,165 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.exception.CustomGraphQLExceptionResolver;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.repository.ShowChangeEvent;
+import com.remotefalcon.repository.ShowRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShowMutationLanesTest {
+
+  private ShowMutationLanes lanes;
+
+  private ShowMutationLanes newLanes(ShowRepository showRepository, Duration stateTtl, Duration idleTimeout) {
+    ShowMutationLanes lanes = new ShowMutationLanes();
+    lanes.showRepository = showRepository;
+    lanes.viewerMembership = new ViewerMembershipIndex();
+    lanes.enabled = true;
+    lanes.stateTtl = stateTtl;
+    lanes.idleTimeout = idleTimeout;
+    lanes.init();
+    this.lanes = lanes;
+    return lanes;
+  }
+
+  private ShowRepository repositoryWithShow() {
+    ShowRepository showRepository = mock(ShowRepository.class);
+    when(showRepository.findByShowSubdomainForMutations("sub")).thenAnswer(invocation -> {
+      Show show = new Show();
+      show.setShowSubdomain("sub");
+      show.setRequests(new ArrayList<>());
+      return Optional.of(show);
+    });
+    return showRepository;
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (lanes != null) {
+      lanes.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("Mutations for one show run one at a time against a single warm copy")
+  void runsSeriallyOnWarmCopy() {
+    ShowRepository showRepository = repositoryWithShow();
+    ShowMutationLanes lanes = newLanes(showRepository, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<CompletableFuture<Integer>> results = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      results.add(CompletableFuture.supplyAsync(() -> lanes.execute("sub", show -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        show.orElseThrow().getRequests().add(null);
+        int size = show.orElseThrow().getRequests().size();
+        running.decrementAndGet();
+        return size;
+      })));
+    }
+
+    assertEquals(200, results.stream().mapToInt(CompletableFuture::join).max().orElseThrow());
+    assertEquals(1, maxRunning.get());
+    verify(showRepository, times(1)).findByShowSubdomainForMutations("sub");
+  }
+
+  @Test
+  @DisplayName("Rejections keep the warm copy, other failures and outside changes drop it")
+  void invalidatesOnFailureAndOutsideChanges() {
+    ShowRepository showRepository = repositoryWithShow();
+    ShowMutationLanes lanes = newLanes(showRepository, Duration.ofMinutes(1), Duration.ofMinutes(5));
+
+    assertThrows(CustomGraphQLExceptionResolver.class, () -> lanes.execute("sub", show -> {
+      throw new CustomGraphQLExceptionResolver("QUEUE_FULL");
+    }));
+    lanes.onShowChanged(new ShowChangeEvent("sub", Set.of("requests.3", "stats.jukebox.10")));
+    lanes.execute("sub", show -> true);
+    verify(showRepository, times(1)).findByShowSubdomainForMutations("sub");
+
+    assertThrows(IllegalStateException.class, () -> lanes.execute("sub", show -> {
+      throw new IllegalStateException("write failed");
+    }));
+    lanes.execute("sub", show -> true);
+    verify(showRepository, times(2)).findByShowSubdomainForMutations("sub");
+
+    lanes.onShowChanged(new ShowChangeEvent("sub", Set.of("preferences.jukeboxDepth")));
+    lanes.execute("sub", show -> true);
+    verify(showRepository, times(3)).findByShowSubdomainForMutations("sub");
+  }
+
+  @Test
+  @DisplayName("A rejection made against a warm copy is checked again against a fresh read")
+  void rechecksWarmRejections() {
+    ShowRepository showRepository = repositoryWithShow();
+    ShowMutationLanes lanes = newLanes(showRepository, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    lanes.execute("sub", show -> true);
+
+    // The plugin dequeued behind the lane's back: the warm copy says full, the fresh read has room
+    AtomicInteger attempts = new AtomicInteger();
+    MutationOutcome outcome = lanes.execute("sub", show -> attempts.incrementAndGet() == 1
+        ? MutationOutcome.rejected("QUEUE_FULL") : MutationOutcome.ACCEPTED);
+    assertTrue(outcome.isAccepted());
+    assertEquals(2, attempts.get());
+    verify(showRepository, times(2)).findByShowSubdomainForMutations("sub");
+
+    // Still rejected on the fresh read: the viewer gets that answer and nothing is read a third time
+    assertThrows(CustomGraphQLExceptionResolver.class, () -> lanes.execute("sub", show -> {
+      throw new CustomGraphQLExceptionResolver("ALREADY_VOTED");
+    }));
+    verify(showRepository, times(3)).findByShowSubdomainForMutations("sub");
+  }
+
+  @Test
+  @DisplayName("Mutations of different shows don't wait for each other")
+  void showsDoNotBlockEachOther() throws Exception {
+    ShowRepository showRepository = mock(ShowRepository.class);
+    when(showRepository.findByShowSubdomainForMutations(anyString())).thenReturn(Optional.of(new Show()));
+    ShowMutationLanes lanes = newLanes(showRepository, Duration.ofMinutes(1), Duration.ofMinutes(5));
+    CompletableFuture<Void> release = new CompletableFuture<>();
+
+    try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<Boolean>> stuck = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        String showSubdomain = "slow-" + i;
+        stuck.add(callers.submit(() -> lanes.execute(showSubdomain, show -> release.join() == null)));
+      }
+
+      assertTrue(callers.submit(() -> lanes.execute("sub", show -> true)).get(5, TimeUnit.SECONDS));
+      release.complete(null);
+      for (Future<Boolean> result : stuck) {
+        assertTrue(result.get());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Idle lanes are evicted")
+  void evictsIdleLanes() throws InterruptedException {
+    ShowMutationLanes lanes = newLanes(repositoryWithShow(), Duration.ofMinutes(1), Duration.ofMillis(50));
+
+    lanes.execute("sub", show -> true);
+    assertEquals(1, lanes.laneCount());
+    Thread.sleep(100);
+    lanes.evictIdle();
+
+    assertEquals(0, lanes.laneCount());
+  }
+}
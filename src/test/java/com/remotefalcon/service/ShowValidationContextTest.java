@@ -0,0 +1,106 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.enums.LocationCheckMethod;
+import com.remotefalcon.library.models.Preference;
+import com.remotefalcon.library.models.Sequence;
+import com.remotefalcon.library.models.SequenceGroup;
+import com.remotefalcon.library.quarkus.entity.Show;
+import com.remotefalcon.util.LocationUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShowValidationContextTest {
+
+  private Show show() {
+    Show show = new Show();
+    show.setShowSubdomain("sub");
+    Preference preferences = new Preference();
+    preferences.setLocationCheckMethod(LocationCheckMethod.NONE);
+    show.setPreferences(preferences);
+    show.setSequences(List.of(
+        sequence("Jingle Bells", null, 1),
+        sequence("Carol B", "Classics", 2),
+        sequence("Carol A", "Classics", 1)));
+    SequenceGroup group = new SequenceGroup();
+    group.setName("Classics");
+    show.setSequenceGroups(List.of(group));
+    return show;
+  }
+
+  private Sequence sequence(String name, String group, int order) {
+    Sequence sequence = new Sequence();
+    sequence.setName(name);
+    sequence.setGroup(group);
+    sequence.setOrder(order);
+    return sequence;
+  }
+
+  @Test
+  @DisplayName("Blocks exact IPs and addresses inside blocked CIDR ranges")
+  void blocksIpsAndRanges() {
+    Show show = this.show();
+    show.getPreferences().setBlockedViewerIps(Set.of("1.2.3.4", "203.0.113.0/24"));
+    ShowValidationContext context = ShowValidationContext.of(show, 1L);
+
+    assertTrue(context.isIpBlocked("1.2.3.4"));
+    assertTrue(context.isIpBlocked("203.0.113.99"));
+    assertFalse(context.isIpBlocked("203.0.114.1"));
+    assertFalse(context.isIpBlocked("5.6.7.8"));
+    assertEquals(1L, context.version());
+  }
+
+  @Test
+  @DisplayName("Finds sequences and groups by case-insensitive name")
+  void findsByCaseInsensitiveName() {
+    ShowValidationContext context = ShowValidationContext.of(this.show(), 0L);
+
+    assertEquals("Jingle Bells", context.sequence("jingle BELLS").orElseThrow().getName());
+    assertEquals("Classics", context.sequenceGroup("CLASSICS").orElseThrow().getName());
+    assertTrue(context.sequence("Unknown").isEmpty());
+    assertTrue(context.sequenceGroup(null).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Returns group members sorted by order")
+  void groupMembersSortedByOrder() {
+    ShowValidationContext context = ShowValidationContext.of(this.show(), 0L);
+
+    assertEquals(List.of("Carol A", "Carol B"),
+        context.groupSequences("classics").stream().map(Sequence::getName).toList());
+    assertTrue(context.groupSequences("Other").isEmpty());
+  }
+
+  @Test
+  @DisplayName("GEO check agrees with LocationUtil around the radius")
+  void geoCheckMatchesLocationUtil() {
+    Show show = this.show();
+    show.getPreferences().setLocationCheckMethod(LocationCheckMethod.GEO);
+    show.getPreferences().setShowLatitude(40.7128f);
+    show.getPreferences().setShowLongitude(-74.0060f);
+    show.getPreferences().setAllowedRadius(5f);
+    ShowValidationContext context = ShowValidationContext.of(show, 0L);
+
+    float[][] viewers = {{40.7128f, -74.0060f}, {40.75f, -74.0f}, {40.80f, -74.0f}, {41.5f, -73.0f}};
+    for (float[] viewer : viewers) {
+      boolean expected = LocationUtil.asTheCrowFlies(40.7128f, -74.0060f, viewer[0], viewer[1]) <= 5f;
+      assertEquals(expected, context.isViewerPresent(viewer[0], viewer[1]));
+    }
+    assertFalse(context.isViewerPresent(null, -74.0f));
+  }
+
+  @Test
+  @DisplayName("GEO check without an allowed radius rejects viewers")
+  void geoCheckWithoutRadius() {
+    Show show = this.show();
+    show.getPreferences().setLocationCheckMethod(LocationCheckMethod.GEO);
+    show.getPreferences().setShowLatitude(40.7128f);
+    show.getPreferences().setShowLongitude(-74.0060f);
+
+    assertFalse(ShowValidationContext.of(show, 0L).isViewerPresent(40.7128f, -74.0060f));
+  }
+}
@@ -0,0 +1,89 @@
+package com.remotefalcon.service;
+
+import com.remotefalcon.library.models.Request;
+import com.remotefalcon.library.models.Vote;
+import com.remotefalcon.library.quarkus.entity.Show;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewerMembershipTest {
+
+  private Show show() {
+    Show show = new Show();
+    show.setRequests(new ArrayList<>(List.of(Request.builder().viewerRequested("1.1.1.1").position(1).build())));
+    show.setVotes(new ArrayList<>(List.of(
+        Vote.builder().viewersVoted(new ArrayList<>(List.of("2.2.2.2", "3.3.3.3"))).votes(2).build(),
+        Vote.builder().viewersVoted(new ArrayList<>(List.of("4.4.4.4"))).votes(1).build())));
+    return show;
+  }
+
+  @Test
+  @DisplayName("Finds requesters case-insensitively and picks up requests appended later")
+  void requestersFollowAppends() {
+    Show show = this.show();
+    ViewerMembership membership = new ViewerMembership();
+
+    assertTrue(membership.hasRequested(show, "1.1.1.1"));
+    assertFalse(membership.hasRequested(show, "fe80::a"));
+
+    show.getRequests().add(Request.builder().viewerRequested("FE80::A").position(2).build());
+    assertTrue(membership.hasRequested(show, "fe80::a"));
+  }
+
+  @Test
+  @DisplayName("Reindexes requests when the list is replaced")
+  void requestersReindexOnReplacedList() {
+    Show show = this.show();
+    ViewerMembership membership = new ViewerMembership();
+    assertTrue(membership.hasRequested(show, "1.1.1.1"));
+
+    show.setRequests(new ArrayList<>());
+    assertFalse(membership.hasRequested(show, "1.1.1.1"));
+  }
+
+  @Test
+  @DisplayName("Finds voters across all votes and records new ones")
+  void votersAcrossVotes() {
+    Show show = this.show();
+    ViewerMembership membership = new ViewerMembership();
+
+    assertTrue(membership.hasVoted(show, "3.3.3.3"));
+    assertTrue(membership.hasVoted(show, "4.4.4.4"));
+    assertFalse(membership.hasVoted(show, "5.5.5.5"));
+
+    membership.voted("5.5.5.5");
+    assertTrue(membership.hasVoted(show, "5.5.5.5"));
+  }
+
+  @Test
+  @DisplayName("Scans give the same answers without building an index")
+  void scansMatchIndex() {
+    Show show = this.show();
+
+    assertTrue(ViewerMembership.scanRequested(show, "1.1.1.1"));
+    assertFalse(ViewerMembership.scanRequested(show, "fe80::a"));
+    assertTrue(ViewerMembership.scanVoted(show, "4.4.4.4"));
+    assertFalse(ViewerMembership.scanVoted(show, "5.5.5.5"));
+  }
+
+  @Test
+  @DisplayName("Index keeps membership only for retained shows and scans the rest")
+  void indexesRetainedShowsOnly() {
+    ViewerMembershipIndex index = new ViewerMembershipIndex();
+    Show retained = this.show();
+    Show loadedOnce = this.show();
+    index.retain(retained);
+
+    // A voter recorded in memory without touching the votes list is only known to the retained show's index
+    index.voted(retained, "5.5.5.5");
+    index.voted(loadedOnce, "5.5.5.5");
+    assertTrue(index.hasVoted(retained, "5.5.5.5"));
+    assertFalse(index.hasVoted(loadedOnce, "5.5.5.5"));
+    assertTrue(index.hasRequested(loadedOnce, "1.1.1.1"));
+  }
+}
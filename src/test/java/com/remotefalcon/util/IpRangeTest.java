@@ -0,0 +1,61 @@
+package com.remotefalcon.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpRangeTest {
+
+  @Test
+  @DisplayName("Matches IPv4 addresses inside the block only")
+  void matchesIpv4Block() {
+    IpRange range = IpRange.parse("203.0.113.0/24").orElseThrow();
+
+    assertTrue(range.contains(IpRange.toBytes("203.0.113.7")));
+    assertTrue(range.contains(IpRange.toBytes("203.0.113.255")));
+    assertFalse(range.contains(IpRange.toBytes("203.0.114.1")));
+  }
+
+  @Test
+  @DisplayName("Handles prefixes that are not a multiple of eight")
+  void matchesPartialBytePrefix() {
+    IpRange range = IpRange.parse("10.0.0.0/13").orElseThrow();
+
+    assertTrue(range.contains(IpRange.toBytes("10.7.255.255")));
+    assertFalse(range.contains(IpRange.toBytes("10.8.0.0")));
+  }
+
+  @Test
+  @DisplayName("Matches IPv6 blocks and never mixes address families")
+  void matchesIpv6Block() {
+    IpRange range = IpRange.parse("2001:db8::/32").orElseThrow();
+
+    assertTrue(range.contains(IpRange.toBytes("2001:db8:1::1")));
+    assertFalse(range.contains(IpRange.toBytes("2001:db9::1")));
+    assertFalse(range.contains(IpRange.toBytes("32.1.13.184")));
+  }
+
+  @Test
+  @DisplayName("Rejects entries that are not CIDR blocks of IP literals")
+  void rejectsInvalidEntries() {
+    assertTrue(IpRange.parse("203.0.113.7").isEmpty());
+    assertTrue(IpRange.parse("203.0.113.0/33").isEmpty());
+    assertTrue(IpRange.parse("example.com/24").isEmpty());
+    assertTrue(IpRange.parse("203.0.113.0/abc").isEmpty());
+    assertNull(IpRange.toBytes("example.com"));
+  }
+
+  @Test
+  @DisplayName("Never resolves hostnames, even ones made of hex digits")
+  void neverResolvesHostnames() {
+    assertNull(IpRange.toBytes("cafe"));
+    assertNull(IpRange.toBytes("face"));
+    assertNull(IpRange.toBytes("dead.beef"));
+    assertNull(IpRange.toBytes("1.2.3"));
+    assertNull(IpRange.toBytes("203.0.113.256"));
+    assertNull(IpRange.toBytes("2001:db8::zz"));
+    assertTrue(IpRange.parse("cafe/16").isEmpty());
+    assertArrayEquals(new byte[]{(byte) 203, 0, 113, 7}, IpRange.toBytes("203.0.113.7"));
+  }
+}